@@ -0,0 +1,116 @@
+package com.rtbhouse.loadgen;
+
+import java.util.function.IntFunction;
+
+/**
+ * Deterministic source of user tags: every attribute of the tag with a given index is a hash of the seed and the
+ * index, so any tag of the stream can be regenerated on demand instead of being kept in memory. Products have a fixed
+ * brand, category and price. Cardinalities follow the data characteristics of the assignment.
+ */
+public class Catalog {
+
+    public static final int COUNTRIES = 100;
+    public static final int ORIGINS = 1_000;
+    public static final int BRANDS = 250;
+    public static final int CATEGORIES = 67;
+    public static final int PRODUCTS = 100_000;
+    public static final int MAX_PRICE = 10_000;
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final long COOKIE_SALT = 0x636f6f6b6965L;
+    private static final long PRODUCT_SALT = 0x70726f64756374L;
+    private static final char[] BASE62 = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".toCharArray();
+    private static final int COOKIE_LENGTH = 11;
+
+    private final long seed;
+    private final int cookies;
+    private final String[] countries = names(COUNTRIES, Catalog::countryName);
+    private final String[] origins = names(ORIGINS, i -> String.format("CAMPAIGN_%04d", i));
+    private final String[] brands = names(BRANDS, i -> String.format("BRAND_%03d", i));
+    private final String[] categories = names(CATEGORIES, i -> String.format("CATEGORY_%02d", i));
+
+    public Catalog(long seed, int cookies) {
+        this.seed = seed;
+        this.cookies = cookies;
+    }
+
+    public UserTag tag(long index) {
+        long base = hash(index);
+        // squaring a uniform draw skews activity towards low cookie numbers, so some profiles overflow 200 events
+        double uniform = (draw(base, 1) >>> 11) * 0x1.0p-53;
+        int cookie = (int) (cookies * uniform * uniform);
+        int country = Math.floorMod(draw(base, 2), COUNTRIES);
+        int devicePick = Math.floorMod(draw(base, 3), 100);
+        UserTag.Device device = devicePick < 60 ? UserTag.Device.MOBILE
+                : devicePick < 95 ? UserTag.Device.PC : UserTag.Device.TV;
+        UserTag.Action action = Math.floorMod(draw(base, 4), 5) == 0 ? UserTag.Action.BUY : UserTag.Action.VIEW;
+        int origin = Math.floorMod(draw(base, 5), ORIGINS);
+        int product = Math.floorMod(draw(base, 6), PRODUCTS);
+        long productBase = mix(seed ^ PRODUCT_SALT ^ mix(product));
+        return new UserTag(index, cookie, country, device, action, origin, product,
+                Math.floorMod(draw(productBase, 1), BRANDS),
+                Math.floorMod(draw(productBase, 2), CATEGORIES),
+                1 + Math.floorMod(draw(productBase, 3), MAX_PRICE));
+    }
+
+    /**
+     * Hash of the seed and the tag index. Draws 1 to 6 of it make up the tag, queries sent after the tag use higher
+     * draws.
+     */
+    public long hash(long index) {
+        return mix(seed + index * GOLDEN_GAMMA);
+    }
+
+    public static long draw(long base, int n) {
+        return mix(base + n * GOLDEN_GAMMA);
+    }
+
+    public String cookie(int cookie) {
+        long bits = mix(seed ^ COOKIE_SALT ^ mix(cookie));
+        char[] name = new char[COOKIE_LENGTH];
+        for (int i = 0; i < COOKIE_LENGTH; i++) {
+            name[i] = BASE62[(int) Long.remainderUnsigned(bits, BASE62.length)];
+            bits = Long.divideUnsigned(bits, BASE62.length);
+        }
+        return new String(name);
+    }
+
+    public String country(int country) {
+        return countries[country];
+    }
+
+    public String origin(int origin) {
+        return origins[origin];
+    }
+
+    public String brand(int brand) {
+        return brands[brand];
+    }
+
+    public String category(int category) {
+        return categories[category];
+    }
+
+    public int cookies() {
+        return cookies;
+    }
+
+    private static String countryName(int i) {
+        return new String(new char[] {(char) ('A' + i / 26), (char) ('A' + i % 26)});
+    }
+
+    private static String[] names(int count, IntFunction<String> name) {
+        String[] names = new String[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = name.apply(i);
+        }
+        return names;
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,33 @@
+package com.rtbhouse.loadgen;
+
+import java.time.Duration;
+
+/**
+ * Endpoints of the assignment with the status code and the request timeout of their specification.
+ */
+public enum Endpoint {
+
+    USER_TAGS(204, Duration.ofMillis(200)),
+    USER_PROFILES(200, Duration.ofMillis(200)),
+    AGGREGATES(200, Duration.ofSeconds(60));
+
+    private final int expectedStatus;
+    private final Duration timeout;
+
+    Endpoint(int expectedStatus, Duration timeout) {
+        this.expectedStatus = expectedStatus;
+        this.timeout = timeout;
+    }
+
+    public int getExpectedStatus() {
+        return expectedStatus;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public String metricName() {
+        return name().toLowerCase();
+    }
+}
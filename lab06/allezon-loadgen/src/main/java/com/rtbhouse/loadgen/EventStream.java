@@ -0,0 +1,162 @@
+package com.rtbhouse.loadgen;
+
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * The request stream of the testing platform: user tags 1 ms apart in event time, a user profile query after every
+ * 10 tags and an aggregates query after every 1000 tags. Queries only ask about data older than the data latency of
+ * their use case and carry the expected answer as their body. The stream depends only on the seed and the number of
+ * cookies.
+ */
+public class EventStream {
+
+    public static final int TAGS_PER_PROFILE_QUERY = 10;
+    public static final int TAGS_PER_AGGREGATES_QUERY = 1_000;
+    public static final long PROFILE_DATA_LATENCY_MILLIS = 10_000;
+    public static final long AGGREGATES_DATA_LATENCY_MILLIS = 60_000;
+    public static final int MAX_AGGREGATES_MINUTES = 10;
+
+    private static final long BUCKET_MILLIS = 60_000;
+    private static final long MAX_PROFILE_RANGE_MILLIS = 3_600_000;
+    private static final long PROFILE_COOKIE_WINDOW = 60_000;
+
+    private final Catalog catalog;
+    private final JsonBodies bodies;
+    private final ProfileModel profiles;
+    private final MinuteLog minutes;
+    private final Queue<Request> queries = new ArrayDeque<>();
+
+    private long nextTag;
+
+    public EventStream(long seed, int cookies) {
+        this.catalog = new Catalog(seed, cookies);
+        this.bodies = new JsonBodies(catalog);
+        this.profiles = new ProfileModel(cookies);
+        this.minutes = new MinuteLog(MAX_AGGREGATES_MINUTES + 2);
+    }
+
+    public synchronized Request next() {
+        Request query = queries.poll();
+        if (query != null) {
+            return query;
+        }
+        long index = nextTag++;
+        UserTag tag = catalog.tag(index);
+        profiles.add(tag);
+        minutes.add(tag);
+        if ((index + 1) % TAGS_PER_PROFILE_QUERY == 0 && index >= PROFILE_DATA_LATENCY_MILLIS) {
+            queries.add(profileQuery(index));
+        }
+        if ((index + 1) % TAGS_PER_AGGREGATES_QUERY == 0) {
+            Request aggregatesQuery = aggregatesQuery(index);
+            if (aggregatesQuery != null) {
+                queries.add(aggregatesQuery);
+            }
+        }
+        return new Request(Endpoint.USER_TAGS, "/user_tags", bodies.userTag(tag));
+    }
+
+    /**
+     * Number of user tags handed out so far, which is also the logical time elapsed in milliseconds.
+     */
+    public synchronized long tags() {
+        return nextTag;
+    }
+
+    private Request profileQuery(long index) {
+        long base = catalog.hash(index);
+        long toIndex = index + 1 - PROFILE_DATA_LATENCY_MILLIS;
+        long fromIndex = toIndex - 1 - Math.floorMod(Catalog.draw(base, 10), MAX_PROFILE_RANGE_MILLIS);
+        // ask about a cookie that was active recently so that most answers are not empty
+        long sample = Math.max(0, toIndex - 1 - Math.floorMod(Catalog.draw(base, 11), PROFILE_COOKIE_WINDOW));
+        int cookie = catalog.tag(sample).getCookie();
+        int limit = Math.floorMod(Catalog.draw(base, 12), 4) == 0
+                ? 1 + Math.floorMod(Catalog.draw(base, 13), ProfileModel.MAX_EVENTS_PER_ACTION)
+                : ProfileModel.MAX_EVENTS_PER_ACTION;
+
+        String cookieName = catalog.cookie(cookie);
+        String path = "/user_profiles/" + cookieName
+                + "?time_range=" + format(JsonBodies.MILLIS, UserTag.timeOf(fromIndex))
+                + "_" + format(JsonBodies.MILLIS, UserTag.timeOf(toIndex))
+                + "&limit=" + limit;
+        byte[] expected = bodies.userProfile(cookieName,
+                profiles.newestFirst(cookie, UserTag.Action.VIEW, fromIndex, toIndex, limit),
+                profiles.newestFirst(cookie, UserTag.Action.BUY, fromIndex, toIndex, limit));
+        return new Request(Endpoint.USER_PROFILES, path, expected);
+    }
+
+    private Request aggregatesQuery(long index) {
+        long toMinute = (index + 1 - AGGREGATES_DATA_LATENCY_MILLIS) / MinuteLog.TAGS_PER_MINUTE;
+        if (toMinute < 1) {
+            return null;
+        }
+        long base = catalog.hash(index);
+        long fromMinute = Math.max(0, toMinute - 1 - Math.floorMod(Catalog.draw(base, 20), MAX_AGGREGATES_MINUTES));
+        UserTag.Action action = UserTag.Action.values()[Math.floorMod(Catalog.draw(base, 21), 2)];
+        // filter values come from a tag inside the range so that filtered buckets are not always empty
+        UserTag sample = catalog.tag(fromMinute * MinuteLog.TAGS_PER_MINUTE
+                + Math.floorMod(Catalog.draw(base, 22), (toMinute - fromMinute) * MinuteLog.TAGS_PER_MINUTE));
+        int filters = Math.floorMod(Catalog.draw(base, 23), 8);
+        int origin = (filters & 1) != 0 ? sample.getOrigin() : -1;
+        int brand = (filters & 2) != 0 ? sample.getBrand() : -1;
+        int category = (filters & 4) != 0 ? sample.getCategory() : -1;
+        List<String> aggregates = switch (Math.floorMod(Catalog.draw(base, 24), 4)) {
+            case 0 -> List.of("COUNT");
+            case 1 -> List.of("SUM_PRICE");
+            case 2 -> List.of("COUNT", "SUM_PRICE");
+            default -> List.of("SUM_PRICE", "COUNT");
+        };
+
+        long fromTime = UserTag.timeOf(fromMinute * MinuteLog.TAGS_PER_MINUTE);
+        StringBuilder path = new StringBuilder("/aggregates?time_range=")
+                .append(format(JsonBodies.SECONDS, fromTime)).append('_')
+                .append(format(JsonBodies.SECONDS, UserTag.timeOf(toMinute * MinuteLog.TAGS_PER_MINUTE)))
+                .append("&action=").append(action.name());
+        List<String> columns = new ArrayList<>(List.of("1m_bucket", "action"));
+        List<String> filterValues = new ArrayList<>();
+        if (origin >= 0) {
+            path.append("&origin=").append(catalog.origin(origin));
+            columns.add("origin");
+            filterValues.add(catalog.origin(origin));
+        }
+        if (brand >= 0) {
+            path.append("&brand_id=").append(catalog.brand(brand));
+            columns.add("brand_id");
+            filterValues.add(catalog.brand(brand));
+        }
+        if (category >= 0) {
+            path.append("&category_id=").append(catalog.category(category));
+            columns.add("category_id");
+            filterValues.add(catalog.category(category));
+        }
+        for (String aggregate : aggregates) {
+            path.append("&aggregates=").append(aggregate);
+            columns.add(aggregate.toLowerCase());
+        }
+
+        long[] counts = new long[(int) (toMinute - fromMinute)];
+        long[] sums = new long[counts.length];
+        minutes.aggregate(fromMinute, action, origin, brand, category, counts, sums);
+        List<List<String>> rows = new ArrayList<>(counts.length);
+        for (int i = 0; i < counts.length; i++) {
+            List<String> row = new ArrayList<>(columns.size());
+            row.add(format(JsonBodies.SECONDS, fromTime + i * BUCKET_MILLIS));
+            row.add(action.name());
+            row.addAll(filterValues);
+            for (String aggregate : aggregates) {
+                row.add(String.valueOf(aggregate.equals("COUNT") ? counts[i] : sums[i]));
+            }
+            rows.add(row);
+        }
+        return new Request(Endpoint.AGGREGATES, path.toString(), bodies.aggregates(columns, rows));
+    }
+
+    private static String format(DateTimeFormatter formatter, long millis) {
+        return formatter.format(Instant.ofEpochMilli(millis));
+    }
+}
@@ -0,0 +1,108 @@
+package com.rtbhouse.loadgen;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+
+/**
+ * Writes request bodies in the formats of the assignment: user tags, and the expected answers that the testing
+ * platform sends with queries in debug mode.
+ */
+public class JsonBodies {
+
+    public static final DateTimeFormatter TAG_TIME =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+    public static final DateTimeFormatter MILLIS =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS").withZone(ZoneOffset.UTC);
+    public static final DateTimeFormatter SECONDS =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss").withZone(ZoneOffset.UTC);
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final Catalog catalog;
+
+    public JsonBodies(Catalog catalog) {
+        this.catalog = catalog;
+    }
+
+    public byte[] userTag(UserTag tag) {
+        return write(256, generator -> writeUserTag(generator, tag, catalog.cookie(tag.getCookie())));
+    }
+
+    public byte[] userProfile(String cookie, long[] views, long[] buys) {
+        return write(256 * (1 + views.length + buys.length), generator -> {
+            generator.writeStartObject();
+            generator.writeStringField("cookie", cookie);
+            generator.writeArrayFieldStart("views");
+            for (long index : views) {
+                writeUserTag(generator, catalog.tag(index), cookie);
+            }
+            generator.writeEndArray();
+            generator.writeArrayFieldStart("buys");
+            for (long index : buys) {
+                writeUserTag(generator, catalog.tag(index), cookie);
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        });
+    }
+
+    public byte[] aggregates(List<String> columns, List<List<String>> rows) {
+        return write(64 * (1 + rows.size()) * columns.size(), generator -> {
+            generator.writeStartObject();
+            generator.writeArrayFieldStart("columns");
+            for (String column : columns) {
+                generator.writeString(column);
+            }
+            generator.writeEndArray();
+            generator.writeArrayFieldStart("rows");
+            for (List<String> row : rows) {
+                generator.writeStartArray();
+                for (String value : row) {
+                    generator.writeString(value);
+                }
+                generator.writeEndArray();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        });
+    }
+
+    private void writeUserTag(JsonGenerator generator, UserTag tag, String cookie) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("time", TAG_TIME.format(Instant.ofEpochMilli(tag.getTime())));
+        generator.writeStringField("cookie", cookie);
+        generator.writeStringField("country", catalog.country(tag.getCountry()));
+        generator.writeStringField("device", tag.getDevice().name());
+        generator.writeStringField("action", tag.getAction().name());
+        generator.writeStringField("origin", catalog.origin(tag.getOrigin()));
+        generator.writeObjectFieldStart("product_info");
+        generator.writeStringField("product_id", String.valueOf(tag.getProduct()));
+        generator.writeStringField("brand_id", catalog.brand(tag.getBrand()));
+        generator.writeStringField("category_id", catalog.category(tag.getCategory()));
+        generator.writeNumberField("price", tag.getPrice());
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+
+    private byte[] write(int sizeHint, BodyWriter writer) {
+        ByteArrayBuilder out = new ByteArrayBuilder(sizeHint);
+        try (JsonGenerator generator = jsonFactory.createGenerator(out)) {
+            writer.write(generator);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    @FunctionalInterface
+    private interface BodyWriter {
+        void write(JsonGenerator generator) throws IOException;
+    }
+}
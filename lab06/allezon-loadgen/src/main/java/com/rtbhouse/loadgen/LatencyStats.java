@@ -0,0 +1,134 @@
+package com.rtbhouse.loadgen;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Latency histograms, answer and error counters per endpoint. Recording is lock-free; interval histograms are swapped out
+ * for the periodic report and accumulated into the totals written at the end of the run.
+ */
+public class LatencyStats {
+
+    private static final Logger logger = LoggerFactory.getLogger(LatencyStats.class);
+
+    private static final long MAX_TRACKED_NANOS = TimeUnit.MINUTES.toNanos(5);
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final Map<Endpoint, Recorder> recorders = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, Histogram> totals = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, LongAdder> answered = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, LongAdder> errors = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, LongAdder> timeouts = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, LongAdder> dropped = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, Histogram> intervals = new EnumMap<>(Endpoint.class);
+
+    public LatencyStats() {
+        for (Endpoint endpoint : Endpoint.values()) {
+            recorders.put(endpoint, new Recorder(MAX_TRACKED_NANOS, 3));
+            totals.put(endpoint, new Histogram(MAX_TRACKED_NANOS, 3));
+            answered.put(endpoint, new LongAdder());
+            errors.put(endpoint, new LongAdder());
+            timeouts.put(endpoint, new LongAdder());
+            dropped.put(endpoint, new LongAdder());
+        }
+    }
+
+    public void record(Endpoint endpoint, long latencyNanos) {
+        recorders.get(endpoint).recordValue(Math.min(latencyNanos, MAX_TRACKED_NANOS));
+    }
+
+    /**
+     * Counts a request answered in time with the expected status, the goodput of the run.
+     */
+    public void answer(Endpoint endpoint) {
+        answered.get(endpoint).increment();
+    }
+
+    public void error(Endpoint endpoint) {
+        errors.get(endpoint).increment();
+    }
+
+    public void timeout(Endpoint endpoint) {
+        timeouts.get(endpoint).increment();
+    }
+
+    /**
+     * Counts a request the generator did not send because too many requests were already in flight.
+     */
+    public void drop(Endpoint endpoint) {
+        dropped.get(endpoint).increment();
+    }
+
+    public synchronized void report(double intervalSeconds) {
+        for (Endpoint endpoint : Endpoint.values()) {
+            Histogram interval = drain(endpoint);
+            if (interval.getTotalCount() > 0) {
+                logger.info("{}: {} req/s, {}", endpoint.metricName(),
+                        String.format("%.1f", interval.getTotalCount() / intervalSeconds), summary(interval, endpoint));
+            }
+        }
+    }
+
+    /**
+     * Forgets everything recorded so far, used to leave the warm-up of both sides out of the totals.
+     */
+    public synchronized void reset() {
+        for (Endpoint endpoint : Endpoint.values()) {
+            drain(endpoint);
+            totals.get(endpoint).reset();
+            answered.get(endpoint).reset();
+            errors.get(endpoint).reset();
+            timeouts.get(endpoint).reset();
+            dropped.get(endpoint).reset();
+        }
+    }
+
+    public synchronized void finish(Path histogramDir) throws IOException {
+        for (Endpoint endpoint : Endpoint.values()) {
+            drain(endpoint);
+            Histogram total = totals.get(endpoint);
+            if (total.getTotalCount() == 0) {
+                continue;
+            }
+            logger.info("{} total: {} requests, {}", endpoint.metricName(), total.getTotalCount(),
+                    summary(total, endpoint));
+            if (histogramDir != null) {
+                Files.createDirectories(histogramDir);
+                try (PrintStream out = new PrintStream(
+                        Files.newOutputStream(histogramDir.resolve(endpoint.metricName() + ".hgrm")))) {
+                    total.outputPercentileDistribution(out, NANOS_PER_MILLI);
+                }
+            }
+        }
+    }
+
+    private Histogram drain(Endpoint endpoint) {
+        Histogram interval = recorders.get(endpoint).getIntervalHistogram(intervals.get(endpoint));
+        intervals.put(endpoint, interval);
+        totals.get(endpoint).add(interval);
+        return interval;
+    }
+
+    private String summary(Histogram histogram, Endpoint endpoint) {
+        return String.format("p50 %.2f ms, p99 %.2f ms, p99.9 %.2f ms, max %.2f ms, %d ok, %d errors, %d timeouts,"
+                        + " %d dropped",
+                millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue()),
+                answered.get(endpoint).sum(), errors.get(endpoint).sum(), timeouts.get(endpoint).sum(), dropped.get(endpoint).sum());
+    }
+
+    private static double millis(long nanos) {
+        return nanos / NANOS_PER_MILLI;
+    }
+}
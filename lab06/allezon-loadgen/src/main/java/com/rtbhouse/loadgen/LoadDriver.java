@@ -0,0 +1,99 @@
+package com.rtbhouse.loadgen;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends the stream to the server in one of two ways. The open model sends user tags at a constant rate whatever the
+ * server does and measures latency from the moment each request was due, so a stalled server is charged for the
+ * requests queued behind it. Compressed time keeps a fixed number of requests in flight and pushes logical time as
+ * fast as the server accepts it.
+ */
+public class LoadDriver {
+
+    private final EventStream stream;
+    private final LatencyStats stats;
+    private final URI target;
+    private final HttpClient httpClient;
+
+    public LoadDriver(EventStream stream, LatencyStats stats, URI target, int ioThreads) {
+        this.stream = stream;
+        this.stats = stats;
+        this.target = target;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newFixedThreadPool(ioThreads))
+                .build();
+    }
+
+    public void runOpen(int tagsPerSecond, long tags, int maxInFlight) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        double periodNanos = TimeUnit.SECONDS.toNanos(1) / (double) tagsPerSecond;
+        long start = System.nanoTime();
+        long due = start;
+        long sent = 0;
+        while (sent < tags) {
+            Request request = stream.next();
+            if (request.getEndpoint() == Endpoint.USER_TAGS) {
+                // queries go out together with the tag that precedes them
+                due = start + (long) (sent++ * periodNanos);
+                parkUntil(due);
+            }
+            if (inFlight.tryAcquire()) {
+                send(request, due, inFlight);
+            } else {
+                stats.drop(request.getEndpoint());
+            }
+        }
+        drain(inFlight, maxInFlight);
+    }
+
+    public void runCompressed(long tags, int concurrency) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(concurrency);
+        while (stream.tags() < tags) {
+            inFlight.acquire();
+            send(stream.next(), System.nanoTime(), inFlight);
+        }
+        drain(inFlight, concurrency);
+    }
+
+    private void send(Request request, long dueNanos, Semaphore inFlight) {
+        Endpoint endpoint = request.getEndpoint();
+        HttpRequest httpRequest = HttpRequest.newBuilder(target.resolve(request.getPathAndQuery()))
+                .timeout(endpoint.getTimeout())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(request.getBody()))
+                .build();
+        httpClient.sendAsync(httpRequest, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+            inFlight.release();
+            stats.record(endpoint, System.nanoTime() - dueNanos);
+            Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+            if (cause instanceof HttpTimeoutException) {
+                stats.timeout(endpoint);
+            } else if (cause != null || response.statusCode() != endpoint.getExpectedStatus()) {
+                stats.error(endpoint);
+            } else {
+                stats.answer(endpoint);
+            }
+        });
+    }
+
+    private static void drain(Semaphore inFlight, int permits) throws InterruptedException {
+        long timeoutSeconds = Endpoint.AGGREGATES.getTimeout().toSeconds() + 1;
+        inFlight.tryAcquire(permits, timeoutSeconds, TimeUnit.SECONDS);
+    }
+
+    private static void parkUntil(long deadline) {
+        for (long remaining; (remaining = deadline - System.nanoTime()) > 0; ) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+}
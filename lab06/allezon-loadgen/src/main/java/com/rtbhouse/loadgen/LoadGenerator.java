@@ -0,0 +1,100 @@
+package com.rtbhouse.loadgen;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Replays a deterministic stream of user tags and queries against the server, see the README for the options.
+ */
+public class LoadGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadGenerator.class);
+
+    private static final int REPORT_INTERVAL_SECONDS = 10;
+    private static final String USAGE = "Usage: java -jar allezon-loadgen-1.0.jar [--target=http://localhost:8088]"
+            + " [--mode=open|compressed] [--seed=1] [--cookies=1000000] [--rate=1000] [--duration-seconds=60]"
+            + " [--max-in-flight=10000] [--warmup-seconds=0] [--logical-hours=24] [--concurrency=64] [--io-threads=2]"
+            + " [--histograms=<directory>]";
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+        Map<String, String> options = parse(args);
+        URI target = URI.create(options.getOrDefault("target", "http://localhost:8088"));
+        String mode = options.getOrDefault("mode", "open");
+        long seed = Long.parseLong(options.getOrDefault("seed", "1"));
+        int cookies = Integer.parseInt(options.getOrDefault("cookies", "1000000"));
+        String histograms = options.get("histograms");
+
+        EventStream stream = new EventStream(seed, cookies);
+        LatencyStats stats = new LatencyStats();
+        LoadDriver driver = new LoadDriver(stream, stats, target,
+                Integer.parseInt(options.getOrDefault("io-threads", "2")));
+
+        long start = System.nanoTime();
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        reporter.scheduleAtFixedRate(() -> {
+            stats.report(REPORT_INTERVAL_SECONDS);
+            logProgress(stream, start);
+        }, REPORT_INTERVAL_SECONDS, REPORT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        long warmupSeconds = Long.parseLong(options.getOrDefault("warmup-seconds", "0"));
+        if (warmupSeconds > 0) {
+            reporter.schedule(() -> {
+                stats.reset();
+                logger.info("Warm-up finished, statistics reset");
+            }, warmupSeconds, TimeUnit.SECONDS);
+        }
+
+        switch (mode) {
+            case "open" -> {
+                int rate = Integer.parseInt(options.getOrDefault("rate", "1000"));
+                long seconds = Long.parseLong(options.getOrDefault("duration-seconds", "60"));
+                logger.info("Sending {} user tags/s for {} s to {}, seed {}", rate, seconds, target, seed);
+                driver.runOpen(rate, rate * seconds,
+                        Integer.parseInt(options.getOrDefault("max-in-flight", "10000")));
+            }
+            case "compressed" -> {
+                double hours = Double.parseDouble(options.getOrDefault("logical-hours", "24"));
+                int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "64"));
+                logger.info("Sending {} h of logical time to {} with {} requests in flight, seed {}", hours, target,
+                        concurrency, seed);
+                driver.runCompressed((long) (hours * Duration.ofHours(1).toMillis()), concurrency);
+            }
+            default -> throw new IllegalArgumentException("Unknown mode: " + mode + "\n" + USAGE);
+        }
+
+        reporter.shutdownNow();
+        reporter.awaitTermination(REPORT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        logProgress(stream, start);
+        stats.finish(histograms == null ? null : Paths.get(histograms));
+        System.exit(0);
+    }
+
+    private static void logProgress(EventStream stream, long startNanos) {
+        double wallSeconds = (System.nanoTime() - startNanos) / 1e9;
+        long logicalMillis = stream.tags();
+        logger.info("Logical time {} after {} s of wall time ({}x)", Duration.ofMillis(logicalMillis),
+                String.format("%.0f", wallSeconds), String.format("%.1f", logicalMillis / 1000.0 / wallSeconds));
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg + "\n" + USAGE);
+            }
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,60 @@
+package com.rtbhouse.loadgen;
+
+/**
+ * The last few minutes of tags packed into longs, scanned to compute the expected answer of an aggregates query.
+ * Tags are 1 ms apart, so every minute holds exactly 60 000 of them and the tag index alone gives its position.
+ */
+public class MinuteLog {
+
+    public static final int TAGS_PER_MINUTE = 60_000;
+
+    private static final int ORIGIN_SHIFT = 1;
+    private static final int BRAND_SHIFT = 11;
+    private static final int CATEGORY_SHIFT = 19;
+    private static final int PRICE_SHIFT = 26;
+
+    private final long[][] minutes;
+
+    public MinuteLog(int retainedMinutes) {
+        this.minutes = new long[retainedMinutes][TAGS_PER_MINUTE];
+    }
+
+    public void add(UserTag tag) {
+        long packed = tag.getAction().ordinal()
+                | (long) tag.getOrigin() << ORIGIN_SHIFT
+                | (long) tag.getBrand() << BRAND_SHIFT
+                | (long) tag.getCategory() << CATEGORY_SHIFT
+                | (long) tag.getPrice() << PRICE_SHIFT;
+        minutes[(int) (tag.getIndex() / TAGS_PER_MINUTE % minutes.length)][(int) (tag.getIndex() % TAGS_PER_MINUTE)]
+                = packed;
+    }
+
+    /**
+     * Fills count and sum of prices of every minute in [firstMinute, firstMinute + counts.length) for tags matching
+     * the action and the filters, where -1 means no filter. Minutes are numbered from the first tag of the stream
+     * and must still be retained.
+     */
+    public void aggregate(long firstMinute, UserTag.Action action, int origin, int brand, int category,
+            long[] counts, long[] sums) {
+        for (int i = 0; i < counts.length; i++) {
+            long[] minute = minutes[(int) ((firstMinute + i) % minutes.length)];
+            long count = 0;
+            long sum = 0;
+            for (long packed : minute) {
+                if ((packed & 1) == action.ordinal()
+                        && (origin < 0 || (packed >>> ORIGIN_SHIFT & 0x3ff) == origin)
+                        && (brand < 0 || (packed >>> BRAND_SHIFT & 0xff) == brand)
+                        && (category < 0 || (packed >>> CATEGORY_SHIFT & 0x7f) == category)) {
+                    count++;
+                    sum += packed >>> PRICE_SHIFT;
+                }
+            }
+            counts[i] = count;
+            sums[i] = sum;
+        }
+    }
+
+    public int retainedMinutes() {
+        return minutes.length;
+    }
+}
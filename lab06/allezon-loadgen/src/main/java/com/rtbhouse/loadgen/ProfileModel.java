@@ -0,0 +1,66 @@
+package com.rtbhouse.loadgen;
+
+import java.util.Arrays;
+
+/**
+ * Indices of the 200 most recent views and buys of every cookie, enough to compute the expected user profile of any
+ * query. Rings start small and grow up to the limit, most cookies never get close to it.
+ */
+public class ProfileModel {
+
+    public static final int MAX_EVENTS_PER_ACTION = 200;
+
+    private static final int[] EMPTY = new int[0];
+
+    private final int[][] rings;
+    private final int[] appended;
+
+    public ProfileModel(int cookies) {
+        this.rings = new int[cookies * UserTag.Action.values().length][];
+        this.appended = new int[rings.length];
+        Arrays.fill(rings, EMPTY);
+    }
+
+    public void add(UserTag tag) {
+        if (tag.getIndex() > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Profile model holds tag indices as ints, tag " + tag.getIndex()
+                    + " is out of range");
+        }
+        int slot = slot(tag.getCookie(), tag.getAction());
+        int[] ring = rings[slot];
+        int count = appended[slot];
+        if (count == ring.length && ring.length < MAX_EVENTS_PER_ACTION) {
+            ring = Arrays.copyOf(ring, Math.min(MAX_EVENTS_PER_ACTION, Math.max(4, ring.length * 2)));
+            rings[slot] = ring;
+        }
+        // the ring wraps only once it has reached the limit, before that the indices are in insertion order
+        ring[count % ring.length] = (int) tag.getIndex();
+        appended[slot] = count + 1;
+    }
+
+    /**
+     * Returns indices of the cookie's tags with the given action in [fromIndex, toIndex), newest first, at most
+     * {@code limit} of them.
+     */
+    public long[] newestFirst(int cookie, UserTag.Action action, long fromIndex, long toIndex, int limit) {
+        int slot = slot(cookie, action);
+        int[] ring = rings[slot];
+        int count = appended[slot];
+        long[] result = new long[Math.min(limit, Math.min(count, ring.length))];
+        int found = 0;
+        for (int k = 0; k < Math.min(count, ring.length) && found < result.length; k++) {
+            int index = ring[(count - 1 - k) % ring.length];
+            if (index < fromIndex) {
+                break;
+            }
+            if (index < toIndex) {
+                result[found++] = index;
+            }
+        }
+        return Arrays.copyOf(result, found);
+    }
+
+    private static int slot(int cookie, UserTag.Action action) {
+        return cookie * 2 + action.ordinal();
+    }
+}
@@ -0,0 +1,30 @@
+package com.rtbhouse.loadgen;
+
+/**
+ * A request of the stream: the path with the query string and the JSON body, which for queries is the expected
+ * answer.
+ */
+public class Request {
+
+    private final Endpoint endpoint;
+    private final String pathAndQuery;
+    private final byte[] body;
+
+    public Request(Endpoint endpoint, String pathAndQuery, byte[] body) {
+        this.endpoint = endpoint;
+        this.pathAndQuery = pathAndQuery;
+        this.body = body;
+    }
+
+    public Endpoint getEndpoint() {
+        return endpoint;
+    }
+
+    public String getPathAndQuery() {
+        return pathAndQuery;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+}
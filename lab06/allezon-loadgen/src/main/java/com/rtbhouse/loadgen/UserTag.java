@@ -0,0 +1,93 @@
+package com.rtbhouse.loadgen;
+
+import java.time.Instant;
+
+/**
+ * A generated user tag. Tags are numbered from zero and spaced 1 ms apart in event time, the same way the testing
+ * platform replays its prerecorded stream.
+ */
+public class UserTag {
+
+    public static final long FIRST_TIME_MILLIS = Instant.parse("2022-03-01T00:00:00Z").toEpochMilli();
+
+    public enum Device {
+        PC, MOBILE, TV
+    }
+
+    public enum Action {
+        VIEW, BUY
+    }
+
+    private final long index;
+    private final int cookie;
+    private final int country;
+    private final Device device;
+    private final Action action;
+    private final int origin;
+    private final int product;
+    private final int brand;
+    private final int category;
+    private final int price;
+
+    public UserTag(long index, int cookie, int country, Device device, Action action, int origin, int product,
+            int brand, int category, int price) {
+        this.index = index;
+        this.cookie = cookie;
+        this.country = country;
+        this.device = device;
+        this.action = action;
+        this.origin = origin;
+        this.product = product;
+        this.brand = brand;
+        this.category = category;
+        this.price = price;
+    }
+
+    public static long timeOf(long index) {
+        return FIRST_TIME_MILLIS + index;
+    }
+
+    public long getIndex() {
+        return index;
+    }
+
+    public long getTime() {
+        return timeOf(index);
+    }
+
+    public int getCookie() {
+        return cookie;
+    }
+
+    public int getCountry() {
+        return country;
+    }
+
+    public Device getDevice() {
+        return device;
+    }
+
+    public Action getAction() {
+        return action;
+    }
+
+    public int getOrigin() {
+        return origin;
+    }
+
+    public int getProduct() {
+        return product;
+    }
+
+    public int getBrand() {
+        return brand;
+    }
+
+    public int getCategory() {
+        return category;
+    }
+
+    public int getPrice() {
+        return price;
+    }
+}
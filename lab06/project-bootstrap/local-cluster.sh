@@ -0,0 +1,33 @@
+#!/bin/bash
+# Runs a cookie-sharded cluster of NODES (default 3) local processes on consecutive ports starting at BASE_PORT
+# (default 8088), each with its own state directory under state/. Arguments are passed to every node, e.g.
+#   NODES=4 ./local-cluster.sh --allezon.verifier.sample-rate=0.01
+# Build the jar first with `mvn package`. Ctrl-C stops all nodes.
+set -euo pipefail
+
+NODES=${NODES:-3}
+BASE_PORT=${BASE_PORT:-8088}
+JAR=target/project-bootstrap-1.0.jar
+
+cd "$(dirname "$0")"
+addresses=()
+for ((i = 0; i < NODES; i++)); do
+    addresses+=("http://localhost:$((BASE_PORT + i))")
+done
+cluster=$(IFS=,; echo "${addresses[*]}")
+
+pids=()
+trap 'kill "${pids[@]}" 2>/dev/null; wait' EXIT INT TERM
+mkdir -p state
+for ((i = 0; i < NODES; i++)); do
+    port=$((BASE_PORT + i))
+    java ${JAVA_OPTS:-} -jar "$JAR" \
+        --server.port="$port" \
+        --allezon.state.dir="state/node-$port" \
+        --allezon.cluster.nodes="$cluster" \
+        --allezon.cluster.self="http://localhost:$port" \
+        "$@" > "state/node-$port.log" 2>&1 &
+    pids+=($!)
+    echo "Started node http://localhost:$port (pid $!), log in state/node-$port.log"
+done
+wait
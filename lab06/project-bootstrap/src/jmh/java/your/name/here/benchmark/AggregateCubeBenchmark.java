@@ -0,0 +1,94 @@
+package your.name.here.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import your.name.here.aggregate.AggregateCube;
+import your.name.here.aggregate.AggregateQuery;
+import your.name.here.aggregate.BucketValues;
+import your.name.here.domain.Action;
+import your.name.here.domain.Aggregate;
+import your.name.here.domain.AggregatesQueryResult;
+import your.name.here.domain.TimeRange;
+import your.name.here.encoding.Dictionaries;
+import your.name.here.encoding.EncodedUserTag;
+
+/**
+ * Cube update and a 10-minute query on a cube holding 15 minutes of tags at 1000 tags/s. Updates go to the open
+ * last minute, the queried minutes are sealed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AggregateCubeBenchmark {
+
+    private static final int MINUTES = 15;
+    private static final int TAGS_PER_MINUTE = 60_000;
+    private static final long ALLOWED_LATENESS_MILLIS = 30_000;
+
+    private AggregateCube cube;
+    private EncodedUserTag[] lastMinute;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Dictionaries dictionaries = Dictionaries.inMemory();
+        cube = new AggregateCube(dictionaries, ALLOWED_LATENESS_MILLIS);
+        EncodedUserTag[] tags = BenchmarkData.tags(MINUTES * TAGS_PER_MINUTE, 1_000_000, dictionaries);
+        for (EncodedUserTag tag : tags) {
+            cube.add(tag);
+        }
+        lastMinute = new EncodedUserTag[TAGS_PER_MINUTE];
+        System.arraycopy(tags, tags.length - TAGS_PER_MINUTE, lastMinute, 0, TAGS_PER_MINUTE);
+    }
+
+    @Benchmark
+    public void update() {
+        next = (next + 1) % TAGS_PER_MINUTE;
+        cube.add(lastMinute[next]);
+    }
+
+    @Benchmark
+    public BucketValues query10Minutes(Query query) {
+        return cube.query(query.query);
+    }
+
+    @Benchmark
+    public AggregatesQueryResult query10MinutesToResult(Query query) {
+        return query.query.toResult(cube.query(query.query));
+    }
+
+    @State(Scope.Benchmark)
+    public static class Query {
+
+        @Param({"none", "origin", "brand_category", "all"})
+        private String filters;
+
+        private AggregateQuery query;
+
+        @Setup
+        public void setUp() {
+            long from = BenchmarkData.FIRST_TIME + (MINUTES - 11) * 60_000L;
+            query = new AggregateQuery(new TimeRange(from, from + 10 * 60_000L), Action.BUY,
+                    List.of(Aggregate.COUNT, Aggregate.SUM_PRICE),
+                    filters.equals("origin") || filters.equals("all") ? "CAMPAIGN_7" : null,
+                    filters.startsWith("brand") || filters.equals("all") ? "BRAND_3" : null,
+                    filters.startsWith("brand") || filters.equals("all") ? "CATEGORY_5" : null);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package your.name.here.benchmark;
+
+import java.util.SplittableRandom;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import your.name.here.config.JacksonConfig;
+import your.name.here.domain.Action;
+import your.name.here.domain.Device;
+import your.name.here.encoding.Dictionaries;
+import your.name.here.encoding.EncodedUserTag;
+import your.name.here.encoding.Timestamps;
+
+/**
+ * Deterministic user tags 1 ms apart with the cardinalities of the assignment, shared by the benchmarks.
+ */
+final class BenchmarkData {
+
+    static final long FIRST_TIME = Timestamps.parseMillis("2022-03-01T00:00:00.000Z");
+
+    private static final long SEED = 42;
+    private static final Device[] DEVICES = Device.values();
+
+    private BenchmarkData() {
+    }
+
+    static ObjectMapper objectMapper() {
+        return new ObjectMapper().registerModule(new JacksonConfig().timestampModule());
+    }
+
+    static String cookie(int cookie) {
+        return String.format("cookie-%08x", cookie * 0x9e3779b1);
+    }
+
+    /**
+     * Returns {@code count} tags starting at {@link #FIRST_TIME}, every fifth a BUY.
+     */
+    static EncodedUserTag[] tags(int count, int cookies, Dictionaries dictionaries) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        String[] cookieNames = new String[cookies];
+        for (int i = 0; i < cookies; i++) {
+            cookieNames[i] = cookie(i);
+        }
+        EncodedUserTag[] tags = new EncodedUserTag[count];
+        for (int i = 0; i < count; i++) {
+            EncodedUserTag tag = new EncodedUserTag();
+            tag.setTime(FIRST_TIME + i);
+            tag.setCookie(cookieNames[random.nextInt(cookies)]);
+            tag.setCountry(dictionaries.countries().idOf("C" + random.nextInt(100)));
+            tag.setDevice(DEVICES[random.nextInt(DEVICES.length)]);
+            tag.setAction(random.nextInt(5) == 0 ? Action.BUY : Action.VIEW);
+            tag.setOrigin(dictionaries.origins().idOf("CAMPAIGN_" + random.nextInt(1000)));
+            tag.setProductId(random.nextInt(100_000));
+            tag.setBrand(dictionaries.brands().idOf("BRAND_" + random.nextInt(250)));
+            tag.setCategory(dictionaries.categories().idOf("CATEGORY_" + random.nextInt(67)));
+            tag.setPrice(1 + random.nextInt(10_000));
+            tags[i] = tag;
+        }
+        return tags;
+    }
+
+    static EncodedUserTag copy(EncodedUserTag tag, long time) {
+        EncodedUserTag copy = new EncodedUserTag();
+        copy.setTime(time);
+        copy.setCookie(tag.getCookie());
+        copy.setCountry(tag.getCountry());
+        copy.setDevice(tag.getDevice());
+        copy.setAction(tag.getAction());
+        copy.setOrigin(tag.getOrigin());
+        copy.setProductId(tag.getProductId());
+        copy.setBrand(tag.getBrand());
+        copy.setCategory(tag.getCategory());
+        copy.setPrice(tag.getPrice());
+        return copy;
+    }
+}
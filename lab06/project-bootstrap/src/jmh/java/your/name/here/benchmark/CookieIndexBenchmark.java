@@ -0,0 +1,119 @@
+package your.name.here.benchmark;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import your.name.here.profile.CookieHash;
+import your.name.here.profile.CookieIndex;
+
+/**
+ * {@link CookieIndex} against {@code ConcurrentHashMap<String, V>} with 1M cookies: lookups of present cookies,
+ * inserts into a map growing from empty to {@link #COOKIES} entries and churn, inserting a cookie and removing the
+ * one added {@link #LIVE_COOKIES} before, both in sample mode for the pauses of resizing. Every operation starts
+ * from a new cookie string, as a request does, so the {@code String} hash is not cached.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class CookieIndexBenchmark {
+
+    private static final int COOKIES = 1_000_000;
+    private static final int LIVE_COOKIES = 100_000;
+
+    private final Object value = new Object();
+    private char[][] cookies;
+    private ConcurrentHashMap<String, Object> filledMap;
+    private CookieIndex<Object> filledIndex;
+    private ConcurrentHashMap<String, Object> growingMap;
+    private CookieIndex<Object> growingIndex;
+    private int next;
+    private int nextInsert = COOKIES;
+    private ConcurrentHashMap<String, Object> churnedMap;
+    private CookieIndex<Object> churnedIndex;
+    private int nextChurn;
+
+    @Setup
+    public void setUp() {
+        cookies = new char[COOKIES][];
+        filledMap = new ConcurrentHashMap<>(COOKIES);
+        filledIndex = new CookieIndex<>(COOKIES);
+        for (int i = 0; i < COOKIES; i++) {
+            String cookie = BenchmarkData.cookie(i);
+            cookies[i] = cookie.toCharArray();
+            filledMap.put(cookie, value);
+            filledIndex.putIfAbsent(CookieHash.of(cookie), value);
+        }
+        churnedMap = new ConcurrentHashMap<>(LIVE_COOKIES);
+        churnedIndex = new CookieIndex<>(LIVE_COOKIES);
+        for (int i = 0; i < LIVE_COOKIES; i++) {
+            churnedMap.put(new String(cookies[i]), value);
+            churnedIndex.putIfAbsent(CookieHash.of(new String(cookies[i])), value);
+        }
+        nextChurn = LIVE_COOKIES;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public Object concurrentHashMapGet() {
+        next = (next + 1) % COOKIES;
+        return filledMap.get(new String(cookies[next]));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public Object cookieIndexGet() {
+        next = (next + 1) % COOKIES;
+        return filledIndex.get(CookieHash.of(new String(cookies[next])));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    public Object concurrentHashMapInsert() {
+        if (nextInsert == COOKIES) {
+            growingMap = new ConcurrentHashMap<>();
+            nextInsert = 0;
+        }
+        return growingMap.putIfAbsent(new String(cookies[nextInsert++]), value);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    public Object cookieIndexInsert() {
+        if (nextInsert == COOKIES) {
+            growingIndex = new CookieIndex<>(0);
+            nextInsert = 0;
+        }
+        return growingIndex.putIfAbsent(CookieHash.of(new String(cookies[nextInsert++])), value);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    public Object concurrentHashMapChurn() {
+        int added = nextChurn;
+        nextChurn = (added + 1) % COOKIES;
+        churnedMap.remove(new String(cookies[(added + COOKIES - LIVE_COOKIES) % COOKIES]));
+        return churnedMap.putIfAbsent(new String(cookies[added]), value);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    public Object cookieIndexChurn() {
+        int added = nextChurn;
+        nextChurn = (added + 1) % COOKIES;
+        churnedIndex.remove(CookieHash.of(new String(cookies[(added + COOKIES - LIVE_COOKIES) % COOKIES])), value);
+        return churnedIndex.putIfAbsent(CookieHash.of(new String(cookies[added])), value);
+    }
+}
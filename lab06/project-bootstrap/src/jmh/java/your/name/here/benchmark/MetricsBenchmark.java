@@ -0,0 +1,46 @@
+package your.name.here.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import your.name.here.metrics.Metrics;
+
+/**
+ * Cost the metrics add to a request: a stage timed and a request counted in flight and timed, without the
+ * periodic window rotation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsBenchmark {
+
+    private Metrics metrics;
+
+    @Setup
+    public void setUp() {
+        metrics = new Metrics(10);
+    }
+
+    @Benchmark
+    public long stage() {
+        return metrics.record(Metrics.Stage.STORE_READ, System.nanoTime());
+    }
+
+    @Benchmark
+    public void request() {
+        metrics.end(Metrics.Endpoint.USER_PROFILES, metrics.begin(Metrics.Endpoint.USER_PROFILES), 200);
+    }
+}
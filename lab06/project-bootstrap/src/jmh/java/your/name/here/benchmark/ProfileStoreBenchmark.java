@@ -0,0 +1,91 @@
+package your.name.here.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import your.name.here.domain.TimeRange;
+import your.name.here.encoding.Dictionaries;
+import your.name.here.encoding.EncodedUserTag;
+import your.name.here.profile.CompressedProfileStore;
+import your.name.here.profile.OffHeapProfileStore;
+import your.name.here.profile.ProfileSink;
+import your.name.here.profile.ProfileStore;
+import your.name.here.profile.StripedProfileStore;
+
+/**
+ * Profile insert and range read on stores holding 10 000 cookies with 300 events each, so that most rings are full.
+ * Every insert copies the tag first, as the decoder hands over a fresh one per request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProfileStoreBenchmark {
+
+    private static final int COOKIES = 10_000;
+    private static final int TAGS = COOKIES * 300;
+
+    @Param({"offheap", "heap", "compressed"})
+    private String store;
+
+    private ProfileStore profileStore;
+    private EncodedUserTag[] tags;
+    private String[] cookies;
+    private TimeRange lastHalf;
+    private long nextTime;
+    private int next;
+    private long checksum;
+    private final ProfileSink sink = tag -> checksum += tag.getTime();
+
+    @Setup
+    public void setUp() {
+        profileStore = switch (store) {
+            case "heap" -> new StripedProfileStore(COOKIES);
+            case "compressed" -> new CompressedProfileStore(COOKIES);
+            default -> new OffHeapProfileStore(COOKIES);
+        };
+        tags = BenchmarkData.tags(TAGS, COOKIES, Dictionaries.inMemory());
+        for (EncodedUserTag tag : tags) {
+            profileStore.add(BenchmarkData.copy(tag, tag.getTime()));
+        }
+        cookies = new String[COOKIES];
+        for (int i = 0; i < COOKIES; i++) {
+            cookies[i] = BenchmarkData.cookie(i);
+        }
+        nextTime = BenchmarkData.FIRST_TIME + TAGS;
+        lastHalf = new TimeRange(BenchmarkData.FIRST_TIME + TAGS / 2, nextTime);
+    }
+
+    @Benchmark
+    public void insert() {
+        next = (next + 1) % TAGS;
+        profileStore.add(BenchmarkData.copy(tags[next], nextTime++));
+    }
+
+    @Benchmark
+    public long rangeRead(ReadLimit readLimit) {
+        next = (next + 1) % COOKIES;
+        profileStore.read(cookies[next], lastHalf, readLimit.limit, sink);
+        return checksum;
+    }
+
+    @State(Scope.Benchmark)
+    public static class ReadLimit {
+
+        @Param({"10", "200"})
+        private int limit;
+    }
+}
@@ -0,0 +1,98 @@
+package your.name.here.benchmark;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import your.name.here.aggregate.AggregateQuery;
+import your.name.here.aggregate.BucketValues;
+import your.name.here.domain.Action;
+import your.name.here.domain.Aggregate;
+import your.name.here.domain.AggregatesQueryResult;
+import your.name.here.domain.TimeRange;
+import your.name.here.domain.UserProfileResult;
+import your.name.here.encoding.Dictionaries;
+import your.name.here.encoding.EncodedUserTag;
+import your.name.here.profile.ProfileJsonWriter;
+import your.name.here.profile.ProfileResultBuilder;
+
+/**
+ * Response bodies: a full user profile (200 VIEWs and 200 BUYs) through databind and through the pre-encoded
+ * writer, and a 10-bucket aggregates result with all filters through databind. The profile benchmarks start from
+ * the events a store passes to its sink, so the databind one includes building the result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseSerializationBenchmark {
+
+    private static final String COOKIE = BenchmarkData.cookie(0);
+
+    private ObjectMapper objectMapper;
+    private Dictionaries dictionaries;
+    private List<EncodedUserTag> profileEvents;
+    private AggregatesQueryResult aggregatesResult;
+
+    @Setup
+    public void setUp() {
+        objectMapper = BenchmarkData.objectMapper();
+        dictionaries = Dictionaries.inMemory();
+        List<EncodedUserTag> views = new ArrayList<>();
+        List<EncodedUserTag> buys = new ArrayList<>();
+        for (EncodedUserTag tag : BenchmarkData.tags(2_000, 1, dictionaries)) {
+            List<EncodedUserTag> target = tag.getAction() == Action.BUY ? buys : views;
+            if (target.size() < 200) {
+                target.add(0, tag);
+            }
+        }
+        profileEvents = new ArrayList<>(views);
+        profileEvents.addAll(buys);
+
+        long from = BenchmarkData.FIRST_TIME;
+        AggregateQuery query = new AggregateQuery(new TimeRange(from, from + 10 * 60_000L), Action.BUY,
+                List.of(Aggregate.COUNT, Aggregate.SUM_PRICE), "CAMPAIGN_7", "BRAND_3", "CATEGORY_5");
+        BucketValues values = new BucketValues(query.buckets());
+        for (int i = 0; i < values.buckets(); i++) {
+            values.set(i, 10 + i, 12_345L * i);
+        }
+        aggregatesResult = query.toResult(values);
+    }
+
+    @Benchmark
+    public byte[] userProfileDatabind() throws IOException {
+        ProfileResultBuilder builder = new ProfileResultBuilder(COOKIE, dictionaries);
+        profileEvents.forEach(builder::accept);
+        UserProfileResult result = builder.build();
+        return objectMapper.writeValueAsBytes(result);
+    }
+
+    @Benchmark
+    public ByteBuffer userProfilePreserialized() {
+        ProfileJsonWriter writer = new ProfileJsonWriter(COOKIE, dictionaries);
+        profileEvents.forEach(writer::accept);
+        return writer.toByteBuffer();
+    }
+
+    @Benchmark
+    public byte[] aggregatesDatabind() throws IOException {
+        return objectMapper.writeValueAsBytes(aggregatesResult);
+    }
+}
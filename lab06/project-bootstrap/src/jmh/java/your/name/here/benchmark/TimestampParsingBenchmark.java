@@ -0,0 +1,84 @@
+package your.name.here.benchmark;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import your.name.here.domain.TimeRange;
+import your.name.here.encoding.Timestamps;
+import your.name.here.serde.InstantDeserializer;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TimestampParsingBenchmark {
+
+    private static final String EVENT_TIME = "2022-03-22T12:15:00.123Z";
+    private static final String EVENT_TIME_JSON = "\"" + EVENT_TIME + "\"";
+    private static final String TIME_RANGE = "2022-03-22T12:15:00.000_2022-03-22T12:30:00.000";
+
+    private ObjectReader javaTimeModuleReader;
+    private ObjectReader timestampsReader;
+
+    @Setup
+    public void setUp() {
+        javaTimeModuleReader = new ObjectMapper().registerModule(new JavaTimeModule()).readerFor(Instant.class);
+        timestampsReader = new ObjectMapper()
+                .registerModule(new SimpleModule().addDeserializer(Instant.class, new InstantDeserializer()))
+                .readerFor(Instant.class);
+    }
+
+    @Benchmark
+    public Instant eventTimeJavaTimeModule() throws IOException {
+        return javaTimeModuleReader.readValue(EVENT_TIME_JSON);
+    }
+
+    @Benchmark
+    public Instant eventTimeTimestamps() throws IOException {
+        return timestampsReader.readValue(EVENT_TIME_JSON);
+    }
+
+    @Benchmark
+    public long eventTimeInstantParse() {
+        return Instant.parse(EVENT_TIME).toEpochMilli();
+    }
+
+    @Benchmark
+    public long eventTimeTimestampsParse() {
+        return Timestamps.parseMillis(EVENT_TIME);
+    }
+
+    @Benchmark
+    public long timeRangeLocalDateTime() {
+        int separator = TIME_RANGE.indexOf('_');
+        return LocalDateTime.parse(TIME_RANGE.substring(0, separator)).toInstant(ZoneOffset.UTC).toEpochMilli()
+                + LocalDateTime.parse(TIME_RANGE.substring(separator + 1)).toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    @Benchmark
+    public long timeRangeTimestamps() {
+        TimeRange timeRange = TimeRange.parse(TIME_RANGE);
+        return timeRange.getFromMillis() + timeRange.getToMillis();
+    }
+}
@@ -0,0 +1,72 @@
+package your.name.here.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import your.name.here.domain.UserTagEvent;
+import your.name.here.encoding.Dictionaries;
+import your.name.here.encoding.EncodedUserTag;
+import your.name.here.encoding.UserTagDecoder;
+
+/**
+ * The POST /user_tags body to an {@link EncodedUserTag}: the streaming decoder against databind followed by
+ * dictionary encoding.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserTagDecodingBenchmark {
+
+    private static final int BODIES = 1024;
+
+    private Dictionaries dictionaries;
+    private UserTagDecoder decoder;
+    private ObjectReader reader;
+    private byte[][] bodies;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = BenchmarkData.objectMapper();
+        dictionaries = Dictionaries.inMemory();
+        decoder = new UserTagDecoder(objectMapper, dictionaries);
+        reader = objectMapper.readerFor(UserTagEvent.class);
+        EncodedUserTag[] tags = BenchmarkData.tags(BODIES, BODIES, dictionaries);
+        bodies = new byte[BODIES][];
+        for (int i = 0; i < BODIES; i++) {
+            bodies[i] = objectMapper.writeValueAsBytes(tags[i].decode(dictionaries));
+        }
+    }
+
+    @Benchmark
+    public EncodedUserTag streamingDecoder() throws IOException {
+        byte[] body = nextBody();
+        return decoder.decode(body, 0, body.length);
+    }
+
+    @Benchmark
+    public EncodedUserTag databind() throws IOException {
+        return EncodedUserTag.encode(reader.readValue(nextBody()), dictionaries);
+    }
+
+    private byte[] nextBody() {
+        return bodies[next++ & (BODIES - 1)];
+    }
+}
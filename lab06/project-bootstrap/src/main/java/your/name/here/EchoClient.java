@@ -1,40 +1,149 @@
 package your.name.here;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import your.name.here.aggregate.AggregateCache;
+import your.name.here.aggregate.AggregateCube;
+import your.name.here.aggregate.AggregateQuery;
+import your.name.here.aggregate.BucketValues;
+import your.name.here.cluster.ClusterRouter;
 import your.name.here.domain.Action;
 import your.name.here.domain.Aggregate;
 import your.name.here.domain.AggregatesQueryResult;
+import your.name.here.domain.TimeRange;
 import your.name.here.domain.UserProfileResult;
-import your.name.here.domain.UserTagEvent;
+import your.name.here.encoding.Dictionaries;
+import your.name.here.encoding.EncodedUserTag;
+import your.name.here.encoding.UserTagDecoder;
+import your.name.here.ingest.UserTagIngestor;
+import your.name.here.metrics.Metrics;
+import your.name.here.profile.ProfileJsonWriter;
+import your.name.here.profile.ProfileResultBuilder;
+import your.name.here.profile.ProfileStore;
+import your.name.here.verify.AnswerVerifier;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class EchoClient {
 
     private static final Logger log = LoggerFactory.getLogger(EchoClient.class);
 
-    @PostMapping("/user_tags")
-    public ResponseEntity<Void> addUserTag(@RequestBody(required = false) UserTagEvent userTag) {
+    @Autowired
+    private UserTagDecoder userTagDecoder;
+
+    @Autowired
+    private UserTagIngestor userTagIngestor;
+
+    @Autowired
+    private Dictionaries dictionaries;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProfileStore profileStore;
+
+    @Autowired
+    private AggregateCube aggregateCube;
+
+    @Autowired
+    private AggregateCache aggregateCache;
 
-        return ResponseEntity.noContent().build();
+    @Autowired
+    private AnswerVerifier answerVerifier;
+
+    @Autowired
+    private Metrics metrics;
+
+    @Autowired(required = false)
+    private ClusterRouter clusterRouter;
+
+    @Value("${allezon.profiles.preserialized:true}")
+    private boolean preserializedProfiles;
+
+    @PostMapping("/user_tags")
+    public CompletableFuture<ResponseEntity<Void>> addUserTag(InputStream body,
+            @RequestHeader(value = ClusterRouter.FORWARDED_HEADER, required = false) String forwardedBy)
+            throws IOException {
+        if (clusterRouter == null || forwardedBy != null) {
+            long start = System.nanoTime();
+            EncodedUserTag tag = userTagDecoder.decode(body);
+            metrics.record(Metrics.Stage.DECODE, start);
+            return ingest(tag);
+        }
+        // the owner gets the original document, so keep the bytes the cookie is decoded from
+        byte[] bytes = body.readAllBytes();
+        long start = System.nanoTime();
+        EncodedUserTag tag = userTagDecoder.decode(bytes, 0, bytes.length);
+        metrics.record(Metrics.Stage.DECODE, start);
+        if (tag != null && !clusterRouter.isLocal(tag.getCookie())) {
+            return clusterRouter.forwardUserTag(tag.getCookie(), bytes)
+                    .thenApply(accepted -> ResponseEntity.noContent().build());
+        }
+        return ingest(tag);
     }
 
     @PostMapping("/user_profiles/{cookie}")
-    public ResponseEntity<UserProfileResult> getUserProfile(@PathVariable("cookie") String cookie,
+    public void getUserProfile(@PathVariable("cookie") String cookie,
             @RequestParam("time_range") String timeRangeStr,
             @RequestParam(defaultValue = "200") int limit,
-            @RequestBody(required = false) UserProfileResult expectedResult) {
+            @RequestBody(required = false) UserProfileResult expectedResult,
+            @RequestHeader(value = ClusterRouter.FORWARDED_HEADER, required = false) String forwardedBy,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
 
-        return ResponseEntity.ok(expectedResult);
+        TimeRange timeRange = TimeRange.parse(timeRangeStr);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        if (clusterRouter != null && forwardedBy == null && !clusterRouter.isLocal(cookie)) {
+            // handler threads block by design on this stack, the forward holds one for a round trip to the owner
+            byte[] json = clusterRouter.forwardUserProfile(cookie, request.getRequestURI() + "?"
+                    + request.getQueryString()).block();
+            answerVerifier.verifyProfile(expectedResult, ByteBuffer.wrap(json));
+            response.getOutputStream().write(json);
+        } else if (preserializedProfiles) {
+            ProfileJsonWriter writer = new ProfileJsonWriter(cookie, dictionaries);
+            long start = System.nanoTime();
+            profileStore.read(cookie, timeRange, limit, writer);
+            start = metrics.record(Metrics.Stage.STORE_READ, start);
+            ByteBuffer json = writer.toByteBuffer();
+            metrics.record(Metrics.Stage.SERIALIZE, start);
+            answerVerifier.verifyProfile(expectedResult, json);
+            response.getOutputStream().write(json.array(), json.arrayOffset(), json.remaining());
+        } else {
+            ProfileResultBuilder builder = new ProfileResultBuilder(cookie, dictionaries);
+            long start = System.nanoTime();
+            profileStore.read(cookie, timeRange, limit, builder);
+            start = metrics.record(Metrics.Stage.STORE_READ, start);
+            UserProfileResult result = builder.build();
+            answerVerifier.verifyProfile(expectedResult, result);
+            objectMapper.writeValue(response.getOutputStream(), result);
+            metrics.record(Metrics.Stage.SERIALIZE, start);
+        }
     }
 
     @PostMapping("/aggregates")
@@ -46,6 +155,35 @@ public class EchoClient {
             @RequestParam(value = "category_id", required = false) String categoryId,
             @RequestBody(required = false) AggregatesQueryResult expectedResult) {
 
-        return ResponseEntity.ok(expectedResult);
+        AggregateQuery query = new AggregateQuery(TimeRange.parse(timeRangeStr), action, aggregates, origin, brandId,
+                categoryId);
+        long start = System.nanoTime();
+        AggregateCache.Lookup lookup = aggregateCache.lookup(query);
+        AggregateQuery missing = lookup.missing();
+        BucketValues computed = missing == null ? null : aggregateCube.query(missing);
+        metrics.record(Metrics.Stage.AGGREGATES_READ, start);
+        BucketValues values = lookup.values();
+        if (computed != null) {
+            if (clusterRouter != null) {
+                computed.add(clusterRouter.gatherAggregates(missing.toQueryString(), missing.buckets()).block());
+            }
+            values = lookup.complete(computed);
+        }
+        AggregatesQueryResult result = query.toResult(values);
+        answerVerifier.verifyAggregates(expectedResult, result);
+        return ResponseEntity.ok(result);
+    }
+
+    @ExceptionHandler({IllegalArgumentException.class, JsonProcessingException.class})
+    public ResponseEntity<String> badRequest(Exception e) {
+        log.debug("Rejecting malformed request", e);
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    private CompletableFuture<ResponseEntity<Void>> ingest(EncodedUserTag tag) {
+        if (tag == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.noContent().build());
+        }
+        return userTagIngestor.ingest(tag).thenApply(durable -> ResponseEntity.noContent().build());
     }
 }
@@ -0,0 +1,238 @@
+package your.name.here;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import your.name.here.aggregate.AggregateCache;
+import your.name.here.aggregate.AggregateCube;
+import your.name.here.aggregate.AggregateQuery;
+import your.name.here.aggregate.BucketValues;
+import your.name.here.cluster.ClusterRouter;
+import your.name.here.config.ReactiveServerConfig;
+import your.name.here.domain.Action;
+import your.name.here.domain.Aggregate;
+import your.name.here.domain.AggregatesQueryResult;
+import your.name.here.domain.TimeRange;
+import your.name.here.domain.UserProfileResult;
+import your.name.here.encoding.Dictionaries;
+import your.name.here.encoding.EncodedUserTag;
+import your.name.here.encoding.UserTagDecoder;
+import your.name.here.ingest.UserTagIngestor;
+import your.name.here.metrics.Metrics;
+import your.name.here.profile.ProfileJsonWriter;
+import your.name.here.profile.ProfileResultBuilder;
+import your.name.here.profile.ProfileStore;
+import your.name.here.verify.AnswerVerifier;
+
+/**
+ * The endpoints of {@link EchoClient} on WebFlux, active with the {@code reactive} profile. No handler blocks the
+ * event loop: the tag body is collected from the request buffers as they arrive and decoded once complete, the tag
+ * is applied on the bounded {@link ReactiveServerConfig#ingestScheduler}, profiles and aggregates are read on the
+ * bounded {@link ReactiveServerConfig#readScheduler}, the response of {@code /user_tags} is sent when the
+ * write-ahead log completes the durability future, and responses are written through the response publisher, which
+ * follows the demand of the connection.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveEchoClient {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveEchoClient.class);
+
+    @Autowired
+    private UserTagDecoder userTagDecoder;
+
+    @Autowired
+    private UserTagIngestor userTagIngestor;
+
+    @Autowired
+    @Qualifier(ReactiveServerConfig.INGEST_SCHEDULER)
+    private Scheduler ingestScheduler;
+
+    @Autowired
+    @Qualifier(ReactiveServerConfig.READ_SCHEDULER)
+    private Scheduler readScheduler;
+
+    @Autowired
+    private Dictionaries dictionaries;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProfileStore profileStore;
+
+    @Autowired
+    private AggregateCube aggregateCube;
+
+    @Autowired
+    private AggregateCache aggregateCache;
+
+    @Autowired
+    private AnswerVerifier answerVerifier;
+
+    @Autowired
+    private Metrics metrics;
+
+    @Autowired(required = false)
+    private ClusterRouter clusterRouter;
+
+    @Value("${allezon.profiles.preserialized:true}")
+    private boolean preserializedProfiles;
+
+    @PostMapping("/user_tags")
+    public Mono<ResponseEntity<Void>> addUserTag(ServerHttpRequest request) {
+        boolean routed = clusterRouter != null && !request.getHeaders().containsKey(ClusterRouter.FORWARDED_HEADER);
+        return DataBufferUtils.join(request.getBody())
+                .<Mono<Void>>handle((body, sink) -> {
+                    try {
+                        byte[] bytes = new byte[body.readableByteCount()];
+                        body.read(bytes);
+                        long start = System.nanoTime();
+                        EncodedUserTag tag = userTagDecoder.decode(bytes, 0, bytes.length);
+                        metrics.record(Metrics.Stage.DECODE, start);
+                        if (tag != null) {
+                            sink.next(routed && !clusterRouter.isLocal(tag.getCookie())
+                                    ? Mono.fromFuture(clusterRouter.forwardUserTag(tag.getCookie(), bytes))
+                                    : Mono.fromFuture(() -> userTagIngestor.ingest(tag)).subscribeOn(ingestScheduler));
+                        }
+                    } catch (IOException e) {
+                        sink.error(e);
+                    } finally {
+                        DataBufferUtils.release(body);
+                    }
+                })
+                .flatMap(Function.identity())
+                .then(Mono.just(ResponseEntity.noContent().build()));
+    }
+
+    @PostMapping("/user_profiles/{cookie}")
+    public Mono<Void> getUserProfile(@PathVariable("cookie") String cookie,
+            @RequestParam("time_range") String timeRangeStr,
+            @RequestParam(defaultValue = "200") int limit,
+            @RequestBody(required = false) UserProfileResult expectedResult,
+            @RequestHeader(value = ClusterRouter.FORWARDED_HEADER, required = false) String forwardedBy,
+            ServerHttpRequest request,
+            ServerHttpResponse response) {
+
+        TimeRange timeRange = TimeRange.parse(timeRangeStr);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        if (clusterRouter != null && forwardedBy == null && !clusterRouter.isLocal(cookie)) {
+            return clusterRouter.forwardUserProfile(cookie, request.getURI().getRawPath() + "?"
+                    + request.getURI().getRawQuery())
+                    .flatMap(json -> {
+                        answerVerifier.verifyProfile(expectedResult, ByteBuffer.wrap(json));
+                        return response.writeWith(Mono.just(response.bufferFactory().wrap(json)));
+                    });
+        }
+        return Mono.fromCallable(() -> readProfile(cookie, timeRange, limit, expectedResult))
+                .subscribeOn(readScheduler)
+                .flatMap(json -> response.writeWith(Mono.just(response.bufferFactory().wrap(json))));
+    }
+
+    @PostMapping("/aggregates")
+    public Mono<AggregatesQueryResult> getAggregates(@RequestParam("time_range") String timeRangeStr,
+            @RequestParam("action") Action action,
+            @RequestParam("aggregates") List<Aggregate> aggregates,
+            @RequestParam(value = "origin", required = false) String origin,
+            @RequestParam(value = "brand_id", required = false) String brandId,
+            @RequestParam(value = "category_id", required = false) String categoryId,
+            @RequestBody(required = false) AggregatesQueryResult expectedResult) {
+
+        AggregateQuery query = new AggregateQuery(TimeRange.parse(timeRangeStr), action, aggregates, origin, brandId,
+                categoryId);
+        return Mono.fromCallable(() -> aggregates(query))
+                .subscribeOn(readScheduler)
+                .flatMap(Function.identity())
+                .map(all -> {
+                    AggregatesQueryResult result = query.toResult(all);
+                    answerVerifier.verifyAggregates(expectedResult, result);
+                    return result;
+                });
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Void> overloaded(RejectedExecutionException e) {
+        log.debug("Rejecting a request, the queue of its scheduler is full", e);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+    }
+
+    @ExceptionHandler({IllegalArgumentException.class, JsonProcessingException.class})
+    public ResponseEntity<String> badRequest(Exception e) {
+        log.debug("Rejecting malformed request", e);
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    private ByteBuffer readProfile(String cookie, TimeRange timeRange, int limit, UserProfileResult expectedResult)
+            throws JsonProcessingException {
+        ByteBuffer json;
+        long start = System.nanoTime();
+        if (preserializedProfiles) {
+            ProfileJsonWriter writer = new ProfileJsonWriter(cookie, dictionaries);
+            profileStore.read(cookie, timeRange, limit, writer);
+            start = metrics.record(Metrics.Stage.STORE_READ, start);
+            json = writer.toByteBuffer();
+            metrics.record(Metrics.Stage.SERIALIZE, start);
+            answerVerifier.verifyProfile(expectedResult, json);
+        } else {
+            ProfileResultBuilder builder = new ProfileResultBuilder(cookie, dictionaries);
+            profileStore.read(cookie, timeRange, limit, builder);
+            start = metrics.record(Metrics.Stage.STORE_READ, start);
+            UserProfileResult result = builder.build();
+            answerVerifier.verifyProfile(expectedResult, result);
+            json = ByteBuffer.wrap(objectMapper.writeValueAsBytes(result));
+            metrics.record(Metrics.Stage.SERIALIZE, start);
+        }
+        return json;
+    }
+
+    /**
+     * Looks the query up in the cache, computes the missing buckets from the local cube and returns them summed with
+     * those of the other nodes.
+     */
+    private Mono<BucketValues> aggregates(AggregateQuery query) {
+        long start = System.nanoTime();
+        AggregateCache.Lookup lookup = aggregateCache.lookup(query);
+        AggregateQuery missing = lookup.missing();
+        BucketValues computed = missing == null ? null : aggregateCube.query(missing);
+        metrics.record(Metrics.Stage.AGGREGATES_READ, start);
+        if (computed == null) {
+            return Mono.just(lookup.values());
+        }
+        return clusterRouter == null
+                ? Mono.just(lookup.complete(computed))
+                : clusterRouter.gatherAggregates(missing.toQueryString(), missing.buckets())
+                        .map(remote -> {
+                            computed.add(remote);
+                            return lookup.complete(computed);
+                        });
+    }
+}
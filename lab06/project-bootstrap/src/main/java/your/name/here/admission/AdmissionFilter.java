@@ -0,0 +1,292 @@
+package your.name.here.admission;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.Request;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import your.name.here.metrics.Metrics;
+import your.name.here.metrics.ServletMetricsFilter;
+
+/**
+ * Admission control in front of the MVC handlers of {@code /user_tags} and {@code /user_profiles}. At most
+ * {@code allezon.admission.max-concurrency} requests run their handlers at a time, the others wait in a FIFO queue
+ * as asynchronous requests, which hold no thread, and are dispatched as the running ones finish. A request has
+ * {@code allezon.admission.budget-ms} from its arrival at the connector, the part of the client's 200 ms left after
+ * the network, so the time it spent in Jetty before reaching the filter counts against it. It is answered 503
+ * before its body is decoded once it cannot finish within it: on arrival at the filter when its budget is spent or
+ * the requests queued before it would keep it waiting too long, and while queued when its time runs out.
+ * Handler times are estimated by a moving average over both endpoints.
+ *
+ * <p>Without it a slow store makes requests pile up in Jetty's queue, where each of them waits for all the earlier
+ * ones and, once the queue is longer than the deadline, every request times out after the server did its work.
+ */
+@Component
+@Order(ServletMetricsFilter.ORDER + 1)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "allezon.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionFilter extends OncePerRequestFilter {
+
+    private static final String ADMITTED = AdmissionFilter.class.getName() + ".ADMITTED";
+    private static final int AVERAGE_WEIGHT = 8;
+
+    private final int maxConcurrency;
+    private final long budgetNanos;
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final ConcurrentLinkedQueue<Waiter> queue = new ConcurrentLinkedQueue<>();
+    private final LongAdder[] rejectedOnArrival = new LongAdder[Metrics.Endpoint.values().length];
+    private final LongAdder[] rejectedQueued = new LongAdder[Metrics.Endpoint.values().length];
+    private volatile long serviceNanos;
+
+    public AdmissionFilter(@Value("${allezon.admission.max-concurrency:64}") int maxConcurrency,
+            @Value("${allezon.admission.budget-ms:100}") long budgetMillis) {
+        this.maxConcurrency = maxConcurrency;
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        for (int i = 0; i < rejectedOnArrival.length; i++) {
+            rejectedOnArrival[i] = new LongAdder();
+            rejectedQueued[i] = new LongAdder();
+        }
+    }
+
+    public long rejectedOnArrival(Metrics.Endpoint endpoint) {
+        return rejectedOnArrival[endpoint.ordinal()].sum();
+    }
+
+    public long rejectedQueued(Metrics.Endpoint endpoint) {
+        return rejectedQueued[endpoint.ordinal()].sum();
+    }
+
+    public int queued() {
+        return queued.get();
+    }
+
+    public int running() {
+        return running.get();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        Metrics.Endpoint endpoint = Metrics.Endpoint.of(request.getRequestURI());
+        return endpoint != Metrics.Endpoint.USER_TAGS && endpoint != Metrics.Endpoint.USER_PROFILES;
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (isAsyncDispatch(request)) {
+            // either a queued request dispatched with a handler slot or the asynchronous response of a handler
+            boolean admitted = request.getAttribute(ADMITTED) != null;
+            request.removeAttribute(ADMITTED);
+            if (admitted) {
+                run(request, response, chain);
+            } else {
+                chain.doFilter(request, response);
+            }
+            return;
+        }
+        Metrics.Endpoint endpoint = Metrics.Endpoint.of(request.getRequestURI());
+        long arrival = arrival(request);
+        long waited = System.nanoTime() - arrival;
+        // with a free slot only a spent budget rejects, so that the handler time estimate keeps following the handlers
+        if (waited < budgetNanos && queue.isEmpty() && tryAcquire()) {
+            run(request, response, chain);
+            return;
+        }
+        long service = serviceNanos;
+        long wait = (queued.get() + 1L) * service / maxConcurrency;
+        if (waited + wait + service > budgetNanos) {
+            rejectedOnArrival[endpoint.ordinal()].increment();
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+        AsyncContext async = request.startAsync();
+        Waiter waiter = new Waiter(endpoint, arrival, async, async.getTimeout());
+        async.setTimeout(Math.max(1, TimeUnit.NANOSECONDS.toMillis(budgetNanos - waited - service)));
+        async.addListener(waiter);
+        queued.incrementAndGet();
+        queue.add(waiter);
+        // a slot freed between the check above and queueing would otherwise wait for the next one
+        drain();
+    }
+
+    private void run(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            long service = serviceNanos;
+            serviceNanos = service + (System.nanoTime() - start - service) / AVERAGE_WEIGHT;
+            running.decrementAndGet();
+            drain();
+        }
+    }
+
+    /**
+     * Hands the free slots to the queued requests in order, rejecting those that can no longer finish in time.
+     */
+    private void drain() {
+        while (!queue.isEmpty() && tryAcquire()) {
+            Waiter waiter = queue.poll();
+            if (waiter == null) {
+                running.decrementAndGet();
+                continue;
+            }
+            if (System.nanoTime() - waiter.arrival + serviceNanos > budgetNanos) {
+                running.decrementAndGet();
+                waiter.reject();
+            } else if (!waiter.admit()) {
+                running.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Returns when the request arrived on the {@link System#nanoTime} clock: Jetty stamps a request once its headers
+     * are parsed, before it is handed to the filter chain. Other containers do not tell, there it is now.
+     */
+    private static long arrival(HttpServletRequest request) {
+        long now = System.nanoTime();
+        Request base = Request.getBaseRequest(request);
+        if (base == null || base.getTimeStamp() == 0) {
+            return now;
+        }
+        return now - TimeUnit.MILLISECONDS.toNanos(Math.max(0, System.currentTimeMillis() - base.getTimeStamp()));
+    }
+
+    private boolean tryAcquire() {
+        for (int current = running.get(); current < maxConcurrency; current = running.get()) {
+            if (running.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A queued request, admitted or rejected by whichever of the queue and its timeout comes first. Jetty refuses to
+     * complete or dispatch a request from another thread while its timeout is being handled, in that case the
+     * timeout listener ends it instead.
+     */
+    private final class Waiter implements AsyncListener {
+
+        private static final int WAITING = 0;
+        private static final int ADMITTED = 1;
+        private static final int DISPATCHED = 2;
+        private static final int REJECTED = 3;
+        private static final int COMPLETED = 4;
+
+        private final Metrics.Endpoint endpoint;
+        private final long arrival;
+        private final AsyncContext async;
+        private final long containerTimeout;
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+
+        private Waiter(Metrics.Endpoint endpoint, long arrival, AsyncContext async, long containerTimeout) {
+            this.endpoint = endpoint;
+            this.arrival = arrival;
+            this.async = async;
+            this.containerTimeout = containerTimeout;
+        }
+
+        /**
+         * Dispatches the request with the slot taken for it, returns {@code false} when the slot is still the
+         * caller's to release.
+         */
+        private boolean admit() {
+            if (!state.compareAndSet(WAITING, ADMITTED)) {
+                return false;
+            }
+            queued.decrementAndGet();
+            return dispatch();
+        }
+
+        /**
+         * Returns {@code false} when the request expired before it could be dispatched, which leaves its slot free.
+         */
+        private boolean dispatch() {
+            if (!state.compareAndSet(ADMITTED, DISPATCHED)) {
+                return true;
+            }
+            try {
+                async.getRequest().setAttribute(AdmissionFilter.ADMITTED, Boolean.TRUE);
+                // the timeout carries over to the handler's own asynchronous response
+                async.setTimeout(containerTimeout);
+                async.dispatch();
+                return true;
+            } catch (IllegalStateException e) {
+                rejectedQueued[endpoint.ordinal()].increment();
+                return false;
+            }
+        }
+
+        private void reject() {
+            if (state.compareAndSet(WAITING, REJECTED)) {
+                queued.decrementAndGet();
+                rejectedQueued[endpoint.ordinal()].increment();
+                complete();
+            }
+        }
+
+        private void complete() {
+            if (state.compareAndSet(REJECTED, COMPLETED)) {
+                try {
+                    ((HttpServletResponse) async.getResponse()).setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                    async.complete();
+                } catch (IllegalStateException e) {
+                    state.set(REJECTED);
+                }
+            }
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            reject();
+            complete();
+            if (!dispatch()) {
+                running.decrementAndGet();
+                drain();
+            }
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            // the client is gone, nothing to answer
+            if (state.compareAndSet(WAITING, COMPLETED)) {
+                queued.decrementAndGet();
+                async.complete();
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
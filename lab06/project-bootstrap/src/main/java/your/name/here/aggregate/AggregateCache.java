@@ -0,0 +1,246 @@
+package your.name.here.aggregate;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import your.name.here.domain.Action;
+import your.name.here.retention.Retained;
+
+/**
+ * Cache of final per-bucket aggregates answers. A bucket is final once every {@link AggregateCube} that answered
+ * for it has sealed it, so only the buckets up to the {@link BucketValues#sealedMinute} of the computed values, the
+ * oldest of the answering nodes', are cached. Values are cached per bucket and filter combination, both COUNT and
+ * SUM_PRICE, so overlapping queries share buckets whatever aggregates they ask for, and a query computes only the
+ * span of buckets missing from the cache. In a cluster the values are the sums over all nodes, so a hit also saves
+ * the round trips to the other nodes.
+ *
+ * <p>Minutes are kept in a ring covering 24h like the cube, a minute expires when its slot is taken by a minute 24h
+ * newer or when it falls out of the retention window. When the number of cached values, counted without locking and
+ * therefore approximately, exceeds {@code allezon.aggregates.cache-entries}, whole minutes are evicted starting from
+ * the oldest.
+ */
+@Component
+public class AggregateCache implements Retained {
+
+    private static final Logger log = LoggerFactory.getLogger(AggregateCache.class);
+
+    private final int maxEntries;
+    private final AtomicReferenceArray<CachedMinute> minutes = new AtomicReferenceArray<>(AggregateCube.BUCKETS);
+    private final AtomicInteger entries = new AtomicInteger();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictedMinutes = new LongAdder();
+
+    private long expiredMinute = Long.MIN_VALUE;
+
+    public AggregateCache(@Value("${allezon.aggregates.cache-entries:200000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Fills the buckets of the query found in the cache; the rest is computed by the caller for
+     * {@link Lookup#missing} and passed to {@link Lookup#complete}.
+     */
+    public Lookup lookup(AggregateQuery query) {
+        BucketValues values = new BucketValues(query.buckets());
+        Filters filters = new Filters(query);
+        int firstMissing = -1;
+        int lastMissing = -1;
+        for (int i = 0; i < values.buckets(); i++) {
+            long[] cached = maxEntries > 0 ? get(query.firstMinute() + i, filters) : null;
+            if (cached != null) {
+                values.set(i, cached[0], cached[1]);
+                hits.increment();
+            } else {
+                if (firstMissing < 0) {
+                    firstMissing = i;
+                }
+                lastMissing = i;
+                misses.increment();
+            }
+        }
+        return new Lookup(query, filters, values, firstMissing, lastMissing);
+    }
+
+    public AggregateCacheReport report() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        return new AggregateCacheReport(entries.get(), maxEntries, hitCount, missCount,
+                hitCount + missCount == 0 ? 0 : (double) hitCount / (hitCount + missCount), evictedMinutes.sum());
+    }
+
+    /**
+     * Drops the minutes that ended before the horizon, one slot per minute the horizon moved.
+     */
+    @Override
+    public void expireBefore(long horizon) {
+        long minute = Math.floorDiv(horizon, AggregateQuery.BUCKET_MILLIS) - 1;
+        if (minute <= expiredMinute) {
+            return;
+        }
+        long first = expiredMinute == Long.MIN_VALUE ? minute - AggregateCube.BUCKETS + 1
+                : Math.max(expiredMinute + 1, minute - AggregateCube.BUCKETS + 1);
+        for (long next = first; next <= minute; next++) {
+            int slot = slot(next);
+            CachedMinute cached = minutes.get(slot);
+            if (cached != null && cached.minute <= minute && minutes.compareAndSet(slot, cached, null)) {
+                entries.addAndGet(-cached.values.size());
+            }
+        }
+        expiredMinute = minute;
+    }
+
+    private long[] get(long minute, Filters filters) {
+        CachedMinute cached = minutes.get(slot(minute));
+        return cached != null && cached.minute == minute ? cached.values.get(filters) : null;
+    }
+
+    private void put(long minute, Filters filters, long count, long sum) {
+        int slot = slot(minute);
+        CachedMinute cached = minutes.get(slot);
+        while (cached == null || cached.minute < minute) {
+            CachedMinute fresh = new CachedMinute(minute);
+            if (minutes.compareAndSet(slot, cached, fresh)) {
+                if (cached != null) {
+                    entries.addAndGet(-cached.values.size());
+                }
+                cached = fresh;
+            } else {
+                cached = minutes.get(slot);
+            }
+        }
+        if (cached.minute == minute && cached.values.putIfAbsent(filters, new long[] {count, sum}) == null
+                && entries.incrementAndGet() > maxEntries) {
+            evictOldest();
+        }
+    }
+
+    private void evictOldest() {
+        while (entries.get() > maxEntries) {
+            int oldest = -1;
+            long oldestMinute = Long.MAX_VALUE;
+            for (int slot = 0; slot < AggregateCube.BUCKETS; slot++) {
+                CachedMinute cached = minutes.get(slot);
+                if (cached != null && cached.minute < oldestMinute) {
+                    oldest = slot;
+                    oldestMinute = cached.minute;
+                }
+            }
+            if (oldest < 0) {
+                return;
+            }
+            CachedMinute evicted = minutes.getAndSet(oldest, null);
+            if (evicted != null) {
+                entries.addAndGet(-evicted.values.size());
+                evictedMinutes.increment();
+                log.debug("Evicted minute {} with {} values from the aggregates cache", evicted.minute,
+                        evicted.values.size());
+            }
+        }
+    }
+
+    private static int slot(long minute) {
+        return Math.floorMod(minute, AggregateCube.BUCKETS);
+    }
+
+    /**
+     * Result of {@link #lookup}: the cached buckets and the query for the span of the missing ones.
+     */
+    public final class Lookup {
+
+        private final AggregateQuery query;
+        private final Filters filters;
+        private final BucketValues values;
+        private final int firstMissing;
+        private final int lastMissing;
+
+        private Lookup(AggregateQuery query, Filters filters, BucketValues values, int firstMissing,
+                int lastMissing) {
+            this.query = query;
+            this.filters = filters;
+            this.values = values;
+            this.firstMissing = firstMissing;
+            this.lastMissing = lastMissing;
+        }
+
+        /**
+         * Returns the query covering all buckets missing from the cache, {@code null} when every bucket was cached.
+         */
+        public AggregateQuery missing() {
+            return firstMissing < 0 ? null
+                    : query.forMinutes(query.firstMinute() + firstMissing, lastMissing - firstMissing + 1);
+        }
+
+        /**
+         * Returns the values of the whole query, taking the missing buckets from the values computed for
+         * {@link #missing}, and caches those of them that are final in all the cubes they were summed from.
+         */
+        public BucketValues complete(BucketValues computed) {
+            long sealedMinute = computed.sealedMinute();
+            for (int i = 0; i < computed.buckets(); i++) {
+                int bucket = firstMissing + i;
+                values.set(bucket, computed.count(i), computed.sum(i));
+                long minute = query.firstMinute() + bucket;
+                if (maxEntries > 0 && minute <= sealedMinute) {
+                    put(minute, filters, computed.count(i), computed.sum(i));
+                }
+            }
+            return values;
+        }
+
+        public BucketValues values() {
+            return values;
+        }
+    }
+
+    /**
+     * The action and filter values of a query; the aggregates asked for are not part of the key.
+     */
+    private static final class Filters {
+
+        private final Action action;
+        private final String origin;
+        private final String brandId;
+        private final String categoryId;
+
+        private Filters(AggregateQuery query) {
+            this.action = query.getAction();
+            this.origin = query.getOrigin();
+            this.brandId = query.getBrandId();
+            this.categoryId = query.getCategoryId();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Filters)) {
+                return false;
+            }
+            Filters filters = (Filters) other;
+            return action == filters.action && Objects.equals(origin, filters.origin)
+                    && Objects.equals(brandId, filters.brandId) && Objects.equals(categoryId, filters.categoryId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(action, origin, brandId, categoryId);
+        }
+    }
+
+    private static final class CachedMinute {
+
+        private final long minute;
+        private final ConcurrentHashMap<Filters, long[]> values = new ConcurrentHashMap<>();
+
+        private CachedMinute(long minute) {
+            this.minute = minute;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package your.name.here.aggregate;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class AggregateCacheReport {
+
+    private final int entries;
+    @JsonProperty("max_entries")
+    private final int maxEntries;
+    private final long hits;
+    private final long misses;
+    @JsonProperty("hit_ratio")
+    private final double hitRatio;
+    @JsonProperty("evicted_minutes")
+    private final long evictedMinutes;
+
+    public AggregateCacheReport(int entries, int maxEntries, long hits, long misses, double hitRatio,
+            long evictedMinutes) {
+        this.entries = entries;
+        this.maxEntries = maxEntries;
+        this.hits = hits;
+        this.misses = misses;
+        this.hitRatio = hitRatio;
+        this.evictedMinutes = evictedMinutes;
+    }
+
+    public int getEntries() {
+        return entries;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public double getHitRatio() {
+        return hitRatio;
+    }
+
+    public long getEvictedMinutes() {
+        return evictedMinutes;
+    }
+}
@@ -0,0 +1,304 @@
+package your.name.here.aggregate;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import your.name.here.encoding.Dictionaries;
+import your.name.here.encoding.Dictionary;
+import your.name.here.encoding.EncodedUserTag;
+import your.name.here.encoding.Timestamps;
+import your.name.here.retention.Retained;
+
+/**
+ * Incrementally maintained COUNT and SUM_PRICE cube in 1-minute buckets. Each event updates the cells of its
+ * action for all 8 subsets of {origin, brand, category}, so any query allowed by the API reads exactly one cell per
+ * bucket. Buckets form a ring covering the last 24h of event time; a slot is reset when the first event of a minute
+ * 24h newer than its content arrives.
+ *
+ * <p>Event time drives a watermark, the newest event time added. Once the watermark is
+ * {@code allezon.aggregates.allowed-lateness-ms} past the end of a minute, the minute is sealed: its cells are
+ * compacted into a {@link SealedBucket} read without locking, and later events of the minute are counted as late
+ * instead of being added. Minutes that fall out of the retention window are released by {@link #expireBefore}.
+ *
+ * <p>Cost per event: 8 open-addressing probes and increments under the lock of a single bucket, well under 1 us.
+ * Memory: an open bucket takes 32-64 B per distinct cell (key, count and sum at a load factor of at most 0.75), but
+ * only the minutes within the allowed lateness are open, and a table grown for a busy minute is given back when its
+ * slot is reset for a quieter one. A sealed bucket keeps about 5 B per cell, see {@link SealedBucket}. With the
+ * uniformly random 1000 origins, 250 brands and 100 categories of the load generator at 1000 events/s, a minute has
+ * ~187k distinct cells, ~6 MB open, of which ~86k are kept in ~520 KB once sealed: a full 24h ring takes ~750 MB of
+ * the 2 GB heap on a single node, and in a cluster each node holds its share plus the replica of its predecessor's.
+ */
+@Component
+public class AggregateCube implements Retained {
+
+    static final int BUCKETS = 24 * 60;
+
+    private static final Logger log = LoggerFactory.getLogger(AggregateCube.class);
+
+    private static final int UNKNOWN = -2;
+
+    private final MinuteBucket[] buckets;
+    private final AtomicReferenceArray<SealedBucket> sealed;
+    private final Dictionaries dictionaries;
+    private final long allowedLatenessMillis;
+    private final AtomicLong watermark = new AtomicLong(Long.MIN_VALUE);
+    private final LongAdder lateEvents = new LongAdder();
+    private final Object sealing = new Object();
+
+    private volatile long sealedMinute = Long.MIN_VALUE;
+    private long expiredMinute = Long.MIN_VALUE;
+
+    @Autowired
+    public AggregateCube(Dictionaries dictionaries,
+            @Value("${allezon.aggregates.allowed-lateness-ms:30000}") long allowedLatenessMillis) {
+        this(dictionaries, allowedLatenessMillis, new MinuteBucket[BUCKETS], new AtomicReferenceArray<>(BUCKETS));
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new MinuteBucket();
+        }
+    }
+
+    private AggregateCube(Dictionaries dictionaries, long allowedLatenessMillis, MinuteBucket[] buckets,
+            AtomicReferenceArray<SealedBucket> sealed) {
+        this.dictionaries = dictionaries;
+        this.allowedLatenessMillis = allowedLatenessMillis;
+        this.buckets = buckets;
+        this.sealed = sealed;
+    }
+
+    public void add(EncodedUserTag tag) {
+        long minute = Math.floorDiv(tag.getTime(), AggregateQuery.BUCKET_MILLIS);
+        advanceWatermark(tag.getTime());
+        if (minute <= sealedMinute) {
+            lateEvents.increment();
+            return;
+        }
+        int slot = slot(minute);
+        MinuteBucket bucket = buckets[slot];
+        synchronized (bucket) {
+            if (bucket.minute() < minute) {
+                bucket.reset(minute);
+                sealed.set(slot, null);
+            } else if (bucket.minute() > minute || bucket.sealed()) {
+                // sealed since the check above
+                lateEvents.increment();
+                return;
+            }
+            for (int filters = 0; filters < CubeKey.FILTER_COMBINATIONS; filters++) {
+                bucket.add(CubeKey.of(tag.getAction(), filters, tag.getOrigin(), tag.getBrand(), tag.getCategory()),
+                        tag.getPrice());
+            }
+        }
+    }
+
+    /**
+     * Event-time watermark: the time of the newest event added, {@link Long#MIN_VALUE} before the first one.
+     */
+    public long watermark() {
+        return watermark.get();
+    }
+
+    /**
+     * The newest sealed minute, the cells of it and of all older minutes no longer change.
+     */
+    public long sealedMinute() {
+        return sealedMinute;
+    }
+
+    public long allowedLatenessMillis() {
+        return allowedLatenessMillis;
+    }
+
+    /**
+     * Number of events dropped from the cube because their minute had already been sealed.
+     */
+    public long lateEvents() {
+        return lateEvents.sum();
+    }
+
+    public AggregateCubeReport report() {
+        long watermarkTime = watermark.get();
+        long sealedThrough = sealedMinute;
+        return new AggregateCubeReport(
+                watermarkTime == Long.MIN_VALUE ? null : Timestamps.formatMillis(watermarkTime),
+                sealedThrough == Long.MIN_VALUE ? null
+                        : Timestamps.formatSeconds(sealedThrough * AggregateQuery.BUCKET_MILLIS),
+                allowedLatenessMillis, lateEvents.sum());
+    }
+
+    /**
+     * Returns a copy of the current content for writing out with {@link #writeTo} without holding up updates.
+     * Sealed buckets are shared with the copy, so only the cells of the open minutes are copied.
+     */
+    public AggregateCube copy() {
+        MinuteBucket[] copies = new MinuteBucket[BUCKETS];
+        AtomicReferenceArray<SealedBucket> sealedCopies = new AtomicReferenceArray<>(BUCKETS);
+        for (int i = 0; i < BUCKETS; i++) {
+            synchronized (buckets[i]) {
+                copies[i] = buckets[i].copy();
+                sealedCopies.set(i, sealed.get(i));
+            }
+        }
+        return new AggregateCube(dictionaries, allowedLatenessMillis, copies, sealedCopies);
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        int used = 0;
+        for (MinuteBucket bucket : buckets) {
+            if (bucket.minute() != MinuteBucket.NO_MINUTE) {
+                used++;
+            }
+        }
+        out.writeInt(used);
+        for (int i = 0; i < BUCKETS; i++) {
+            if (buckets[i].sealed()) {
+                sealed.get(i).writeTo(out);
+            } else if (buckets[i].minute() != MinuteBucket.NO_MINUTE) {
+                buckets[i].writeTo(out);
+            }
+        }
+    }
+
+    /**
+     * Restores the buckets written by {@link #writeTo}. The watermark starts at the beginning of the newest restored
+     * minute, the oldest time it can have had, and the older buckets are sealed again as it passes them.
+     */
+    public void readFrom(ByteBuffer in) {
+        int used = in.getInt();
+        long newestMinute = Long.MIN_VALUE;
+        for (int i = 0; i < used; i++) {
+            long minute = in.getLong();
+            int slot = slot(minute);
+            synchronized (buckets[slot]) {
+                buckets[slot].readFrom(minute, in);
+                sealed.set(slot, null);
+            }
+            newestMinute = Math.max(newestMinute, minute);
+        }
+        if (newestMinute != Long.MIN_VALUE) {
+            advanceWatermark(newestMinute * AggregateQuery.BUCKET_MILLIS);
+        }
+    }
+
+    /**
+     * Returns the buckets of the query with the minute sealed when it started, those up to it are final.
+     */
+    public BucketValues query(AggregateQuery query) {
+        BucketValues values = new BucketValues(query.buckets(), sealedMinute);
+        int origin = find(dictionaries.origins(), query.getOrigin());
+        int brand = find(dictionaries.brands(), query.getBrandId());
+        int category = find(dictionaries.categories(), query.getCategoryId());
+        if (origin == UNKNOWN || brand == UNKNOWN || category == UNKNOWN) {
+            return values;
+        }
+        long key = CubeKey.query(query.getAction(), origin, brand, category);
+        for (int i = 0; i < values.buckets(); i++) {
+            long minute = query.firstMinute() + i;
+            int slot = slot(minute);
+            SealedBucket sealedBucket = sealed.get(slot);
+            if (sealedBucket != null && sealedBucket.minute() == minute) {
+                sealedBucket.read(key, values, i);
+                continue;
+            }
+            MinuteBucket bucket = buckets[slot];
+            synchronized (bucket) {
+                if (bucket.minute() != minute) {
+                    continue;
+                }
+                if (bucket.sealed()) {
+                    // sealed since the read above
+                    sealed.get(slot).read(key, values, i);
+                } else {
+                    values.set(i, bucket.count(key), bucket.sum(key));
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Releases the buckets of the minutes that ended before the horizon, one slot per minute the horizon moved.
+     */
+    @Override
+    public void expireBefore(long horizon) {
+        long minute = Math.floorDiv(horizon, AggregateQuery.BUCKET_MILLIS) - 1;
+        if (minute <= expiredMinute) {
+            return;
+        }
+        long first = expiredMinute == Long.MIN_VALUE ? minute - BUCKETS + 1
+                : Math.max(expiredMinute + 1, minute - BUCKETS + 1);
+        for (long next = first; next <= minute; next++) {
+            int slot = slot(next);
+            MinuteBucket bucket = buckets[slot];
+            synchronized (bucket) {
+                if (bucket.minute() == next) {
+                    bucket.release();
+                    sealed.set(slot, null);
+                }
+            }
+        }
+        expiredMinute = minute;
+    }
+
+    private void advanceWatermark(long time) {
+        long current = watermark.get();
+        while (time > current) {
+            if (watermark.compareAndSet(current, time)) {
+                long sealable = Math.floorDiv(time - allowedLatenessMillis, AggregateQuery.BUCKET_MILLIS) - 1;
+                if (sealable > sealedMinute) {
+                    sealThrough(sealable);
+                }
+                return;
+            }
+            current = watermark.get();
+        }
+    }
+
+    /**
+     * Seals the minutes of the ring up to {@code minute}; the first event to move the watermark past a minute
+     * boundary does it for everyone.
+     */
+    private void sealThrough(long minute) {
+        synchronized (sealing) {
+            if (minute <= sealedMinute) {
+                return;
+            }
+            long first = sealedMinute == Long.MIN_VALUE ? minute - BUCKETS + 1
+                    : Math.max(sealedMinute + 1, minute - BUCKETS + 1);
+            for (long next = first; next <= minute; next++) {
+                int slot = slot(next);
+                MinuteBucket bucket = buckets[slot];
+                synchronized (bucket) {
+                    if (bucket.minute() == next && !bucket.sealed()) {
+                        SealedBucket sealedBucket = bucket.seal();
+                        sealed.set(slot, sealedBucket);
+                        log.debug("Sealed minute {} with {} cells in {} B", next, sealedBucket.size(),
+                                sealedBucket.bytes());
+                    }
+                }
+            }
+            sealedMinute = minute;
+        }
+    }
+
+    private static int find(Dictionary dictionary, String value) {
+        if (value == null) {
+            return CubeKey.ANY;
+        }
+        int id = dictionary.find(value);
+        return id < 0 ? UNKNOWN : id;
+    }
+
+    private static int slot(long minute) {
+        return Math.floorMod(minute, BUCKETS);
+    }
+}
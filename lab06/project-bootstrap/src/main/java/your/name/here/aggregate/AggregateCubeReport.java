@@ -0,0 +1,37 @@
+package your.name.here.aggregate;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class AggregateCubeReport {
+
+    private final String watermark;
+    @JsonProperty("sealed_minute")
+    private final String sealedMinute;
+    @JsonProperty("allowed_lateness_ms")
+    private final long allowedLatenessMillis;
+    @JsonProperty("late_events")
+    private final long lateEvents;
+
+    public AggregateCubeReport(String watermark, String sealedMinute, long allowedLatenessMillis, long lateEvents) {
+        this.watermark = watermark;
+        this.sealedMinute = sealedMinute;
+        this.allowedLatenessMillis = allowedLatenessMillis;
+        this.lateEvents = lateEvents;
+    }
+
+    public String getWatermark() {
+        return watermark;
+    }
+
+    public String getSealedMinute() {
+        return sealedMinute;
+    }
+
+    public long getAllowedLatenessMillis() {
+        return allowedLatenessMillis;
+    }
+
+    public long getLateEvents() {
+        return lateEvents;
+    }
+}
@@ -0,0 +1,25 @@
+package your.name.here.aggregate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class AggregateDebugController {
+
+    @Autowired
+    private AggregateCube aggregateCube;
+
+    @Autowired
+    private AggregateCache aggregateCache;
+
+    @GetMapping("/debug/aggregates")
+    public AggregateCubeReport cube() {
+        return aggregateCube.report();
+    }
+
+    @GetMapping("/debug/aggregate-cache")
+    public AggregateCacheReport cache() {
+        return aggregateCache.report();
+    }
+}
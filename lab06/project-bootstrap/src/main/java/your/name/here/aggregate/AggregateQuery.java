@@ -0,0 +1,131 @@
+package your.name.here.aggregate;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import your.name.here.domain.Action;
+import your.name.here.domain.Aggregate;
+import your.name.here.domain.AggregatesQueryResult;
+import your.name.here.domain.TimeRange;
+import your.name.here.encoding.Timestamps;
+
+public class AggregateQuery {
+
+    public static final long BUCKET_MILLIS = 60_000L;
+
+    private final TimeRange timeRange;
+    private final Action action;
+    private final List<Aggregate> aggregates;
+    private final String origin;
+    private final String brandId;
+    private final String categoryId;
+
+    public AggregateQuery(TimeRange timeRange, Action action, List<Aggregate> aggregates, String origin,
+            String brandId, String categoryId) {
+        this.timeRange = timeRange;
+        this.action = action;
+        this.aggregates = aggregates;
+        this.origin = origin;
+        this.brandId = brandId;
+        this.categoryId = categoryId;
+    }
+
+    public long firstMinute() {
+        return Math.floorDiv(timeRange.getFromMillis(), BUCKET_MILLIS);
+    }
+
+    public int buckets() {
+        return (int) Math.max(0, Math.floorDiv(timeRange.getToMillis() + BUCKET_MILLIS - 1, BUCKET_MILLIS) - firstMinute());
+    }
+
+    /**
+     * Returns the same query for {@code buckets} minutes starting at {@code firstMinute}.
+     */
+    public AggregateQuery forMinutes(long firstMinute, int buckets) {
+        return new AggregateQuery(new TimeRange(firstMinute * BUCKET_MILLIS, (firstMinute + buckets) * BUCKET_MILLIS),
+                action, aggregates, origin, brandId, categoryId);
+    }
+
+    /**
+     * Returns the query parameters of the aggregates endpoints for this query.
+     */
+    public String toQueryString() {
+        StringBuilder query = new StringBuilder("time_range=")
+                .append(Timestamps.formatSeconds(timeRange.getFromMillis()))
+                .append('_')
+                .append(Timestamps.formatSeconds(timeRange.getToMillis()))
+                .append("&action=").append(action.name());
+        for (Aggregate aggregate : aggregates) {
+            query.append("&aggregates=").append(aggregate.name());
+        }
+        appendIfPresent(query, "origin", origin);
+        appendIfPresent(query, "brand_id", brandId);
+        appendIfPresent(query, "category_id", categoryId);
+        return query.toString();
+    }
+
+    public AggregatesQueryResult toResult(BucketValues values) {
+        List<String> columns = new ArrayList<>();
+        columns.add("1m_bucket");
+        columns.add("action");
+        addIfPresent(columns, origin, "origin");
+        addIfPresent(columns, brandId, "brand_id");
+        addIfPresent(columns, categoryId, "category_id");
+        for (Aggregate aggregate : aggregates) {
+            columns.add(aggregate.name().toLowerCase());
+        }
+
+        List<List<String>> rows = new ArrayList<>(values.buckets());
+        for (int i = 0; i < values.buckets(); i++) {
+            List<String> row = new ArrayList<>(columns.size());
+            row.add(Timestamps.formatSeconds((firstMinute() + i) * BUCKET_MILLIS));
+            row.add(action.name());
+            addIfPresent(row, origin, origin);
+            addIfPresent(row, brandId, brandId);
+            addIfPresent(row, categoryId, categoryId);
+            for (Aggregate aggregate : aggregates) {
+                row.add(String.valueOf(aggregate == Aggregate.COUNT ? values.count(i) : values.sum(i)));
+            }
+            rows.add(row);
+        }
+        return new AggregatesQueryResult(columns, rows);
+    }
+
+    private static void addIfPresent(List<String> target, String filter, String value) {
+        if (filter != null) {
+            target.add(value);
+        }
+    }
+
+    private static void appendIfPresent(StringBuilder query, String name, String value) {
+        if (value != null) {
+            query.append('&').append(name).append('=').append(URLEncoder.encode(value, StandardCharsets.UTF_8));
+        }
+    }
+
+    public TimeRange getTimeRange() {
+        return timeRange;
+    }
+
+    public Action getAction() {
+        return action;
+    }
+
+    public List<Aggregate> getAggregates() {
+        return aggregates;
+    }
+
+    public String getOrigin() {
+        return origin;
+    }
+
+    public String getBrandId() {
+        return brandId;
+    }
+
+    public String getCategoryId() {
+        return categoryId;
+    }
+}
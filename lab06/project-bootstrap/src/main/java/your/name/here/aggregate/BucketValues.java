@@ -0,0 +1,75 @@
+package your.name.here.aggregate;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * COUNT and SUM_PRICE per bucket of an aggregates query, summed over the cubes that answered it, together with the
+ * newest minute sealed in all of them: the buckets up to that minute are final and may be cached.
+ */
+public class BucketValues {
+
+    private final long[] counts;
+    private final long[] sums;
+    private long sealedMinute;
+
+    /**
+     * Creates zero values to add the answers of cubes to, final in every minute until one is added.
+     */
+    public BucketValues(int buckets) {
+        this(buckets, Long.MAX_VALUE);
+    }
+
+    public BucketValues(int buckets, long sealedMinute) {
+        this.counts = new long[buckets];
+        this.sums = new long[buckets];
+        this.sealedMinute = sealedMinute;
+    }
+
+    public int buckets() {
+        return counts.length;
+    }
+
+    public long count(int bucket) {
+        return counts[bucket];
+    }
+
+    public long sum(int bucket) {
+        return sums[bucket];
+    }
+
+    public long sealedMinute() {
+        return sealedMinute;
+    }
+
+    public void set(int bucket, long count, long sum) {
+        counts[bucket] = count;
+        sums[bucket] = sum;
+    }
+
+    public void add(BucketValues other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+            sums[i] += other.sums[i];
+        }
+        sealedMinute = Math.min(sealedMinute, other.sealedMinute);
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(counts.length);
+        out.writeLong(sealedMinute);
+        for (int i = 0; i < counts.length; i++) {
+            out.writeLong(counts[i]);
+            out.writeLong(sums[i]);
+        }
+    }
+
+    public static BucketValues readFrom(ByteBuffer in) {
+        BucketValues values = new BucketValues(in.getInt(), in.getLong());
+        for (int i = 0; i < values.counts.length; i++) {
+            values.set(i, in.getLong(), in.getLong());
+        }
+        return values;
+    }
+}
@@ -0,0 +1,61 @@
+package your.name.here.aggregate;
+
+import your.name.here.domain.Action;
+
+/**
+ * Packs a cube cell coordinate into a long: action, a 3-bit mask of the filters the cell is bound to and 16-bit
+ * dictionary ids of origin, brand and category (zero when the filter is not bound).
+ */
+final class CubeKey {
+
+    static final int ANY = -1;
+
+    static final int ORIGIN = 1;
+    static final int BRAND = 2;
+    static final int CATEGORY = 4;
+    static final int ALL = ORIGIN | BRAND | CATEGORY;
+    static final int FILTER_COMBINATIONS = 8;
+
+    private static final int FIELD_BITS = 16;
+    private static final int FILTERS_SHIFT = 3 * FIELD_BITS;
+    private static final long ACTION_BITS = -1L << (FILTERS_SHIFT + 3);
+
+    private CubeKey() {
+    }
+
+    static long of(Action action, int filters, int origin, int brand, int category) {
+        long key = action.ordinal();
+        key = (key << 3) | filters;
+        key = (key << FIELD_BITS) | ((filters & ORIGIN) != 0 ? origin : 0);
+        key = (key << FIELD_BITS) | ((filters & BRAND) != 0 ? brand : 0);
+        key = (key << FIELD_BITS) | ((filters & CATEGORY) != 0 ? category : 0);
+        return key;
+    }
+
+    static long query(Action action, int origin, int brand, int category) {
+        int filters = (origin != ANY ? ORIGIN : 0) | (brand != ANY ? BRAND : 0) | (category != ANY ? CATEGORY : 0);
+        return of(action, filters, origin, brand, category);
+    }
+
+    static int filters(long key) {
+        return (int) (key >>> FILTERS_SHIFT) & ALL;
+    }
+
+    /**
+     * Returns the key of the cell bound to {@code filters} that an event updating the cell {@code key} of all three
+     * filters updates as well.
+     */
+    static long narrow(long key, int filters) {
+        return (key & (ACTION_BITS | fieldBits(filters))) | (long) filters << FILTERS_SHIFT;
+    }
+
+    /**
+     * Returns the bits of the key holding the fields bound by {@code filters}.
+     */
+    static long fieldBits(int filters) {
+        long field = (1L << FIELD_BITS) - 1;
+        return ((filters & ORIGIN) != 0 ? field << 2 * FIELD_BITS : 0)
+                | ((filters & BRAND) != 0 ? field << FIELD_BITS : 0)
+                | ((filters & CATEGORY) != 0 ? field : 0);
+    }
+}
@@ -0,0 +1,221 @@
+package your.name.here.aggregate;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * COUNT and SUM_PRICE of a single minute for every cube key, kept in an open-addressing table over primitive
+ * arrays. Once the minute is sealed its cells move to a {@link SealedBucket} and the table only remembers the
+ * minute. Not thread-safe, guarded by {@link AggregateCube}.
+ */
+class MinuteBucket {
+
+    static final long NO_MINUTE = Long.MIN_VALUE;
+
+    private static final long EMPTY = -1L;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final long[] NO_CELLS = new long[0];
+
+    private long minute = NO_MINUTE;
+    private long[] keys;
+    private long[] counts;
+    private long[] sums;
+    private int size;
+    private boolean sealed;
+
+    MinuteBucket() {
+        this(emptyKeys(INITIAL_CAPACITY), new long[INITIAL_CAPACITY], new long[INITIAL_CAPACITY]);
+    }
+
+    private MinuteBucket(long[] keys, long[] counts, long[] sums) {
+        this.keys = keys;
+        this.counts = counts;
+        this.sums = sums;
+    }
+
+    long minute() {
+        return minute;
+    }
+
+    boolean sealed() {
+        return sealed;
+    }
+
+    /**
+     * Starts over with another minute. A table grown for a busier minute than the last one is given back instead of
+     * cleared, so a burst does not keep its capacity allocated for every later minute of the slot.
+     */
+    void reset(long minute) {
+        this.minute = minute;
+        if (keys.length > INITIAL_CAPACITY && size * 4L < keys.length) {
+            shrink();
+        } else {
+            Arrays.fill(keys, EMPTY);
+            Arrays.fill(counts, 0L);
+            Arrays.fill(sums, 0L);
+            size = 0;
+        }
+        sealed = false;
+    }
+
+    /**
+     * Moves the cells to a {@link SealedBucket} and shrinks the table back to its initial capacity.
+     */
+    SealedBucket seal() {
+        int kept = 0;
+        for (long key : keys) {
+            if (key != EMPTY && SealedBucket.keeps(key)) {
+                kept++;
+            }
+        }
+        long[] sortedKeys = new long[kept];
+        kept = 0;
+        for (long key : keys) {
+            if (key != EMPTY && SealedBucket.keeps(key)) {
+                sortedKeys[kept++] = key;
+            }
+        }
+        Arrays.sort(sortedKeys);
+        long[] sortedCounts = new long[kept];
+        long[] sortedSums = new long[kept];
+        for (int i = 0; i < kept; i++) {
+            int slot = slot(sortedKeys[i]);
+            sortedCounts[i] = counts[slot];
+            sortedSums[i] = sums[slot];
+        }
+        SealedBucket sealedBucket = new SealedBucket(minute, sortedKeys, sortedCounts, sortedSums);
+        shrink();
+        sealed = true;
+        return sealedBucket;
+    }
+
+    /**
+     * Forgets the minute and shrinks the table back to its initial capacity.
+     */
+    void release() {
+        minute = NO_MINUTE;
+        shrink();
+        sealed = false;
+    }
+
+    void add(long key, long price) {
+        merge(key, 1, price);
+    }
+
+    void merge(long key, long count, long sum) {
+        int slot = slot(key);
+        if (keys[slot] == EMPTY) {
+            if ((size + 1) * 4L > keys.length * 3L) {
+                grow();
+                slot = slot(key);
+            }
+            keys[slot] = key;
+            size++;
+        }
+        counts[slot] += count;
+        sums[slot] += sum;
+    }
+
+    long count(long key) {
+        int slot = slot(key);
+        return keys[slot] == EMPTY ? 0 : counts[slot];
+    }
+
+    long sum(long key) {
+        int slot = slot(key);
+        return keys[slot] == EMPTY ? 0 : sums[slot];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Returns a copy to be written out with {@link #writeTo}. The cells of a sealed or unused bucket are not copied,
+     * the copy of one only tells its minute and that it is sealed.
+     */
+    MinuteBucket copy() {
+        MinuteBucket copy = sealed || minute == NO_MINUTE ? new MinuteBucket(NO_CELLS, NO_CELLS, NO_CELLS)
+                : new MinuteBucket(keys.clone(), counts.clone(), sums.clone());
+        copy.minute = minute;
+        copy.size = sealed ? 0 : size;
+        copy.sealed = sealed;
+        return copy;
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeLong(minute);
+        out.writeInt(size);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                out.writeLong(keys[i]);
+                out.writeLong(counts[i]);
+                out.writeLong(sums[i]);
+            }
+        }
+    }
+
+    /**
+     * Replaces the content with the cells of a minute written by {@link #writeTo}, after its minute has been read.
+     */
+    void readFrom(long minute, ByteBuffer in) {
+        reset(minute);
+        int cells = in.getInt();
+        while (cells * 4L > keys.length * 3L) {
+            grow();
+        }
+        for (int i = 0; i < cells; i++) {
+            merge(in.getLong(), in.getLong(), in.getLong());
+        }
+    }
+
+    private void shrink() {
+        keys = emptyKeys(INITIAL_CAPACITY);
+        counts = new long[INITIAL_CAPACITY];
+        sums = new long[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldCounts = counts;
+        long[] oldSums = sums;
+        keys = emptyKeys(oldKeys.length * 2);
+        counts = new long[oldKeys.length * 2];
+        sums = new long[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+                sums[slot] = oldSums[i];
+            }
+        }
+    }
+
+    static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static long[] emptyKeys(int capacity) {
+        long[] keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        return keys;
+    }
+}
@@ -0,0 +1,182 @@
+package your.name.here.aggregate;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * COUNT and SUM_PRICE of a minute past the watermark, compacted from its {@link MinuteBucket} into a run of cells
+ * sorted by key, each written as variable-length key delta, count and zigzag-encoded sum. The first key and offset
+ * of every {@value #BLOCK} cells are kept aside, so a lookup is a binary search over them and the decoding of a
+ * single block. Never changes once built, so any thread can read it without a lock.
+ *
+ * <p>Cells bound to origin and exactly one other filter are not kept: the cells of all three filters with the same
+ * origin, and brand, are adjacent in key order and add up to them. Those are the cells that grow with the number of
+ * origins, so with the remaining ones delta-encoded a sealed cell takes about 5 B instead of the 32-64 B of the open
+ * table.
+ */
+final class SealedBucket {
+
+    private static final int BLOCK = 32;
+    private static final int MAX_VARLONG_BYTES = 10;
+
+    private final long minute;
+    private final int size;
+    private final long[] blockKeys;
+    private final int[] blockOffsets;
+    private final byte[] cells;
+
+    /**
+     * Encodes the cells of the given keys, sorted in ascending order and all {@link #keeps kept}, with the counts and
+     * sums at the same positions.
+     */
+    SealedBucket(long minute, long[] keys, long[] counts, long[] sums) {
+        this.minute = minute;
+        this.size = keys.length;
+        this.blockKeys = new long[(keys.length + BLOCK - 1) / BLOCK];
+        this.blockOffsets = new int[blockKeys.length];
+        byte[] out = new byte[Math.max(3 * MAX_VARLONG_BYTES, keys.length * 6)];
+        int position = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (out.length - position < 3 * MAX_VARLONG_BYTES) {
+                out = Arrays.copyOf(out, out.length * 2);
+            }
+            if (i % BLOCK == 0) {
+                blockKeys[i / BLOCK] = keys[i];
+                blockOffsets[i / BLOCK] = position;
+            } else {
+                position = writeVarLong(out, position, keys[i] - keys[i - 1]);
+            }
+            position = writeVarLong(out, position, counts[i]);
+            position = writeVarLong(out, position, (sums[i] << 1) ^ (sums[i] >> 63));
+        }
+        this.cells = Arrays.copyOf(out, position);
+    }
+
+    /**
+     * Returns whether a cell is kept, or summed from the cells of all three filters when read.
+     */
+    static boolean keeps(long key) {
+        int filters = CubeKey.filters(key);
+        return (filters & CubeKey.ORIGIN) == 0 || Integer.bitCount(filters) != 2;
+    }
+
+    long minute() {
+        return minute;
+    }
+
+    /**
+     * Sets the COUNT and SUM_PRICE of the cell of the key as the given bucket of the values.
+     */
+    void read(long key, BucketValues values, int bucket) {
+        long low = key;
+        long high = key;
+        long match = key;
+        long mask = -1L;
+        if (!keeps(key)) {
+            int filters = CubeKey.filters(key);
+            long free = CubeKey.fieldBits((filters & CubeKey.BRAND) != 0 ? CubeKey.CATEGORY
+                    : CubeKey.BRAND | CubeKey.CATEGORY);
+            match = CubeKey.narrow(key, CubeKey.ALL);
+            low = match & ~free;
+            high = match | free;
+            mask = CubeKey.fieldBits(filters);
+        }
+        long count = 0;
+        long sum = 0;
+        if (size > 0) {
+            int block = Arrays.binarySearch(blockKeys, low);
+            block = block >= 0 ? block : Math.max(0, -block - 2);
+            Decoder decoder = new Decoder(cells, blockOffsets[block]);
+            long cellKey = 0;
+            for (int i = block * BLOCK; i < size; i++) {
+                cellKey = i % BLOCK == 0 ? blockKeys[i / BLOCK] : cellKey + decoder.next();
+                long cellCount = decoder.next();
+                long cellSum = decoder.nextSigned();
+                if (cellKey > high) {
+                    break;
+                }
+                if (cellKey >= low && (cellKey & mask) == (match & mask)) {
+                    count += cellCount;
+                    sum += cellSum;
+                }
+            }
+        }
+        values.set(bucket, count, sum);
+    }
+
+    /**
+     * Number of cells kept.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Approximate number of bytes taken by the cells.
+     */
+    long bytes() {
+        return cells.length + (long) blockKeys.length * (Long.BYTES + Integer.BYTES);
+    }
+
+    /**
+     * Writes all cells of the minute, including those not kept, in the format of {@link MinuteBucket#writeTo}.
+     */
+    void writeTo(DataOutput out) throws IOException {
+        MinuteBucket all = new MinuteBucket();
+        all.reset(minute);
+        Decoder decoder = new Decoder(cells, 0);
+        long key = 0;
+        for (int i = 0; i < size; i++) {
+            key = i % BLOCK == 0 ? blockKeys[i / BLOCK] : key + decoder.next();
+            long count = decoder.next();
+            long sum = decoder.nextSigned();
+            all.merge(key, count, sum);
+            if (CubeKey.filters(key) == CubeKey.ALL) {
+                all.merge(CubeKey.narrow(key, CubeKey.ORIGIN | CubeKey.BRAND), count, sum);
+                all.merge(CubeKey.narrow(key, CubeKey.ORIGIN | CubeKey.CATEGORY), count, sum);
+            }
+        }
+        all.writeTo(out);
+    }
+
+    private static int writeVarLong(byte[] out, int position, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[position++] = (byte) value;
+        return position;
+    }
+
+    /**
+     * Reads the variable-length values of the cells from an offset on.
+     */
+    private static final class Decoder {
+
+        private final byte[] cells;
+        private int position;
+
+        Decoder(byte[] cells, int position) {
+            this.cells = cells;
+            this.position = position;
+        }
+
+        long next() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = cells[position++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+
+        long nextSigned() {
+            long value = next();
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+}
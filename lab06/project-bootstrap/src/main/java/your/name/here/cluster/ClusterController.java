@@ -0,0 +1,53 @@
+package your.name.here.cluster;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import your.name.here.aggregate.AggregateCube;
+import your.name.here.aggregate.AggregateQuery;
+import your.name.here.domain.Action;
+import your.name.here.domain.Aggregate;
+import your.name.here.domain.TimeRange;
+
+/**
+ * Node-to-node endpoints of the cluster, served by both the MVC and the WebFlux stack.
+ */
+@RestController
+@ConditionalOnProperty(name = "allezon.cluster.nodes")
+public class ClusterController {
+
+    public static final String PARTIAL_AGGREGATES_PATH = "/internal/aggregates";
+    public static final String REPLICATION_PATH = "/internal/replication";
+    public static final String REPLICA_PATH = "/internal/replica";
+
+    @Autowired
+    private AggregateCube aggregateCube;
+
+    /**
+     * Returns the buckets of this node's cube for an aggregates query, in the format of
+     * {@link your.name.here.aggregate.BucketValues#writeTo}.
+     */
+    @PostMapping(value = PARTIAL_AGGREGATES_PATH, produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public byte[] partialAggregates(@RequestParam("time_range") String timeRangeStr,
+            @RequestParam("action") Action action,
+            @RequestParam("aggregates") List<Aggregate> aggregates,
+            @RequestParam(value = "origin", required = false) String origin,
+            @RequestParam(value = "brand_id", required = false) String brandId,
+            @RequestParam(value = "category_id", required = false) String categoryId) throws IOException {
+
+        AggregateQuery query = new AggregateQuery(TimeRange.parse(timeRangeStr), action, aggregates, origin, brandId,
+                categoryId);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        aggregateCube.query(query).writeTo(new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+}
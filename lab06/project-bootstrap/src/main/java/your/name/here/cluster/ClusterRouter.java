@@ -0,0 +1,247 @@
+package your.name.here.cluster;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import io.netty.buffer.Unpooled;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import your.name.here.aggregate.BucketValues;
+
+/**
+ * Routes requests of a cookie-sharded cluster. Every node is started with the same list of node addresses and its
+ * own address; cookies are assigned to nodes by a {@link HashRing}, so a profile lives on exactly one node. Any node
+ * accepts client requests: user tags and profile queries of other nodes' cookies are forwarded to the owner, and
+ * aggregates queries gather the partial buckets of every node, because each node's cube only counts the tags of its
+ * own cookies.
+ *
+ * <p>Forwarded requests carry the {@link #FORWARDED_HEADER} and are always handled locally by the receiver, so
+ * nodes with inconsistent configurations cannot bounce a request between them. Node-to-node traffic goes over one
+ * pool of keep-alive HTTP/1.1 connections per node.
+ *
+ * <p>With replication each node's shard is copied to its {@link HashRing#successor}. A node that refuses a
+ * connection is considered down for {@code allezon.cluster.down-ms}, and its requests go to the
+ * {@link ClusterController#REPLICA_PATH} endpoints of the successor in the meantime, which answer them once they
+ * have stopped hearing from the node, see {@code your.name.here.replication.Replicator}. A successor that answers
+ * 503 still hears from the node, which then gets its requests back before the down period is over.
+ */
+@Component
+@ConditionalOnProperty(name = "allezon.cluster.nodes")
+public class ClusterRouter {
+
+    public static final String FORWARDED_HEADER = "X-Allezon-Forwarded";
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterRouter.class);
+
+    private final HashRing ring;
+    private final int self;
+    private final ConnectionProvider connectionProvider;
+    private final List<HttpClient> clients = new ArrayList<>();
+    private final boolean replicated;
+    private final long downNanos;
+    private final AtomicLongArray downUntil;
+
+    @Autowired
+    public ClusterRouter(@Value("${allezon.cluster.nodes}") String nodes,
+            @Value("${allezon.cluster.self}") String self,
+            @Value("${allezon.cluster.virtual-nodes:128}") int virtualNodes,
+            @Value("${allezon.cluster.max-connections-per-node:64}") int maxConnectionsPerNode,
+            @Value("${allezon.cluster.timeout-ms:1000}") long timeoutMillis,
+            @Value("${allezon.replication.enabled:true}") boolean replication,
+            @Value("${allezon.cluster.down-ms:2000}") long downMillis) {
+        List<String> addresses = Arrays.stream(nodes.split(","))
+                .map(String::trim)
+                .filter(address -> !address.isEmpty())
+                .collect(Collectors.toList());
+        this.ring = new HashRing(addresses, virtualNodes);
+        this.self = addresses.indexOf(self.trim());
+        if (this.self < 0) {
+            throw new IllegalArgumentException("allezon.cluster.self=" + self + " is not one of allezon.cluster.nodes="
+                    + nodes);
+        }
+        Duration timeout = Duration.ofMillis(timeoutMillis);
+        // requests waiting for a pooled connection give up within the same timeout instead of queueing for long
+        this.connectionProvider = ConnectionProvider.builder("allezon-cluster")
+                .maxConnections(maxConnectionsPerNode)
+                .pendingAcquireMaxCount(-1)
+                .pendingAcquireTimeout(timeout)
+                .maxIdleTime(Duration.ofSeconds(30))
+                .build();
+        for (String address : addresses) {
+            clients.add(HttpClient.create(connectionProvider)
+                    .baseUrl(address)
+                    .keepAlive(true)
+                    .responseTimeout(timeout)
+                    .headers(headers -> headers.set(FORWARDED_HEADER, self)));
+        }
+        this.replicated = replication && addresses.size() > 1;
+        this.downNanos = TimeUnit.MILLISECONDS.toNanos(downMillis);
+        this.downUntil = new AtomicLongArray(addresses.size());
+        for (int node = 0; node < addresses.size(); node++) {
+            downUntil.set(node, System.nanoTime());
+        }
+        log.info("Node {} of cluster {} with {} virtual nodes per node{}", self, addresses, virtualNodes,
+                replicated ? ", replicated to " + addresses.get(ring.successor(this.self)) : "");
+    }
+
+    public int self() {
+        return self;
+    }
+
+    public String address(int node) {
+        return ring.nodes().get(node);
+    }
+
+    public int successor(int node) {
+        return ring.successor(node);
+    }
+
+    public int predecessor(int node) {
+        return ring.predecessor(node);
+    }
+
+    public boolean isLocal(String cookie) {
+        return ring.owner(cookie) == self;
+    }
+
+    /**
+     * Sends the user_tag document to the node owning the cookie; completes once the owner has accepted it. Like a
+     * local ingest the forward starts right away and is not cancelled when the client gives up on the request.
+     */
+    public CompletableFuture<Void> forwardUserTag(String cookie, byte[] body) {
+        return toOwner(ring.owner(cookie), "/user_tags", ClusterController.REPLICA_PATH + "/user_tags",
+                (node, path) -> clients.get(node)
+                        .headers(headers -> headers.set(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE))
+                        .post()
+                        .uri(path)
+                        .send(Mono.fromSupplier(() -> Unpooled.wrappedBuffer(body)))
+                        .responseSingle((response, content) -> response.status().code() == 204
+                                ? Mono.<Void>empty()
+                                : Mono.error(failure("user_tags", node, response.status().code()))))
+                .toFuture();
+    }
+
+    /**
+     * Runs the profile query on the node owning the cookie and returns its JSON answer. The expected answer is not
+     * forwarded, it is verified by the node that received the query.
+     */
+    public Mono<byte[]> forwardUserProfile(String cookie, String pathAndQuery) {
+        return toOwner(ring.owner(cookie), pathAndQuery, ClusterController.REPLICA_PATH + pathAndQuery,
+                (node, path) -> clients.get(node)
+                        .post()
+                        .uri(path)
+                        .responseSingle((response, content) -> response.status().code() == 200
+                                ? content.asByteArray()
+                                : Mono.error(failure("user_profiles", node, response.status().code()))));
+    }
+
+    /**
+     * Queries the partial buckets of all other nodes and returns their sum.
+     */
+    public Mono<BucketValues> gatherAggregates(String query, int buckets) {
+        return Flux.range(0, clients.size())
+                .filter(node -> node != self)
+                .flatMap(owner -> toOwner(owner, ClusterController.PARTIAL_AGGREGATES_PATH + "?" + query,
+                        ClusterController.REPLICA_PATH + "/aggregates?" + query,
+                        (node, path) -> clients.get(node)
+                                .post()
+                                .uri(path)
+                                .responseSingle((response, content) -> response.status().code() == 200
+                                        ? content.asByteBuffer().map(BucketValues::readFrom)
+                                        : Mono.error(failure("aggregates", node, response.status().code())))))
+                .reduce(new BucketValues(buckets), (sum, partial) -> {
+                    sum.add(partial);
+                    return sum;
+                });
+    }
+
+    /**
+     * Sends a replication batch to the node and returns the offset it acknowledges.
+     */
+    public Mono<Long> replicate(int node, byte[] batch) {
+        return clients.get(node)
+                .headers(headers -> headers.set(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_OCTET_STREAM_VALUE))
+                .post()
+                .uri(ClusterController.REPLICATION_PATH)
+                .send(Mono.fromSupplier(() -> Unpooled.wrappedBuffer(batch)))
+                .responseSingle((response, content) -> response.status().code() == 200
+                        ? content.asByteBuffer().map(ack -> ack.getLong())
+                        : Mono.error(failure("replication", node, response.status().code())));
+    }
+
+    @PreDestroy
+    public void close() {
+        connectionProvider.disposeLater().block(Duration.ofSeconds(5));
+    }
+
+    /**
+     * Runs the call against the owner, or against its successor on the replica path while the owner is down. Only
+     * refused connections mark a node down: a slow node still gets its requests, which then time out. A successor
+     * answering 503 still hears from the owner, so the owner is marked up again and gets the request back.
+     */
+    private <T> Mono<T> toOwner(int owner, String path, String replicaPath,
+            BiFunction<Integer, String, Mono<T>> call) {
+        if (!replicated) {
+            return call.apply(owner, path);
+        }
+        long until = downUntil.get(owner);
+        if (System.nanoTime() - until < 0) {
+            return call.apply(ring.successor(owner), replicaPath).onErrorResume(
+                    e -> e instanceof StatusException && ((StatusException) e).status == 503, e -> {
+                        if (downUntil.compareAndSet(owner, until, System.nanoTime())) {
+                            log.info("{} does not stand in for node {}, sending its requests back to it",
+                                    address(ring.successor(owner)), address(owner));
+                        }
+                        return call.apply(owner, path);
+                    });
+        }
+        return call.apply(owner, path).onErrorResume(ConnectException.class, e -> {
+            if (downUntil.getAndSet(owner, System.nanoTime() + downNanos) - System.nanoTime() < 0) {
+                log.warn("Node {} refused a connection, sending its requests to {} for {} ms", address(owner),
+                        address(ring.successor(owner)), TimeUnit.NANOSECONDS.toMillis(downNanos));
+            }
+            return call.apply(ring.successor(owner), replicaPath);
+        });
+    }
+
+    private IOException failure(String endpoint, int node, int status) {
+        return new StatusException("Node " + ring.nodes().get(node) + " answered " + endpoint + " with status "
+                + status, status);
+    }
+
+    private static final class StatusException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        StatusException(String message, int status) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package your.name.here.cluster;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Consistent hashing of cookies onto cluster nodes. Every node owns {@code virtualNodes} points on a 64-bit ring
+ * derived from its address, a cookie belongs to the node of the first point at or after its hash. Points depend only
+ * on the addresses, so every node computes the same ring from the same list whatever its order, and adding or
+ * removing a node moves only the cookies of the arcs it takes over or gives up.
+ */
+public class HashRing {
+
+    private final List<String> nodes;
+    private final long[] points;
+    private final int[] owners;
+    private final int[] successors;
+    private final int[] predecessors;
+
+    public HashRing(List<String> nodes, int virtualNodes) {
+        if (nodes.isEmpty() || virtualNodes < 1) {
+            throw new IllegalArgumentException("A hash ring needs at least one node and one virtual node per node");
+        }
+        this.nodes = List.copyOf(nodes);
+        long[] entries = new long[nodes.size() * virtualNodes];
+        int[] entryOwners = new int[entries.length];
+        Integer[] order = new Integer[entries.length];
+        for (int node = 0; node < nodes.size(); node++) {
+            long base = hash(nodes.get(node));
+            for (int i = 0; i < virtualNodes; i++) {
+                int entry = node * virtualNodes + i;
+                entries[entry] = mix(base + i * 0x9e3779b97f4a7c15L);
+                entryOwners[entry] = node;
+                order[entry] = entry;
+            }
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(entries[a], entries[b]));
+        this.points = new long[entries.length];
+        this.owners = new int[entries.length];
+        for (int i = 0; i < order.length; i++) {
+            points[i] = entries[order[i]];
+            owners[i] = entryOwners[order[i]];
+        }
+        Integer[] byAddress = new Integer[nodes.size()];
+        for (int node = 0; node < byAddress.length; node++) {
+            byAddress[node] = node;
+        }
+        Arrays.sort(byAddress, (a, b) -> nodes.get(a).compareTo(nodes.get(b)));
+        this.successors = new int[byAddress.length];
+        this.predecessors = new int[byAddress.length];
+        for (int i = 0; i < byAddress.length; i++) {
+            int next = byAddress[(i + 1) % byAddress.length];
+            successors[byAddress[i]] = next;
+            predecessors[next] = byAddress[i];
+        }
+    }
+
+    /**
+     * Returns the index in the node list of the node owning the cookie.
+     */
+    public int owner(String cookie) {
+        int position = Arrays.binarySearch(points, hash(cookie));
+        if (position < 0) {
+            position = -position - 1;
+        }
+        return owners[position == points.length ? 0 : position];
+    }
+
+    /**
+     * Returns the node following the given one in the order of addresses, which keeps its replica. Like the ring,
+     * the order does not depend on how the node list is ordered in the configuration.
+     */
+    public int successor(int node) {
+        return successors[node];
+    }
+
+    public int predecessor(int node) {
+        return predecessors[node];
+    }
+
+    public List<String> nodes() {
+        return nodes;
+    }
+
+    /**
+     * FNV-1a over the UTF-16 code units, finished with a 64-bit mixer so that similar cookies spread over the ring.
+     */
+    static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,24 @@
+package your.name.here.config;
+
+import java.time.Instant;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+import your.name.here.serde.InstantDeserializer;
+import your.name.here.serde.InstantSerializer;
+
+@Configuration
+public class JacksonConfig {
+
+    @Bean
+    public Module timestampModule() {
+        SimpleModule module = new SimpleModule("allezon-timestamps");
+        module.addSerializer(Instant.class, new InstantSerializer());
+        module.addDeserializer(Instant.class, new InstantDeserializer());
+        return module;
+    }
+}
@@ -0,0 +1,53 @@
+package your.name.here.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Runs the {@code reactive} profile on Reactor Netty; without an explicit factory Spring Boot would prefer Jetty,
+ * which is also on the classpath.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveServerConfig {
+
+    public static final String INGEST_SCHEDULER = "ingestScheduler";
+    public static final String READ_SCHEDULER = "readScheduler";
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    /**
+     * Applies user tags off the event loop: ingesting takes the locks of the profile store, the write-ahead log and
+     * the cube, and waiting on them would stall every connection of the Netty thread. Bounded to
+     * {@code allezon.reactive.ingest-threads} threads, one per core by default, since the work is short and
+     * CPU-bound, and to {@code allezon.reactive.ingest-queue} waiting tags, beyond which a tag is answered 503.
+     */
+    @Bean(name = INGEST_SCHEDULER, destroyMethod = "dispose")
+    public Scheduler ingestScheduler(@Value("${allezon.reactive.ingest-threads:0}") int threads,
+            @Value("${allezon.reactive.ingest-queue:10000}") int queue) {
+        return Schedulers.newBoundedElastic(threads > 0 ? threads : Runtime.getRuntime().availableProcessors(),
+                queue, "ingest");
+    }
+
+    /**
+     * Runs profile reads and aggregates queries off the event loop: the stores take stripe locks, the Aerospike store
+     * waits up to 100 ms for the cluster and the cube takes the locks of the open minutes. Bounded to
+     * {@code allezon.reactive.read-threads} threads, by default Reactor's limit for blocking work, and to
+     * {@code allezon.reactive.read-queue} waiting queries, beyond which a query is answered 503.
+     */
+    @Bean(name = READ_SCHEDULER, destroyMethod = "dispose")
+    public Scheduler readScheduler(@Value("${allezon.reactive.read-threads:0}") int threads,
+            @Value("${allezon.reactive.read-queue:10000}") int queue) {
+        return Schedulers.newBoundedElastic(threads > 0 ? threads : Schedulers.DEFAULT_BOUNDED_ELASTIC_SIZE, queue,
+                "read");
+    }
+}
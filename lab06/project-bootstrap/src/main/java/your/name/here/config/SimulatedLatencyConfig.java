@@ -0,0 +1,30 @@
+package your.name.here.config;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import your.name.here.profile.DelayedProfileStore;
+import your.name.here.profile.ProfileStore;
+
+/**
+ * Benchmark-only: with {@code allezon.profiles.simulated-latency-ms} set, wraps the profile store in a
+ * {@link DelayedProfileStore}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "allezon.profiles.simulated-latency-ms")
+public class SimulatedLatencyConfig {
+
+    @Bean
+    public static BeanPostProcessor delayedProfileStorePostProcessor(Environment environment) {
+        long delayMillis = environment.getRequiredProperty("allezon.profiles.simulated-latency-ms", Long.class);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof ProfileStore ? new DelayedProfileStore((ProfileStore) bean, delayMillis) : bean;
+            }
+        };
+    }
+}
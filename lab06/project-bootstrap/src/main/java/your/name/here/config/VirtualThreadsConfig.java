@@ -0,0 +1,50 @@
+package your.name.here.config;
+
+import java.util.concurrent.ThreadFactory;
+
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.jetty.JettyServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Runs Jetty's thread pool, and therefore the {@code EchoClient} handlers, on virtual threads, so that a handler
+ * blocked on a store call only parks a virtual thread instead of holding one of a few hundred platform threads.
+ * Jetty 9.4 has no virtual thread executor of its own, but its pool takes a thread factory, and a virtual thread
+ * can run its loop like any other; the pool limit is raised accordingly.
+ *
+ * <p>Measured on Java 21 with a store slowed to 50 ms by {@code allezon.profiles.simulated-latency-ms} and 600
+ * tags/s on one vCPU, a third of the requests were answered in time, against none with 24 or 200 platform threads.
+ * Admission control is best turned off with it, its handler limit only made things worse, see the README.
+ *
+ * <p>Requires Java 21 at runtime. The factory is looked up reflectively, so the code still compiles for Java 17.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "allezon.server.virtual-threads", havingValue = "true")
+public class VirtualThreadsConfig {
+
+    @Bean
+    public WebServerFactoryCustomizer<JettyServletWebServerFactory> virtualThreadPoolCustomizer(
+            @Value("${allezon.server.virtual-threads-max:10000}") int maxThreads) {
+        ThreadFactory threadFactory = virtualThreadFactory("jetty-virtual-");
+        return factory -> factory.setThreadPool(
+                new QueuedThreadPool(maxThreads, 8, 60_000, -1, null, null, threadFactory));
+    }
+
+    static ThreadFactory virtualThreadFactory(String prefix) {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads require Java 21 or newer, running on "
+                    + Runtime.version(), e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package your.name.here.domain;
+
+import your.name.here.encoding.Timestamps;
+
+public class TimeRange {
+
+    private final long fromMillis;
+    private final long toMillis;
+
+    public TimeRange(long fromMillis, long toMillis) {
+        this.fromMillis = fromMillis;
+        this.toMillis = toMillis;
+    }
+
+    public static TimeRange parse(String timeRangeStr) {
+        int separator = timeRangeStr.indexOf('_');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Invalid time range: " + timeRangeStr);
+        }
+        return new TimeRange(Timestamps.parseMillis(timeRangeStr, 0, separator),
+                Timestamps.parseMillis(timeRangeStr, separator + 1, timeRangeStr.length()));
+    }
+
+    public long getFromMillis() {
+        return fromMillis;
+    }
+
+    public long getToMillis() {
+        return toMillis;
+    }
+
+    public boolean contains(long millis) {
+        return millis >= fromMillis && millis < toMillis;
+    }
+}
@@ -0,0 +1,70 @@
+package your.name.here.encoding;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Dictionaries of the low-cardinality user tag fields, shared by every component that keeps encoded events.
+ * Journals live in the node state directory next to the rest of the persisted state.
+ */
+@Component
+public class Dictionaries {
+
+    private final Dictionary countries;
+    private final Dictionary origins;
+    private final Dictionary brands;
+    private final Dictionary categories;
+
+    @Autowired
+    public Dictionaries(@Value("${allezon.state.dir:state}") String stateDir) throws IOException {
+        Path directory = Files.createDirectories(Paths.get(stateDir, "dictionaries"));
+        this.countries = Dictionary.persistent(directory.resolve("countries"));
+        this.origins = Dictionary.persistent(directory.resolve("origins"));
+        this.brands = Dictionary.persistent(directory.resolve("brands"));
+        this.categories = Dictionary.persistent(directory.resolve("categories"));
+    }
+
+    private Dictionaries(Dictionary countries, Dictionary origins, Dictionary brands, Dictionary categories) {
+        this.countries = countries;
+        this.origins = origins;
+        this.brands = brands;
+        this.categories = categories;
+    }
+
+    public static Dictionaries inMemory() {
+        return new Dictionaries(Dictionary.inMemory(), Dictionary.inMemory(), Dictionary.inMemory(),
+                Dictionary.inMemory());
+    }
+
+    public Dictionary countries() {
+        return countries;
+    }
+
+    public Dictionary origins() {
+        return origins;
+    }
+
+    public Dictionary brands() {
+        return brands;
+    }
+
+    public Dictionary categories() {
+        return categories;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        countries.close();
+        origins.close();
+        brands.close();
+        categories.close();
+    }
+}
@@ -0,0 +1,226 @@
+package your.name.here.encoding;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+/**
+ * Append-only string to int dictionary. Ids are dense and assigned in registration order, lookups in both
+ * directions are lock-free, only registering a new value takes the dictionary lock. Values can also be looked up by
+ * a slice of a char buffer, which lets parsers encode known values without allocating a String, and each value
+ * keeps its quoted JSON form, so writers can emit it without escaping it again.
+ *
+ * <p>With a journal file every new value is appended and forced to disk before its id is handed out, so ids survive
+ * restarts and a node started from a copy of the journal assigns the same ids as the node it was copied from.
+ */
+public class Dictionary implements Closeable {
+
+    public static final int MAX_SIZE = 1 << 16;
+
+    private final FileChannel journal;
+
+    private volatile AtomicReferenceArray<Entry> entries = new AtomicReferenceArray<>(128);
+    private volatile String[] values = new String[64];
+    private volatile byte[][] jsonValues = new byte[64][];
+    private int size;
+
+    private Dictionary(FileChannel journal) {
+        this.journal = journal;
+    }
+
+    public static Dictionary inMemory() {
+        return new Dictionary(null);
+    }
+
+    public static Dictionary persistent(Path journalPath) throws IOException {
+        Dictionary dictionary = new Dictionary(FileChannel.open(journalPath,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+        dictionary.restore();
+        return dictionary;
+    }
+
+    public int idOf(String value) {
+        int id = find(value);
+        return id >= 0 ? id : register(value);
+    }
+
+    public int idOf(char[] chars, int offset, int length) {
+        int id = find(chars, offset, length);
+        return id >= 0 ? id : register(new String(chars, offset, length));
+    }
+
+    public int find(String value) {
+        AtomicReferenceArray<Entry> table = entries;
+        int mask = table.length() - 1;
+        for (int slot = spread(value.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+            Entry entry = table.get(slot);
+            if (entry == null) {
+                return -1;
+            }
+            if (entry.value.equals(value)) {
+                return entry.id;
+            }
+        }
+    }
+
+    public int find(char[] chars, int offset, int length) {
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        AtomicReferenceArray<Entry> table = entries;
+        int mask = table.length() - 1;
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            Entry entry = table.get(slot);
+            if (entry == null) {
+                return -1;
+            }
+            if (entry.matches(chars, offset, length)) {
+                return entry.id;
+            }
+        }
+    }
+
+    public String valueOf(int id) {
+        return values[id];
+    }
+
+    public byte[] jsonValueOf(int id) {
+        return jsonValues[id];
+    }
+
+    public static byte[] quoteAsJson(String value) {
+        byte[] escaped = JsonStringEncoder.getInstance().quoteAsUTF8(value);
+        byte[] quoted = new byte[escaped.length + 2];
+        quoted[0] = '"';
+        System.arraycopy(escaped, 0, quoted, 1, escaped.length);
+        quoted[quoted.length - 1] = '"';
+        return quoted;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    private synchronized int register(String value) {
+        int id = find(value);
+        if (id >= 0) {
+            return id;
+        }
+        if (size == MAX_SIZE) {
+            throw new IllegalStateException("Dictionary is full, cannot register: " + value);
+        }
+        if (journal != null) {
+            append(value);
+        }
+        return put(value);
+    }
+
+    private int put(String value) {
+        String[] current = values;
+        byte[][] currentJson = jsonValues;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+            currentJson = Arrays.copyOf(currentJson, currentJson.length * 2);
+        }
+        current[size] = value;
+        currentJson[size] = quoteAsJson(value);
+        values = current;
+        jsonValues = currentJson;
+        if ((size + 1) * 2 > entries.length()) {
+            entries = rehash(entries, entries.length() * 2);
+        }
+        insert(entries, new Entry(value, size));
+        return size++;
+    }
+
+    private static AtomicReferenceArray<Entry> rehash(AtomicReferenceArray<Entry> table, int capacity) {
+        AtomicReferenceArray<Entry> grown = new AtomicReferenceArray<>(capacity);
+        for (int i = 0; i < table.length(); i++) {
+            if (table.get(i) != null) {
+                insert(grown, table.get(i));
+            }
+        }
+        return grown;
+    }
+
+    private static void insert(AtomicReferenceArray<Entry> table, Entry entry) {
+        int mask = table.length() - 1;
+        int slot = spread(entry.value.hashCode()) & mask;
+        while (table.get(slot) != null) {
+            slot = (slot + 1) & mask;
+        }
+        table.set(slot, entry);
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private void append(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer entry = ByteBuffer.allocate(Integer.BYTES + bytes.length).putInt(bytes.length).put(bytes).flip();
+        try {
+            while (entry.hasRemaining()) {
+                journal.write(entry);
+            }
+            journal.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot persist dictionary entry: " + value, e);
+        }
+    }
+
+    private synchronized void restore() throws IOException {
+        ByteBuffer content = ByteBuffer.allocate(Math.toIntExact(journal.size()));
+        while (content.hasRemaining() && journal.read(content, content.position()) >= 0) {
+            // read the whole journal, it holds at most MAX_SIZE short strings
+        }
+        content.flip();
+        while (content.remaining() >= Integer.BYTES
+                && content.remaining() >= Integer.BYTES + content.getInt(content.position())) {
+            byte[] bytes = new byte[content.getInt()];
+            content.get(bytes);
+            put(new String(bytes, StandardCharsets.UTF_8));
+        }
+        // a torn tail is an entry whose id was never handed out, dropping it is safe
+        journal.truncate(content.position()).position(content.position());
+    }
+
+    private static class Entry {
+        private final String value;
+        private final int id;
+
+        private Entry(String value, int id) {
+            this.value = value;
+            this.id = id;
+        }
+
+        private boolean matches(char[] chars, int offset, int length) {
+            if (value.length() != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (value.charAt(i) != chars[offset + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
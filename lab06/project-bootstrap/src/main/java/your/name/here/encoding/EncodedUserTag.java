@@ -0,0 +1,132 @@
+package your.name.here.encoding;
+
+import java.time.Instant;
+
+import your.name.here.domain.Action;
+import your.name.here.domain.Device;
+import your.name.here.domain.Product;
+import your.name.here.domain.UserTagEvent;
+
+/**
+ * User tag with its low-cardinality fields replaced by dictionary ids. Instances are mutable so the ingest path can
+ * reuse them.
+ */
+public class EncodedUserTag {
+
+    private long time;
+    private String cookie;
+    private int country;
+    private Device device;
+    private Action action;
+    private int origin;
+    private int productId;
+    private int brand;
+    private int category;
+    private int price;
+
+    public static EncodedUserTag encode(UserTagEvent event, Dictionaries dictionaries) {
+        Product product = event.getProductInfo();
+        EncodedUserTag tag = new EncodedUserTag();
+        tag.time = event.getTime().toEpochMilli();
+        tag.cookie = event.getCookie();
+        tag.country = dictionaries.countries().idOf(event.getCountry());
+        tag.device = event.getDevice();
+        tag.action = event.getAction();
+        tag.origin = dictionaries.origins().idOf(event.getOrigin());
+        tag.productId = product.getProductId();
+        tag.brand = dictionaries.brands().idOf(product.getBrandId());
+        tag.category = dictionaries.categories().idOf(product.getCategoryId());
+        tag.price = product.getPrice();
+        return tag;
+    }
+
+    public UserTagEvent decode(Dictionaries dictionaries) {
+        Product product = new Product();
+        product.setProductId(productId);
+        product.setBrandId(dictionaries.brands().valueOf(brand));
+        product.setCategoryId(dictionaries.categories().valueOf(category));
+        product.setPrice(price);
+        return new UserTagEvent(Instant.ofEpochMilli(time), cookie, dictionaries.countries().valueOf(country), device,
+                action, dictionaries.origins().valueOf(origin), product);
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    public void setTime(long time) {
+        this.time = time;
+    }
+
+    public String getCookie() {
+        return cookie;
+    }
+
+    public void setCookie(String cookie) {
+        this.cookie = cookie;
+    }
+
+    public int getCountry() {
+        return country;
+    }
+
+    public void setCountry(int country) {
+        this.country = country;
+    }
+
+    public Device getDevice() {
+        return device;
+    }
+
+    public void setDevice(Device device) {
+        this.device = device;
+    }
+
+    public Action getAction() {
+        return action;
+    }
+
+    public void setAction(Action action) {
+        this.action = action;
+    }
+
+    public int getOrigin() {
+        return origin;
+    }
+
+    public void setOrigin(int origin) {
+        this.origin = origin;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    public void setProductId(int productId) {
+        this.productId = productId;
+    }
+
+    public int getBrand() {
+        return brand;
+    }
+
+    public void setBrand(int brand) {
+        this.brand = brand;
+    }
+
+    public int getCategory() {
+        return category;
+    }
+
+    public void setCategory(int category) {
+        this.category = category;
+    }
+
+    public int getPrice() {
+        return price;
+    }
+
+    public void setPrice(int price) {
+        this.price = price;
+    }
+}
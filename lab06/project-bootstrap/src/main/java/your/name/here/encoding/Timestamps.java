@@ -0,0 +1,176 @@
+package your.name.here.encoding;
+
+/**
+ * Allocation-free conversion between epoch millis and the fixed-layout UTC timestamps used by the API:
+ * {@code yyyy-MM-ddTHH:mm:ss}, optionally followed by {@code .SSS} and optionally by a {@code Z} suffix.
+ */
+public final class Timestamps {
+
+    private static final int SECONDS_LENGTH = 19;
+    private static final int MILLIS_LENGTH = 23;
+
+    private static final long MILLIS_PER_SECOND = 1000L;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    private Timestamps() {
+    }
+
+    public static long parseMillis(CharSequence text) {
+        return parseMillis(text, 0, text.length());
+    }
+
+    public static long parseMillis(CharSequence text, int start, int end) {
+        int length = end - start;
+        if (length > 0 && text.charAt(end - 1) == 'Z') {
+            length--;
+        }
+        if ((length != SECONDS_LENGTH && length != MILLIS_LENGTH)
+                || text.charAt(start + 4) != '-' || text.charAt(start + 7) != '-' || text.charAt(start + 10) != 'T'
+                || text.charAt(start + 13) != ':' || text.charAt(start + 16) != ':'
+                || (length == MILLIS_LENGTH && text.charAt(start + 19) != '.')) {
+            throw invalid(text.subSequence(start, end));
+        }
+        int year = digits(text, start, 4);
+        int month = digits(text, start + 5, 2);
+        int day = digits(text, start + 8, 2);
+        int hour = digits(text, start + 11, 2);
+        int minute = digits(text, start + 14, 2);
+        int second = digits(text, start + 17, 2);
+        int millis = length == MILLIS_LENGTH ? digits(text, start + 20, 3) : 0;
+        if (!valid(year, month, day, hour, minute, second, millis)) {
+            throw invalid(text.subSequence(start, end));
+        }
+        return toMillis(year, month, day, hour, minute, second, millis);
+    }
+
+    public static long parseMillis(char[] text, int offset, int count) {
+        int length = count;
+        if (length > 0 && text[offset + length - 1] == 'Z') {
+            length--;
+        }
+        if ((length != SECONDS_LENGTH && length != MILLIS_LENGTH)
+                || text[offset + 4] != '-' || text[offset + 7] != '-' || text[offset + 10] != 'T'
+                || text[offset + 13] != ':' || text[offset + 16] != ':'
+                || (length == MILLIS_LENGTH && text[offset + 19] != '.')) {
+            throw invalid(new String(text, offset, count));
+        }
+        int year = digits(text, offset, 4);
+        int month = digits(text, offset + 5, 2);
+        int day = digits(text, offset + 8, 2);
+        int hour = digits(text, offset + 11, 2);
+        int minute = digits(text, offset + 14, 2);
+        int second = digits(text, offset + 17, 2);
+        int millis = length == MILLIS_LENGTH ? digits(text, offset + 20, 3) : 0;
+        if (!valid(year, month, day, hour, minute, second, millis)) {
+            throw invalid(new String(text, offset, count));
+        }
+        return toMillis(year, month, day, hour, minute, second, millis);
+    }
+
+    public static String formatSeconds(long epochMillis) {
+        char[] chars = new char[SECONDS_LENGTH];
+        write(chars, epochMillis, false);
+        return new String(chars);
+    }
+
+    public static String formatMillis(long epochMillis) {
+        char[] chars = new char[MILLIS_LENGTH + 1];
+        write(chars, epochMillis, true);
+        return new String(chars);
+    }
+
+    /**
+     * Writes {@code yyyy-MM-ddTHH:mm:ss} or, with millis, {@code yyyy-MM-ddTHH:mm:ss.SSSZ} at the beginning of
+     * {@code target} and returns the number of chars written.
+     */
+    public static int write(char[] target, long epochMillis, boolean withMillis) {
+        long days = Math.floorDiv(epochMillis, MILLIS_PER_DAY);
+        int millisOfDay = (int) Math.floorMod(epochMillis, MILLIS_PER_DAY);
+
+        long z = days + 719_468;
+        long era = Math.floorDiv(z, 146_097);
+        int dayOfEra = (int) (z - era * 146_097);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+        int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+
+        put(target, 0, year, 4);
+        target[4] = '-';
+        put(target, 5, month, 2);
+        target[7] = '-';
+        put(target, 8, day, 2);
+        target[10] = 'T';
+        put(target, 11, millisOfDay / 3_600_000, 2);
+        target[13] = ':';
+        put(target, 14, millisOfDay / 60_000 % 60, 2);
+        target[16] = ':';
+        put(target, 17, millisOfDay / 1000 % 60, 2);
+        if (!withMillis) {
+            return SECONDS_LENGTH;
+        }
+        target[19] = '.';
+        put(target, 20, millisOfDay % 1000, 3);
+        target[23] = 'Z';
+        return MILLIS_LENGTH + 1;
+    }
+
+    private static boolean valid(int year, int month, int day, int hour, int minute, int second, int millis) {
+        return (year | millis) >= 0 && month >= 1 && month <= 12 && day >= 1 && day <= daysInMonth(year, month)
+                && hour >= 0 && hour <= 23 && minute >= 0 && minute <= 59 && second >= 0 && second <= 59;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        if (month == 2) {
+            return year % 4 == 0 && (year % 100 != 0 || year % 400 == 0) ? 29 : 28;
+        }
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    private static long toMillis(int year, int month, int day, int hour, int minute, int second, int millis) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        long days = era * 146_097L + dayOfEra - 719_468;
+        return days * MILLIS_PER_DAY + ((hour * 60L + minute) * 60L + second) * MILLIS_PER_SECOND + millis;
+    }
+
+    private static int digits(CharSequence text, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int digits(char[] text, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = text[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static void put(char[] target, int offset, int value, int count) {
+        for (int i = offset + count - 1; i >= offset; i--) {
+            target[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static IllegalArgumentException invalid(CharSequence text) {
+        return new IllegalArgumentException("Invalid timestamp: '" + text + "'");
+    }
+}
@@ -0,0 +1,209 @@
+package your.name.here.encoding;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import your.name.here.domain.Action;
+import your.name.here.domain.Device;
+
+/**
+ * Decodes a user_tag document token by token straight into an {@link EncodedUserTag}. Fields may come in any order,
+ * unknown fields are skipped. Known dictionary values, enums, numbers and the timestamp are read from the parser
+ * buffer without allocating; the cookie is the only String created per document.
+ */
+@Component
+public class UserTagDecoder {
+
+    private static final int TIME = 1;
+    private static final int COOKIE = 1 << 1;
+    private static final int COUNTRY = 1 << 2;
+    private static final int DEVICE = 1 << 3;
+    private static final int ACTION = 1 << 4;
+    private static final int ORIGIN = 1 << 5;
+    private static final int PRODUCT_ID = 1 << 6;
+    private static final int BRAND = 1 << 7;
+    private static final int CATEGORY = 1 << 8;
+    private static final int PRICE = 1 << 9;
+    private static final int ALL_FIELDS = (1 << 10) - 1;
+
+    private static final Device[] DEVICES = Device.values();
+    private static final Action[] ACTIONS = Action.values();
+
+    private final JsonFactory jsonFactory;
+    private final Dictionaries dictionaries;
+
+    @Autowired
+    public UserTagDecoder(ObjectMapper objectMapper, Dictionaries dictionaries) {
+        this.jsonFactory = objectMapper.getFactory();
+        this.dictionaries = dictionaries;
+    }
+
+    /**
+     * Returns {@code null} for an empty body.
+     */
+    public EncodedUserTag decode(InputStream body) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            return decode(parser);
+        }
+    }
+
+    public EncodedUserTag decode(byte[] body, int offset, int length) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body, offset, length)) {
+            return decode(parser);
+        }
+    }
+
+    private EncodedUserTag decode(JsonParser parser) throws IOException {
+        if (parser.nextToken() == null) {
+            return null;
+        }
+        expect(parser, JsonToken.START_OBJECT);
+        EncodedUserTag tag = new EncodedUserTag();
+        int seen = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "time":
+                    tag.setTime(Timestamps.parseMillis(text(parser, value), parser.getTextOffset(),
+                            parser.getTextLength()));
+                    seen |= TIME;
+                    break;
+                case "cookie":
+                    text(parser, value);
+                    tag.setCookie(parser.getText());
+                    seen |= COOKIE;
+                    break;
+                case "country":
+                    tag.setCountry(id(parser, value, dictionaries.countries()));
+                    seen |= COUNTRY;
+                    break;
+                case "device":
+                    tag.setDevice(DEVICES[ordinal(parser, value, DEVICES)]);
+                    seen |= DEVICE;
+                    break;
+                case "action":
+                    tag.setAction(ACTIONS[ordinal(parser, value, ACTIONS)]);
+                    seen |= ACTION;
+                    break;
+                case "origin":
+                    tag.setOrigin(id(parser, value, dictionaries.origins()));
+                    seen |= ORIGIN;
+                    break;
+                case "product_info":
+                    expect(parser, JsonToken.START_OBJECT);
+                    seen |= decodeProduct(parser, tag);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        expect(parser, JsonToken.END_OBJECT);
+        if (seen != ALL_FIELDS) {
+            throw new JsonParseException(parser, "Missing user_tag fields, mask of present fields: "
+                    + Integer.toBinaryString(seen));
+        }
+        return tag;
+    }
+
+    private int decodeProduct(JsonParser parser, EncodedUserTag tag) throws IOException {
+        int seen = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "product_id":
+                    tag.setProductId(intValue(parser, value));
+                    seen |= PRODUCT_ID;
+                    break;
+                case "brand_id":
+                    tag.setBrand(id(parser, value, dictionaries.brands()));
+                    seen |= BRAND;
+                    break;
+                case "category_id":
+                    tag.setCategory(id(parser, value, dictionaries.categories()));
+                    seen |= CATEGORY;
+                    break;
+                case "price":
+                    tag.setPrice(intValue(parser, value));
+                    seen |= PRICE;
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        expect(parser, JsonToken.END_OBJECT);
+        return seen;
+    }
+
+    private static char[] text(JsonParser parser, JsonToken value) throws IOException {
+        if (value != JsonToken.VALUE_STRING) {
+            throw new JsonParseException(parser, "Expected a string, got " + value);
+        }
+        return parser.getTextCharacters();
+    }
+
+    private static int id(JsonParser parser, JsonToken value, Dictionary dictionary) throws IOException {
+        return dictionary.idOf(text(parser, value), parser.getTextOffset(), parser.getTextLength());
+    }
+
+    private static int intValue(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getIntValue();
+        }
+        char[] chars = text(parser, value);
+        int offset = parser.getTextOffset();
+        int end = offset + parser.getTextLength();
+        boolean negative = end > offset && chars[offset] == '-';
+        long result = 0;
+        for (int i = negative ? offset + 1 : offset; i < end; i++) {
+            int digit = chars[i] - '0';
+            if (digit < 0 || digit > 9 || (result = result * 10 + digit) > Integer.MAX_VALUE + 1L) {
+                throw new JsonParseException(parser, "Expected an int, got " + parser.getText());
+            }
+        }
+        if (end == (negative ? offset + 1 : offset) || (!negative && result > Integer.MAX_VALUE)) {
+            throw new JsonParseException(parser, "Expected an int, got " + parser.getText());
+        }
+        return (int) (negative ? -result : result);
+    }
+
+    private static int ordinal(JsonParser parser, JsonToken value, Enum<?>[] constants) throws IOException {
+        char[] chars = text(parser, value);
+        int offset = parser.getTextOffset();
+        int length = parser.getTextLength();
+        for (Enum<?> constant : constants) {
+            if (matches(constant.name(), chars, offset, length)) {
+                return constant.ordinal();
+            }
+        }
+        throw new JsonParseException(parser, "Unexpected value: " + parser.getText());
+    }
+
+    private static boolean matches(String name, char[] chars, int offset, int length) {
+        if (name.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(i) != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void expect(JsonParser parser, JsonToken token) throws IOException {
+        if (parser.currentToken() != token) {
+            throw new JsonParseException(parser, "Expected " + token + ", got " + parser.currentToken());
+        }
+    }
+}
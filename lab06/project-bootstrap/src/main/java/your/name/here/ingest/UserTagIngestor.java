@@ -0,0 +1,109 @@
+package your.name.here.ingest;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import your.name.here.aggregate.AggregateCube;
+import your.name.here.encoding.EncodedUserTag;
+import your.name.here.metrics.Metrics;
+import your.name.here.profile.ProfileStore;
+import your.name.here.replication.Replicator;
+import your.name.here.snapshot.SnapshotManager;
+import your.name.here.wal.WriteAheadLog;
+
+/**
+ * Applies accepted user tags to the profile store and the aggregate cube, logging them when the write-ahead log is
+ * enabled, and rebuilds both from the latest snapshot and the log on startup.
+ *
+ * <p>A tag is added to the profile store before it is appended to the log, so every logged record is already in
+ * the store when a snapshot starts, while the cube is updated right after the append, before a checkpoint can
+ * capture it (see {@link WriteAheadLog#append}). In a replicated cluster the tag is also queued for the replica, which does not
+ * delay the returned future.
+ */
+@Component
+public class UserTagIngestor {
+
+    private static final Logger log = LoggerFactory.getLogger(UserTagIngestor.class);
+
+    private static final CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
+
+    @Autowired
+    private ProfileStore profileStore;
+
+    @Autowired
+    private AggregateCube aggregateCube;
+
+    @Autowired(required = false)
+    private WriteAheadLog writeAheadLog;
+
+    @Autowired(required = false)
+    private SnapshotManager snapshotManager;
+
+    @Autowired(required = false)
+    private Replicator replicator;
+
+    @Autowired
+    private Metrics metrics;
+
+    @PostConstruct
+    public void recover() throws IOException, InterruptedException {
+        if (writeAheadLog == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        long snapshotLsn = snapshotManager != null ? snapshotManager.restore() : 0;
+        long[] replayed = new long[1];
+        writeAheadLog.replay(snapshotLsn + 1, tag -> {
+            if (snapshotLsn > 0) {
+                profileStore.restore(tag);
+            } else {
+                profileStore.add(tag);
+            }
+            aggregateCube.add(tag);
+            replayed[0]++;
+        });
+        log.info("Ready in {} ms: snapshot up to record {}, replayed {} user tags from the write-ahead log",
+                (System.nanoTime() - start) / 1_000_000, snapshotLsn, replayed[0]);
+        if (snapshotManager != null) {
+            snapshotManager.schedule();
+        }
+    }
+
+    /**
+     * Applies the tag and returns a future completed once it is durable.
+     */
+    public CompletableFuture<Void> ingest(EncodedUserTag tag) {
+        if (replicator != null) {
+            replicator.replicate(tag);
+        }
+        return apply(tag);
+    }
+
+    /**
+     * Applies a tag accepted by the replica while it stood in for this node; the replica already holds it.
+     */
+    public CompletableFuture<Void> ingestHandedBack(EncodedUserTag tag) {
+        return apply(tag);
+    }
+
+    private CompletableFuture<Void> apply(EncodedUserTag tag) {
+        long start = System.nanoTime();
+        profileStore.add(tag);
+        CompletableFuture<Void> durable;
+        if (writeAheadLog == null) {
+            aggregateCube.add(tag);
+            durable = DONE;
+        } else {
+            durable = writeAheadLog.append(tag, aggregateCube::add);
+        }
+        metrics.record(Metrics.Stage.STORE_WRITE, start);
+        return durable;
+    }
+}
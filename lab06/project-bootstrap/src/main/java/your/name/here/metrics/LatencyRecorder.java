@@ -0,0 +1,96 @@
+package your.name.here.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Latency distribution of an endpoint or a stage over a rolling window. {@link #record} is wait-free and does not
+ * allocate, it only bumps a counter of the {@link Recorder}'s active histogram; the histogram is swapped out and
+ * folded into the current slot of the window when the slot is rotated or the window is read. The window keeps
+ * {@link #SLOTS} slots, so it covers between {@code SLOTS - 1} and {@code SLOTS} rotation periods, while the count
+ * and sum cover everything recorded since startup.
+ *
+ * <p>Values are kept with two significant digits up to {@link #MAX_TRACKED_NANOS}, longer ones are recorded as
+ * that maximum.
+ */
+public final class LatencyRecorder {
+
+    static final long MAX_TRACKED_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private static final int SLOTS = 6;
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final Recorder recorder = new Recorder(MAX_TRACKED_NANOS, SIGNIFICANT_DIGITS);
+    private final Histogram[] window = new Histogram[SLOTS];
+    private final Histogram merged = new Histogram(MAX_TRACKED_NANOS, SIGNIFICANT_DIGITS);
+    private Histogram interval;
+    private int slot;
+    private long count;
+    private double sumNanos;
+
+    public LatencyRecorder() {
+        for (int i = 0; i < SLOTS; i++) {
+            window[i] = new Histogram(MAX_TRACKED_NANOS, SIGNIFICANT_DIGITS);
+        }
+    }
+
+    /**
+     * Records the time since {@code startNanos}, a value of {@link System#nanoTime}, and returns the current one.
+     */
+    public long record(long startNanos) {
+        long now = System.nanoTime();
+        recorder.recordValue(Math.min(Math.max(now - startNanos, 0), MAX_TRACKED_NANOS));
+        return now;
+    }
+
+    /**
+     * Starts the next slot of the window, dropping the oldest one.
+     */
+    synchronized void rotate() {
+        drain();
+        slot = (slot + 1) % SLOTS;
+        window[slot].reset();
+    }
+
+    synchronized Snapshot snapshot() {
+        drain();
+        merged.reset();
+        for (Histogram histogram : window) {
+            merged.add(histogram);
+        }
+        return new Snapshot(merged.getValueAtPercentile(50), merged.getValueAtPercentile(99),
+                merged.getValueAtPercentile(99.9), merged.getMaxValue(), count, sumNanos);
+    }
+
+    private void drain() {
+        interval = recorder.getIntervalHistogram(interval);
+        window[slot].add(interval);
+        count += interval.getTotalCount();
+        sumNanos += interval.getMean() * interval.getTotalCount();
+    }
+
+    /**
+     * Quantiles and maximum over the window, count and sum since startup, all in nanoseconds; the sum is as
+     * precise as the recorded values.
+     */
+    static final class Snapshot {
+
+        final long p50;
+        final long p99;
+        final long p999;
+        final long max;
+        final long count;
+        final double sum;
+
+        private Snapshot(long p50, long p99, long p999, long max, long count, double sum) {
+            this.p50 = p50;
+            this.p99 = p99;
+            this.p999 = p999;
+            this.max = max;
+            this.count = count;
+            this.sum = sum;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package your.name.here.metrics;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import your.name.here.admission.AdmissionFilter;
+import your.name.here.aggregate.AggregateCache;
+import your.name.here.aggregate.AggregateCacheReport;
+import your.name.here.aggregate.AggregateCube;
+import your.name.here.profile.ProfileStore;
+import your.name.here.replication.ReplicationReport;
+import your.name.here.replication.Replicator;
+import your.name.here.retention.RetentionManager;
+import your.name.here.verify.AnswerVerifier;
+import your.name.here.verify.VerifierReport;
+
+/**
+ * {@link Metrics} and the counters of the {@code /debug} endpoints in the Prometheus text format. Latencies are
+ * summaries in seconds whose quantiles cover the last minute; served by both the MVC and the WebFlux stack.
+ */
+@RestController
+public class MetricsController {
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    @Autowired
+    private Metrics metrics;
+
+    @Autowired
+    private AnswerVerifier answerVerifier;
+
+    @Autowired
+    private AggregateCube aggregateCube;
+
+    @Autowired
+    private AggregateCache aggregateCache;
+
+    @Autowired
+    private ProfileStore profileStore;
+
+    @Autowired
+    private RetentionManager retentionManager;
+
+    @Autowired(required = false)
+    private Replicator replicator;
+
+    @Autowired(required = false)
+    private AdmissionFilter admissionFilter;
+
+    @GetMapping(value = "/metrics", produces = CONTENT_TYPE)
+    public String metrics() {
+        StringBuilder text = new StringBuilder(8192);
+        Metrics.Endpoint[] endpoints = Metrics.Endpoint.values();
+        LatencyRecorder.Snapshot[] requests = new LatencyRecorder.Snapshot[endpoints.length];
+        family(text, "allezon_request_seconds", "summary", "Latency of the public endpoints");
+        for (Metrics.Endpoint endpoint : endpoints) {
+            requests[endpoint.ordinal()] = metrics.latency(endpoint);
+            summary(text, "allezon_request_seconds", "endpoint", endpoint.label(), requests[endpoint.ordinal()]);
+        }
+        family(text, "allezon_request_max_seconds", "gauge", "Longest request of the last minute");
+        for (Metrics.Endpoint endpoint : endpoints) {
+            sample(text, "allezon_request_max_seconds", "endpoint=\"" + endpoint.label() + "\"",
+                    requests[endpoint.ordinal()].max / NANOS_PER_SECOND);
+        }
+        family(text, "allezon_requests_in_flight", "gauge", "Requests being handled");
+        for (Metrics.Endpoint endpoint : endpoints) {
+            sample(text, "allezon_requests_in_flight", "endpoint=\"" + endpoint.label() + "\"",
+                    metrics.inFlight(endpoint));
+        }
+        family(text, "allezon_requests_rejected_total", "counter", "Requests answered with an error status");
+        for (Metrics.Endpoint endpoint : endpoints) {
+            sample(text, "allezon_requests_rejected_total", "endpoint=\"" + endpoint.label() + "\",status=\"4xx\"",
+                    metrics.clientErrors(endpoint));
+            sample(text, "allezon_requests_rejected_total", "endpoint=\"" + endpoint.label() + "\",status=\"5xx\"",
+                    metrics.serverErrors(endpoint));
+        }
+        if (admissionFilter != null) {
+            family(text, "allezon_admission_rejected_total", "counter", "Requests answered 503 by admission control");
+            for (Metrics.Endpoint endpoint : endpoints) {
+                String labels = "endpoint=\"" + endpoint.label() + "\"";
+                sample(text, "allezon_admission_rejected_total", labels + ",when=\"arrival\"",
+                        admissionFilter.rejectedOnArrival(endpoint));
+                sample(text, "allezon_admission_rejected_total", labels + ",when=\"queued\"",
+                        admissionFilter.rejectedQueued(endpoint));
+            }
+            gauge(text, "allezon_admission_running", "Requests running their handlers", admissionFilter.running());
+            gauge(text, "allezon_admission_queued", "Requests waiting for a handler", admissionFilter.queued());
+        }
+        Metrics.Stage[] stages = Metrics.Stage.values();
+        LatencyRecorder.Snapshot[] stageLatencies = new LatencyRecorder.Snapshot[stages.length];
+        family(text, "allezon_stage_seconds", "summary", "Latency of the stages of request handling");
+        for (Metrics.Stage stage : stages) {
+            stageLatencies[stage.ordinal()] = metrics.latency(stage);
+            summary(text, "allezon_stage_seconds", "stage", stage.label(), stageLatencies[stage.ordinal()]);
+        }
+        family(text, "allezon_stage_max_seconds", "gauge", "Longest stage of the last minute");
+        for (Metrics.Stage stage : stages) {
+            sample(text, "allezon_stage_max_seconds", "stage=\"" + stage.label() + "\"",
+                    stageLatencies[stage.ordinal()].max / NANOS_PER_SECOND);
+        }
+
+        VerifierReport verifier = answerVerifier.report();
+        counter(text, "allezon_verifier_checked_total", "Answers checked against the expected ones",
+                verifier.getChecked());
+        counter(text, "allezon_verifier_dropped_total", "Answers not checked for a full queue", verifier.getDropped());
+        family(text, "allezon_verifier_mismatches_total", "counter", "Answers differing from the expected ones");
+        for (Map.Entry<String, Long> mismatches : verifier.getMismatches().entrySet()) {
+            sample(text, "allezon_verifier_mismatches_total", "kind=\"" + mismatches.getKey() + "\"",
+                    mismatches.getValue());
+        }
+
+        AggregateCacheReport cache = aggregateCache.report();
+        gauge(text, "allezon_aggregate_cache_entries", "Bucket values in the aggregates cache", cache.getEntries());
+        counter(text, "allezon_aggregate_cache_hits_total", "Buckets answered from the cache", cache.getHits());
+        counter(text, "allezon_aggregate_cache_misses_total", "Buckets computed", cache.getMisses());
+        counter(text, "allezon_aggregate_cache_evicted_minutes_total", "Minutes evicted from the cache",
+                cache.getEvictedMinutes());
+        counter(text, "allezon_aggregates_late_events_total", "Events too late for a sealed minute",
+                aggregateCube.lateEvents());
+        long watermark = aggregateCube.watermark();
+        if (watermark != Long.MIN_VALUE) {
+            gauge(text, "allezon_aggregates_watermark_seconds", "Event-time watermark", watermark / 1000.0);
+        }
+
+        gauge(text, "allezon_retention_cookies", "Cookies with events in the retention window",
+                profileStore.cookies());
+        long horizon = retentionManager.horizon();
+        if (horizon != Long.MIN_VALUE) {
+            gauge(text, "allezon_retention_horizon_seconds", "Event time data is kept from", horizon / 1000.0);
+        }
+
+        if (replicator != null) {
+            ReplicationReport replication = replicator.report();
+            gauge(text, "allezon_replication_lag_records", "Records not yet acknowledged by the replica",
+                    replication.getLagRecords());
+            gauge(text, "allezon_replication_lag_seconds", "Age of the oldest record not yet acknowledged",
+                    replication.getLagMillis() / 1000.0);
+            counter(text, "allezon_replication_dropped_records_total", "Records dropped for a full buffer",
+                    replication.getDroppedRecords());
+            counter(text, "allezon_replication_missed_records_total", "Records of the primary the replica missed",
+                    replication.getMissedRecords());
+            gauge(text, "allezon_replication_stands_in", "Whether the replica serves the primary's shard",
+                    replication.isStandsIn() ? 1 : 0);
+            gauge(text, "allezon_replication_hand_back_records", "Records not yet handed back to the primary",
+                    replication.getHandBackRecords());
+        }
+        return text.toString();
+    }
+
+    private static void summary(StringBuilder text, String name, String label, String value,
+            LatencyRecorder.Snapshot latency) {
+        String labels = label + "=\"" + value + "\"";
+        sample(text, name, labels + ",quantile=\"0.5\"", latency.p50 / NANOS_PER_SECOND);
+        sample(text, name, labels + ",quantile=\"0.99\"", latency.p99 / NANOS_PER_SECOND);
+        sample(text, name, labels + ",quantile=\"0.999\"", latency.p999 / NANOS_PER_SECOND);
+        sample(text, name + "_sum", labels, latency.sum / NANOS_PER_SECOND);
+        sample(text, name + "_count", labels, latency.count);
+    }
+
+    private static void counter(StringBuilder text, String name, String help, long value) {
+        family(text, name, "counter", help);
+        sample(text, name, null, value);
+    }
+
+    private static void gauge(StringBuilder text, String name, String help, double value) {
+        family(text, name, "gauge", help);
+        sample(text, name, null, value);
+    }
+
+    private static void family(StringBuilder text, String name, String type, String help) {
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        text.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder text, String name, String labels, double value) {
+        text.append(name);
+        if (labels != null) {
+            text.append('{').append(labels).append('}');
+        }
+        text.append(' ');
+        if (value == (long) value) {
+            text.append((long) value);
+        } else {
+            text.append(value);
+        }
+        text.append('\n');
+    }
+}
@@ -0,0 +1,37 @@
+package your.name.here.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Times the public endpoints on the WebFlux stack, up to the completion or cancellation of the response.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveMetricsFilter implements WebFilter {
+
+    @Autowired
+    private Metrics metrics;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        Metrics.Endpoint endpoint = Metrics.Endpoint.of(exchange.getRequest().getPath().value());
+        if (endpoint == null) {
+            return chain.filter(exchange);
+        }
+        long start = metrics.begin(endpoint);
+        return chain.filter(exchange).doFinally(signal -> {
+            // an error is turned into a response by the exception handlers after the filters
+            Integer status = signal == SignalType.ON_ERROR ? Integer.valueOf(500)
+                    : exchange.getResponse().getRawStatusCode();
+            metrics.end(endpoint, start, status == null ? 200 : status);
+        });
+    }
+}
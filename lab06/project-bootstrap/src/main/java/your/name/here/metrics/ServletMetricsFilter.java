@@ -0,0 +1,83 @@
+package your.name.here.metrics;
+
+import java.io.IOException;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Times the public endpoints on the MVC stack, up to the completion of the asynchronous response of
+ * {@code /user_tags}. Runs before the other filters of the application, so the time includes their work.
+ */
+@Component
+@Order(ServletMetricsFilter.ORDER)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ServletMetricsFilter extends OncePerRequestFilter {
+
+    public static final int ORDER = 0;
+
+    @Autowired
+    private Metrics metrics;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Metrics.Endpoint endpoint = Metrics.Endpoint.of(request.getRequestURI());
+        if (endpoint == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        long start = metrics.begin(endpoint);
+        boolean completed = false;
+        try {
+            chain.doFilter(request, response);
+            completed = true;
+        } finally {
+            if (completed && request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new Completion(endpoint, start));
+            } else {
+                metrics.end(endpoint, start, completed ? response.getStatus() : 500);
+            }
+        }
+    }
+
+    private final class Completion implements AsyncListener {
+
+        private final Metrics.Endpoint endpoint;
+        private final long start;
+
+        private Completion(Metrics.Endpoint endpoint, long start) {
+            this.endpoint = endpoint;
+            this.start = start;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            metrics.end(endpoint, start, ((HttpServletResponse) event.getSuppliedResponse()).getStatus());
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // listeners are dropped when a dispatched request goes asynchronous again
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
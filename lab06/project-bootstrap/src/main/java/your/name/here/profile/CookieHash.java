@@ -0,0 +1,87 @@
+package your.name.here.profile;
+
+/**
+ * 128-bit hash of a cookie, MurmurHash3 x64_128 over its UTF-16 code units, four per 64-bit lane. Computed once per
+ * request and used both as the {@link CookieIndex} key and to pick the lock stripe; collisions of 128-bit keys are
+ * not expected among a few million cookies. Neither half is ever zero, which {@link CookieIndex} reserves for free
+ * slots.
+ */
+public final class CookieHash {
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private final long high;
+    private final long low;
+
+    private CookieHash(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    public static CookieHash of(CharSequence cookie) {
+        int length = cookie.length();
+        long h1 = 0;
+        long h2 = 0;
+        int i = 0;
+        for (; i + 8 <= length; i += 8) {
+            long k1 = lane(cookie, i, 4);
+            long k2 = lane(cookie, i + 4, 4);
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27) + h2;
+            h1 = h1 * 5 + 0x52dce729;
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31) + h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+        int tail = length - i;
+        if (tail > 4) {
+            h2 ^= mixK2(lane(cookie, i + 4, tail - 4));
+        }
+        if (tail > 0) {
+            h1 ^= mixK1(lane(cookie, i, Math.min(tail, 4)));
+        }
+        h1 ^= length * 2L;
+        h2 ^= length * 2L;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+        return new CookieHash(h1 == 0 ? 1 : h1, h2 == 0 ? 1 : h2);
+    }
+
+    public long high() {
+        return high;
+    }
+
+    public long low() {
+        return low;
+    }
+
+    private static long lane(CharSequence cookie, int start, int chars) {
+        long lane = 0;
+        for (int i = 0; i < chars; i++) {
+            lane |= (long) cookie.charAt(start + i) << (16 * i);
+        }
+        return lane;
+    }
+
+    private static long mixK1(long k1) {
+        return Long.rotateLeft(k1 * C1, 31) * C2;
+    }
+
+    private static long mixK2(long k2) {
+        return Long.rotateLeft(k2 * C2, 33) * C1;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -0,0 +1,306 @@
+package your.name.here.profile;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Concurrent map from {@link CookieHash}es to values, an open-addressing table with linear probing over a
+ * {@code long[]} of key halves and an array of values, so an entry costs 20 bytes per slot instead of a
+ * {@code ConcurrentHashMap} node plus its {@code String} key. Keys are never stored as strings.
+ *
+ * <p>Reads take no lock. A slot is claimed by a CAS of the high key half, then the low half and the value are
+ * published in that order, and a slot never goes back to free: removal leaves a tombstone that only the same key
+ * can take again. A reader therefore stops at the first free slot, and one racing a claim just sees the slot as
+ * another key's. Writes of one key are serialized by one of {@link #STRIPES} locks.
+ *
+ * <p>Once the claimed slots, live or tombstones, pass {@link #MAX_LOAD} the table is replaced by one sized for twice
+ * the live entries: doubled when they fill it, rehashed at the same or a smaller capacity when tombstones left by
+ * removals dominate, so churn with a steady number of keys does not grow it. The entries are copied without stopping
+ * writers: the new table is installed under all stripe locks, which takes as long as locking them, and the entries
+ * are moved in chunks of {@link #MIGRATION_CHUNK} slots by the writes that follow, each moving one chunk. Until the
+ * move is done new keys go to the new table, readers follow a moved or missing key from the old table to the new one
+ * and writers look for a key in both. Tombstones are left behind.
+ */
+public class CookieIndex<V> {
+
+    private static final VarHandle KEYS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(Object[].class);
+    private static final Object TOMBSTONE = new Object();
+    private static final Object MOVED = new Object();
+
+    private static final int STRIPES = 64;
+    private static final double MAX_LOAD = 0.7;
+    private static final int MIGRATION_CHUNK = 1024;
+    private static final int MIN_CAPACITY = MIGRATION_CHUNK;
+
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    private final AtomicInteger size = new AtomicInteger();
+
+    private volatile Table table;
+    private volatile Table migrating;
+
+    public CookieIndex(int expectedSize) {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        table = new Table(capacityFor(expectedSize));
+    }
+
+    public V get(CookieHash key) {
+        Table current = table;
+        Table old = migrating;
+        return find(old != null ? old : current, key.high(), key.low(), true);
+    }
+
+    /**
+     * Maps the key to {@code value} unless it already has a value, which is returned then.
+     */
+    public V putIfAbsent(CookieHash key, V value) {
+        Table full = null;
+        ReentrantLock lock = lockFor(key.low());
+        lock.lock();
+        try {
+            Table old = migrating;
+            V existing = old != null ? find(old, key.high(), key.low(), false) : null;
+            if (existing == null) {
+                existing = insert(table, key.high(), key.low(), value);
+            }
+            if (existing != null) {
+                return existing;
+            }
+            size.incrementAndGet();
+            if (table.used.get() > table.threshold) {
+                full = table;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (full != null) {
+            resize(full);
+        }
+        migrate();
+        return null;
+    }
+
+    /**
+     * Removes the key if it maps to {@code value}.
+     */
+    public boolean remove(CookieHash key, V value) {
+        ReentrantLock lock = lockFor(key.low());
+        lock.lock();
+        try {
+            Table old = migrating;
+            for (Table t = old != null ? old : table; t != null; t = t.next) {
+                int slot = slot(t, key.high(), key.low());
+                if (slot >= 0 && VALUES.getAcquire(t.values, slot) == value) {
+                    VALUES.setRelease(t.values, slot, TOMBSTONE);
+                    size.decrementAndGet();
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Passes every value to the consumer, those added or removed meanwhile may or may not be. Finishes a resize in
+     * progress first.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(Consumer<V> consumer) {
+        while (migrating != null) {
+            if (!migrate()) {
+                Thread.onSpinWait();
+            }
+        }
+        Table t = table;
+        for (int slot = 0; slot <= t.mask; slot++) {
+            long high = (long) KEYS.getAcquire(t.keys, 2 * slot);
+            long low = (long) KEYS.getAcquire(t.keys, 2 * slot + 1);
+            if (high == 0 || low == 0) {
+                continue;
+            }
+            Object value = VALUES.getAcquire(t.values, slot);
+            if (value == MOVED) {
+                // moved on by a resize that started since, it is not in the new table under another slot
+                value = find(t.next, high, low, true);
+            }
+            if (value != null && value != TOMBSTONE && value != MOVED) {
+                consumer.accept((V) value);
+            }
+        }
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    int capacity() {
+        return table.mask + 1;
+    }
+
+    /**
+     * Returns the live value of the key in {@code t} or, when {@code follow}, in the tables it was resized into.
+     */
+    @SuppressWarnings("unchecked")
+    private V find(Table t, long high, long low, boolean follow) {
+        while (t != null) {
+            int slot = slot(t, high, low);
+            if (slot >= 0) {
+                Object value = VALUES.getAcquire(t.values, slot);
+                if (value != null && value != TOMBSTONE && value != MOVED) {
+                    return (V) value;
+                }
+            }
+            t = follow ? t.next : null;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the slot of the key in {@code t}, {@code -1} when it has none.
+     */
+    private static int slot(Table t, long high, long low) {
+        for (int slot = (int) high & t.mask; ; slot = (slot + 1) & t.mask) {
+            long slotHigh = (long) KEYS.getAcquire(t.keys, 2 * slot);
+            if (slotHigh == 0) {
+                return -1;
+            }
+            if (slotHigh == high && (long) KEYS.getAcquire(t.keys, 2 * slot + 1) == low) {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * Puts the value into the key's slot, claiming a free one if the key has none, and returns the key's live value
+     * instead if it has one. Called under the key's stripe lock.
+     */
+    @SuppressWarnings("unchecked")
+    private V insert(Table t, long high, long low, Object value) {
+        for (int slot = (int) high & t.mask; ; slot = (slot + 1) & t.mask) {
+            long slotHigh = (long) KEYS.getAcquire(t.keys, 2 * slot);
+            if (slotHigh == 0) {
+                if (!KEYS.compareAndSet(t.keys, 2 * slot, 0L, high)) {
+                    // claimed by a key of another stripe, look at the slot again
+                    slot = (slot - 1) & t.mask;
+                    continue;
+                }
+                KEYS.setRelease(t.keys, 2 * slot + 1, low);
+                VALUES.setRelease(t.values, slot, value);
+                t.used.incrementAndGet();
+                return null;
+            }
+            if (slotHigh == high && (long) KEYS.getAcquire(t.keys, 2 * slot + 1) == low) {
+                Object current = VALUES.getAcquire(t.values, slot);
+                if (current != null && current != TOMBSTONE && current != MOVED) {
+                    return (V) current;
+                }
+                VALUES.setRelease(t.values, slot, value);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Installs a table for twice the live entries in place of {@code full} unless that happened already.
+     */
+    private void resize(Table full) {
+        while (migrating != null) {
+            // the previous resize must be done before the next one; writes finish it long before that
+            if (!migrate()) {
+                Thread.onSpinWait();
+            }
+        }
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+        try {
+            if (table == full && migrating == null) {
+                Table resized = new Table(capacityFor(2 * size.get()));
+                full.next = resized;
+                migrating = full;
+                table = resized;
+            }
+        } finally {
+            for (ReentrantLock lock : locks) {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Moves the next chunk of a resize in progress, returns {@code false} when there is none left to take.
+     */
+    private boolean migrate() {
+        Table old = migrating;
+        if (old == null) {
+            return false;
+        }
+        int chunk = old.nextChunk.getAndIncrement();
+        if (chunk >= old.chunks) {
+            return false;
+        }
+        Table resized = old.next;
+        for (int slot = chunk * MIGRATION_CHUNK; slot < (chunk + 1) * MIGRATION_CHUNK; slot++) {
+            long high = (long) KEYS.getAcquire(old.keys, 2 * slot);
+            if (high == 0) {
+                continue;
+            }
+            long low = (long) KEYS.getAcquire(old.keys, 2 * slot + 1);
+            ReentrantLock lock = lockFor(low);
+            lock.lock();
+            try {
+                Object value = VALUES.getAcquire(old.values, slot);
+                if (value != null && value != TOMBSTONE && value != MOVED) {
+                    insert(resized, high, low, value);
+                    VALUES.setRelease(old.values, slot, MOVED);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (old.movedChunks.incrementAndGet() == old.chunks) {
+            migrating = null;
+        }
+        return true;
+    }
+
+    private static int capacityFor(int entries) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * MAX_LOAD < entries) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+
+    private ReentrantLock lockFor(long low) {
+        return locks[(int) (low >>> 32) & (STRIPES - 1)];
+    }
+
+    private static final class Table {
+
+        private final long[] keys;
+        private final Object[] values;
+        private final int mask;
+        private final int threshold;
+        private final int chunks;
+        private final AtomicInteger used = new AtomicInteger();
+        private final AtomicInteger nextChunk = new AtomicInteger();
+        private final AtomicInteger movedChunks = new AtomicInteger();
+        private volatile Table next;
+
+        private Table(int capacity) {
+            keys = new long[2 * capacity];
+            values = new Object[capacity];
+            mask = capacity - 1;
+            threshold = (int) (capacity * MAX_LOAD);
+            chunks = capacity / MIGRATION_CHUNK;
+        }
+    }
+}
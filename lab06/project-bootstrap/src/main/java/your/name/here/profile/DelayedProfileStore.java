@@ -0,0 +1,63 @@
+package your.name.here.profile;
+
+import java.util.concurrent.TimeUnit;
+
+import your.name.here.domain.TimeRange;
+import your.name.here.encoding.EncodedUserTag;
+
+/**
+ * Profile store making {@link #add} and {@link #read} sleep for a fixed time before delegating, standing in for a
+ * remote store such as Aerospike when comparing request thread models. Replaying the log goes through {@link #add}
+ * as well, so benchmarks should start from an empty state directory.
+ */
+public class DelayedProfileStore implements ProfileStore {
+
+    private final ProfileStore delegate;
+    private final long delayMillis;
+
+    public DelayedProfileStore(ProfileStore delegate, long delayMillis) {
+        this.delegate = delegate;
+        this.delayMillis = delayMillis;
+    }
+
+    @Override
+    public void add(EncodedUserTag tag) {
+        delay();
+        delegate.add(tag);
+    }
+
+    @Override
+    public void restore(EncodedUserTag tag) {
+        delegate.restore(tag);
+    }
+
+    @Override
+    public void read(String cookie, TimeRange timeRange, int limit, ProfileSink sink) {
+        delay();
+        delegate.read(cookie, timeRange, limit, sink);
+    }
+
+    @Override
+    public void export(int part, int parts, ProfileSink sink) {
+        delegate.export(part, parts, sink);
+    }
+
+    @Override
+    public int cookies() {
+        return delegate.cookies();
+    }
+
+    @Override
+    public void expireBefore(long horizon) {
+        delegate.expireBefore(horizon);
+    }
+
+    private void delay() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(delayMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while simulating store latency", e);
+        }
+    }
+}
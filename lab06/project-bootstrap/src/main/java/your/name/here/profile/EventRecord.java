@@ -0,0 +1,75 @@
+package your.name.here.profile;
+
+import java.nio.ByteBuffer;
+
+import your.name.here.domain.Action;
+import your.name.here.domain.Device;
+import your.name.here.encoding.EncodedUserTag;
+
+/**
+ * Fixed-width binary layout of a stored user tag. Low-cardinality strings are kept as unsigned 16-bit dictionary
+ * ids, enums as ordinals, the cookie is not stored at all because it is the profile key.
+ */
+final class EventRecord {
+
+    static final int SIZE = 26;
+
+    private static final int TIME = 0;
+    private static final int PRODUCT_ID = 8;
+    private static final int PRICE = 12;
+    private static final int COUNTRY = 16;
+    private static final int ORIGIN = 18;
+    private static final int BRAND = 20;
+    private static final int CATEGORY = 22;
+    private static final int DEVICE = 24;
+    private static final int ACTION = 25;
+
+    private static final Device[] DEVICES = Device.values();
+    private static final Action[] ACTIONS = Action.values();
+
+    private EventRecord() {
+    }
+
+    static void write(ByteBuffer buffer, int offset, EncodedUserTag tag) {
+        buffer.putLong(offset + TIME, tag.getTime());
+        buffer.putInt(offset + PRODUCT_ID, tag.getProductId());
+        buffer.putInt(offset + PRICE, tag.getPrice());
+        buffer.putShort(offset + COUNTRY, (short) tag.getCountry());
+        buffer.putShort(offset + ORIGIN, (short) tag.getOrigin());
+        buffer.putShort(offset + BRAND, (short) tag.getBrand());
+        buffer.putShort(offset + CATEGORY, (short) tag.getCategory());
+        buffer.put(offset + DEVICE, (byte) tag.getDevice().ordinal());
+        buffer.put(offset + ACTION, (byte) tag.getAction().ordinal());
+    }
+
+    static long time(ByteBuffer buffer, int offset) {
+        return buffer.getLong(offset + TIME);
+    }
+
+    /**
+     * Tells whether the record holds the same event as the tag, all fields but the cookie compared.
+     */
+    static boolean matches(ByteBuffer buffer, int offset, EncodedUserTag tag) {
+        return buffer.getLong(offset + TIME) == tag.getTime()
+                && buffer.getInt(offset + PRODUCT_ID) == tag.getProductId()
+                && buffer.getInt(offset + PRICE) == tag.getPrice()
+                && buffer.getShort(offset + COUNTRY) == (short) tag.getCountry()
+                && buffer.getShort(offset + ORIGIN) == (short) tag.getOrigin()
+                && buffer.getShort(offset + BRAND) == (short) tag.getBrand()
+                && buffer.getShort(offset + CATEGORY) == (short) tag.getCategory()
+                && buffer.get(offset + DEVICE) == (byte) tag.getDevice().ordinal()
+                && buffer.get(offset + ACTION) == (byte) tag.getAction().ordinal();
+    }
+
+    static void read(ByteBuffer buffer, int offset, EncodedUserTag target) {
+        target.setTime(buffer.getLong(offset + TIME));
+        target.setProductId(buffer.getInt(offset + PRODUCT_ID));
+        target.setPrice(buffer.getInt(offset + PRICE));
+        target.setCountry(Short.toUnsignedInt(buffer.getShort(offset + COUNTRY)));
+        target.setOrigin(Short.toUnsignedInt(buffer.getShort(offset + ORIGIN)));
+        target.setBrand(Short.toUnsignedInt(buffer.getShort(offset + BRAND)));
+        target.setCategory(Short.toUnsignedInt(buffer.getShort(offset + CATEGORY)));
+        target.setDevice(DEVICES[buffer.get(offset + DEVICE)]);
+        target.setAction(ACTIONS[buffer.get(offset + ACTION)]);
+    }
+}
@@ -0,0 +1,121 @@
+package your.name.here.profile;
+
+import your.name.here.domain.TimeRange;
+import your.name.here.encoding.EncodedUserTag;
+
+/**
+ * Bounded ring of the newest events by event time, kept in time order with the oldest at the head; an event arriving
+ * late is inserted at its place by shifting the newer ones. Reads find the end of the time range by binary search
+ * and walk back only as far as {@code limit}. The backing array grows lazily up to {@code capacity}, so cookies with
+ * a handful of events do not pay for the full window. Not thread-safe, guarded by the store stripes.
+ */
+class EventRing {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private final int capacity;
+
+    private EncodedUserTag[] events;
+    private int head;
+    private int size;
+
+    EventRing(int capacity) {
+        this.capacity = capacity;
+        this.events = new EncodedUserTag[Math.min(INITIAL_CAPACITY, capacity)];
+    }
+
+    /**
+     * Adds the event at its place in time order, dropping the oldest one when full or the event itself when it is
+     * older than all the kept ones.
+     */
+    void add(EncodedUserTag event) {
+        if (size == events.length && size < capacity) {
+            grow();
+        }
+        long time = event.getTime();
+        if (size == events.length) {
+            if (time < get(0).getTime()) {
+                return;
+            }
+            events[head] = null;
+            head = (head + 1) % events.length;
+            size--;
+        }
+        int position = size;
+        for (; position > 0 && get(position - 1).getTime() > time; position--) {
+            events[slot(position)] = get(position - 1);
+        }
+        events[slot(position)] = event;
+        size++;
+    }
+
+    void read(TimeRange timeRange, int limit, ProfileSink sink) {
+        int returned = 0;
+        for (int i = lowerBound(timeRange.getToMillis()) - 1; i >= 0 && returned < limit; i--, returned++) {
+            EncodedUserTag event = get(i);
+            if (event.getTime() < timeRange.getFromMillis()) {
+                return;
+            }
+            sink.accept(event);
+        }
+    }
+
+    /**
+     * Tells whether the ring holds an event equal to the given one in all fields but the cookie.
+     */
+    boolean contains(EncodedUserTag event) {
+        for (int i = lowerBound(event.getTime()); i < size && get(i).getTime() == event.getTime(); i++) {
+            if (same(get(i), event)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void forEach(ProfileSink sink) {
+        for (int i = 0; i < size; i++) {
+            sink.accept(get(i));
+        }
+    }
+
+    /**
+     * Returns the position, from the oldest event, of the first event not older than {@code time}.
+     */
+    private int lowerBound(long time) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (get(middle).getTime() < time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static boolean same(EncodedUserTag a, EncodedUserTag b) {
+        return a.getTime() == b.getTime() && a.getAction() == b.getAction() && a.getDevice() == b.getDevice()
+                && a.getCountry() == b.getCountry() && a.getOrigin() == b.getOrigin()
+                && a.getProductId() == b.getProductId() && a.getBrand() == b.getBrand()
+                && a.getCategory() == b.getCategory() && a.getPrice() == b.getPrice();
+    }
+
+    private EncodedUserTag get(int position) {
+        return events[slot(position)];
+    }
+
+    private int slot(int position) {
+        return (head + position) % events.length;
+    }
+
+    private void grow() {
+        EncodedUserTag[] grown = new EncodedUserTag[Math.min(events.length * 2, capacity)];
+        for (int i = 0; i < size; i++) {
+            grown[i] = get(i);
+        }
+        events = grown;
+        head = 0;
+    }
+}
@@ -0,0 +1,163 @@
+package your.name.here.profile;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import your.name.here.domain.Action;
+import your.name.here.domain.TimeRange;
+import your.name.here.encoding.EncodedUserTag;
+import your.name.here.retention.TimingWheel;
+
+/**
+ * The cookie map, striped locking and expiry shared by the profile stores keeping each cookie's VIEWs and BUYs in a
+ * container of type {@code E} on the heap; a subclass only adds to and reads from the containers. A profile is
+ * removed once its newest event falls out of the retention window and marked expired under its stripe lock, so a
+ * writer that looked it up just before retries with a new one instead of adding to a profile no longer in the map.
+ */
+abstract class HeapProfileStore<E> implements ProfileStore {
+
+    static final int STRIPES = 1024;
+
+    private static final long EXPIRY_TICK_MILLIS = 1000;
+
+    private final ConcurrentHashMap<String, Profile<E>> profiles;
+    private final StripedLocks locks = new StripedLocks(STRIPES);
+    private final TimingWheel<Profile<E>> expiry = new TimingWheel<>(EXPIRY_TICK_MILLIS);
+    private final Supplier<E> containers;
+
+    HeapProfileStore(int expectedCookies, Supplier<E> containers) {
+        this.profiles = new ConcurrentHashMap<>(expectedCookies);
+        this.containers = containers;
+    }
+
+    /**
+     * Adds the tag to the container of its action, under the lock of the stripe.
+     */
+    abstract void add(E events, EncodedUserTag tag, int stripe);
+
+    abstract boolean contains(E events, EncodedUserTag tag, int stripe);
+
+    /**
+     * Passes the events of the container within the time range, newest first and at most {@code limit} of them, to
+     * the sink; {@code tag} has the cookie set and may be filled in and passed on.
+     */
+    abstract void read(E events, Action action, TimeRange timeRange, int limit, int stripe, EncodedUserTag tag,
+            ProfileSink sink);
+
+    abstract void forEach(E events, Action action, int stripe, EncodedUserTag tag, ProfileSink sink);
+
+    @Override
+    public void add(EncodedUserTag tag) {
+        add(tag, false);
+    }
+
+    @Override
+    public void restore(EncodedUserTag tag) {
+        add(tag, true);
+    }
+
+    @Override
+    public void read(String cookie, TimeRange timeRange, int limit, ProfileSink sink) {
+        Profile<E> profile = profiles.get(cookie);
+        if (profile != null) {
+            EncodedUserTag tag = new EncodedUserTag();
+            tag.setCookie(cookie);
+            int stripe = locks.stripeFor(cookie);
+            synchronized (locks.lock(stripe)) {
+                if (!profile.expired) {
+                    read(profile.views, Action.VIEW, timeRange, limit, stripe, tag, sink);
+                    read(profile.buys, Action.BUY, timeRange, limit, stripe, tag, sink);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void export(int part, int parts, ProfileSink sink) {
+        EncodedUserTag tag = new EncodedUserTag();
+        for (Profile<E> profile : profiles.values()) {
+            if (Math.floorMod(profile.cookie.hashCode(), parts) == part) {
+                tag.setCookie(profile.cookie);
+                int stripe = locks.stripeFor(profile.cookie);
+                synchronized (locks.lock(stripe)) {
+                    if (!profile.expired) {
+                        forEach(profile.views, Action.VIEW, stripe, tag, sink);
+                        forEach(profile.buys, Action.BUY, stripe, tag, sink);
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public int cookies() {
+        return profiles.size();
+    }
+
+    @Override
+    public void expireBefore(long horizon) {
+        expiry.advance(horizon, profile -> {
+            long newest;
+            synchronized (locks.lockFor(profile.cookie)) {
+                newest = profile.newest;
+                if (newest < horizon) {
+                    profiles.remove(profile.cookie, profile);
+                    profile.expired = true;
+                }
+            }
+            if (newest >= horizon) {
+                expiry.schedule(profile, newest);
+            }
+        });
+    }
+
+    /**
+     * Adds the tag to the profile of its cookie, unless {@code unique} and the profile already has it, retrying with
+     * a new profile if the one looked up has expired in the meantime.
+     */
+    private void add(EncodedUserTag tag, boolean unique) {
+        String cookie = tag.getCookie();
+        int stripe = locks.stripeFor(cookie);
+        while (true) {
+            Profile<E> profile = profile(cookie, tag.getTime());
+            tag.setCookie(profile.cookie);
+            synchronized (locks.lock(stripe)) {
+                if (!profile.expired) {
+                    E events = tag.getAction() == Action.BUY ? profile.buys : profile.views;
+                    if (!unique || !contains(events, tag, stripe)) {
+                        add(events, tag, stripe);
+                        profile.newest = Math.max(profile.newest, tag.getTime());
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
+    private Profile<E> profile(String cookie, long time) {
+        Profile<E> profile = profiles.get(cookie);
+        if (profile == null) {
+            Profile<E> created = new Profile<>(cookie, containers.get(), containers.get());
+            profile = profiles.putIfAbsent(cookie, created);
+            if (profile == null) {
+                expiry.schedule(created, time);
+                profile = created;
+            }
+        }
+        return profile;
+    }
+
+    private static final class Profile<E> extends TimingWheel.Timer {
+        private final String cookie;
+        private final E views;
+        private final E buys;
+        private long newest = Long.MIN_VALUE;
+        private boolean expired;
+
+        private Profile(String cookie, E views, E buys) {
+            this.cookie = cookie;
+            this.views = views;
+            this.buys = buys;
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package your.name.here.profile;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import your.name.here.domain.Action;
+import your.name.here.domain.TimeRange;
+import your.name.here.encoding.EncodedUserTag;
+import your.name.here.retention.TimingWheel;
+
+/**
+ * Profile store keeping events as {@link EventRecord#SIZE}-byte records in direct memory, so the heap only holds
+ * one small descriptor per cookie and GC work does not grow with the number of stored events. Records are decoded
+ * one at a time into a reused {@link EncodedUserTag} only for the events returned in a response.
+ *
+ * <p>Each ring keeps its records in event-time order, oldest at the head, and holds the newest
+ * {@link #MAX_EVENTS_PER_ACTION} events by event time; an event arriving late is inserted at its place. A read
+ * finds the end of the time range by binary search and stops after {@code limit} records, so it costs
+ * {@code O(log n + limit)} and allocates nothing per event.
+ *
+ * <p>Profiles are found by a {@link CookieIndex} keyed by the 128-bit hash of the cookie, which is computed once per
+ * operation and also picks the lock stripe. The profile keeps the cookie as UTF-8 bytes, only needed for exports.
+ *
+ * <p>Cookies are kept on a {@link TimingWheel} at the time of their newest event; once the retention horizon
+ * passes it, the profile is removed and its blocks go back to the arena, so memory follows the cookies active in the
+ * retention window rather than all cookies ever seen.
+ *
+ * <p>Memory per 1M cookies:
+ * <ul>
+ *     <li>heap: ~205 MB (index slots, cookie bytes, two ring descriptors and the timer fields per cookie),</li>
+ *     <li>direct memory, full windows (200 VIEWs + 200 BUYs each): 400 * 26 B = 10.4 GB,</li>
+ *     <li>direct memory, 24h of traffic at 1000 events/s (86.4M events, ~86 per cookie): 2.2 GB of records,
+ *     up to ~3 GB with block size class rounding.</li>
+ * </ul>
+ * The same 86.4M events as {@code UserTagEvent} objects with their own {@code Instant}, {@code Product} and
+ * strings take roughly 350 B each, i.e. around 30 GB of heap.
+ */
+@Component
+@ConditionalOnProperty(name = "allezon.profiles.store", havingValue = "offheap", matchIfMissing = true)
+public class OffHeapProfileStore implements ProfileStore {
+
+    private static final int STRIPES = 1024;
+    private static final long EXPIRY_TICK_MILLIS = 1000;
+
+    private final CookieIndex<Profile> profiles;
+    private final StripedLocks locks = new StripedLocks(STRIPES);
+    private final RecordArena arena = new RecordArena(EventRecord.SIZE);
+    private final TimingWheel<Profile> expiry = new TimingWheel<>(EXPIRY_TICK_MILLIS);
+
+    public OffHeapProfileStore(@Value("${allezon.profiles.expected-cookies:1000000}") int expectedCookies) {
+        this.profiles = new CookieIndex<>(expectedCookies);
+    }
+
+    @Override
+    public void add(EncodedUserTag tag) {
+        CookieHash hash = CookieHash.of(tag.getCookie());
+        while (true) {
+            Profile profile = profile(tag.getCookie(), hash, tag.getTime());
+            synchronized (locks.lockFor(hash)) {
+                if (!profile.expired) {
+                    append(profile, tag);
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void restore(EncodedUserTag tag) {
+        CookieHash hash = CookieHash.of(tag.getCookie());
+        while (true) {
+            Profile profile = profile(tag.getCookie(), hash, tag.getTime());
+            synchronized (locks.lockFor(hash)) {
+                if (!profile.expired) {
+                    if (!contains(profile.ring(tag.getAction()), tag)) {
+                        append(profile, tag);
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void read(String cookie, TimeRange timeRange, int limit, ProfileSink sink) {
+        CookieHash hash = CookieHash.of(cookie);
+        Profile profile = profiles.get(hash);
+        if (profile != null) {
+            EncodedUserTag tag = new EncodedUserTag();
+            tag.setCookie(cookie);
+            synchronized (locks.lockFor(hash)) {
+                if (!profile.expired) {
+                    read(profile.views, timeRange, limit, tag, sink);
+                    read(profile.buys, timeRange, limit, tag, sink);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void export(int part, int parts, ProfileSink sink) {
+        EncodedUserTag tag = new EncodedUserTag();
+        profiles.forEach(profile -> {
+            if (Math.floorMod(Arrays.hashCode(profile.cookie), parts) == part) {
+                String cookie = profile.cookie();
+                tag.setCookie(cookie);
+                synchronized (locks.lockFor(CookieHash.of(cookie))) {
+                    if (!profile.expired) {
+                        export(profile.views, tag, sink);
+                        export(profile.buys, tag, sink);
+                    }
+                }
+            }
+        });
+    }
+
+    @Override
+    public int cookies() {
+        return profiles.size();
+    }
+
+    /**
+     * Removes the profiles whose newest event is older than the horizon; a profile with a newer event is put back
+     * on the wheel at its time.
+     */
+    @Override
+    public void expireBefore(long horizon) {
+        expiry.advance(horizon, profile -> {
+            CookieHash hash = CookieHash.of(profile.cookie());
+            long newest;
+            synchronized (locks.lockFor(hash)) {
+                newest = profile.newest;
+                if (newest < horizon) {
+                    profiles.remove(hash, profile);
+                    release(profile.views);
+                    release(profile.buys);
+                    profile.expired = true;
+                }
+            }
+            if (newest >= horizon) {
+                expiry.schedule(profile, newest);
+            }
+        });
+    }
+
+    private Profile profile(String cookie, CookieHash hash, long time) {
+        Profile profile = profiles.get(hash);
+        if (profile == null) {
+            Profile created = new Profile(cookie.getBytes(StandardCharsets.UTF_8));
+            profile = profiles.putIfAbsent(hash, created);
+            if (profile == null) {
+                expiry.schedule(created, time);
+                profile = created;
+            }
+        }
+        return profile;
+    }
+
+    private void append(Profile profile, EncodedUserTag tag) {
+        Ring ring = profile.ring(tag.getAction());
+        int slot = insert(ring, tag.getTime());
+        if (slot >= 0) {
+            EventRecord.write(arena.page(ring.block), arena.offset(ring.block, slot), tag);
+        }
+        profile.newest = Math.max(profile.newest, tag.getTime());
+    }
+
+    /**
+     * Makes room for an event of the given time at its place in time order and returns its slot, {@code -1} when the
+     * ring is full of newer events. Later events are shifted one slot towards the tail, which costs nothing for an
+     * event in order and a few record copies for one slightly out of order.
+     */
+    private int insert(Ring ring, long time) {
+        if (ring.size == ring.capacity() && ring.size < MAX_EVENTS_PER_ACTION) {
+            ring.grow(arena);
+        }
+        int capacity = ring.capacity();
+        if (ring.size == capacity) {
+            if (time < time(ring, 0)) {
+                return -1;
+            }
+            ring.head = (ring.head + 1) % capacity;
+            ring.size--;
+        }
+        int position = ring.size;
+        for (; position > 0 && time(ring, position - 1) > time; position--) {
+            int slot = (ring.head + position) % capacity;
+            arena.copy(ring.block, (slot + capacity - 1) % capacity, ring.block, slot);
+        }
+        ring.size++;
+        return (ring.head + position) % capacity;
+    }
+
+    private void release(Ring ring) {
+        if (ring.sizeClass >= 0) {
+            arena.release(ring.block, ring.sizeClass);
+            ring.sizeClass = -1;
+            ring.size = 0;
+        }
+    }
+
+    /**
+     * Tells whether the ring holds the same event, comparing the records of its time found by binary search.
+     */
+    private boolean contains(Ring ring, EncodedUserTag tag) {
+        for (int i = lowerBound(ring, tag.getTime()); i < ring.size && time(ring, i) == tag.getTime(); i++) {
+            if (EventRecord.matches(arena.page(ring.block), offset(ring, i), tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void export(Ring ring, EncodedUserTag tag, ProfileSink sink) {
+        for (int i = 0; i < ring.size; i++) {
+            EventRecord.read(arena.page(ring.block), offset(ring, i), tag);
+            sink.accept(tag);
+        }
+    }
+
+    /**
+     * Finds the end of the range by binary search and walks it newest first, so only the returned records are read.
+     */
+    private void read(Ring ring, TimeRange timeRange, int limit, EncodedUserTag tag, ProfileSink sink) {
+        int returned = 0;
+        for (int i = lowerBound(ring, timeRange.getToMillis()) - 1; i >= 0 && returned < limit; i--, returned++) {
+            int offset = offset(ring, i);
+            if (EventRecord.time(arena.page(ring.block), offset) < timeRange.getFromMillis()) {
+                return;
+            }
+            EventRecord.read(arena.page(ring.block), offset, tag);
+            sink.accept(tag);
+        }
+    }
+
+    /**
+     * Returns the position, from the oldest event, of the first event not older than {@code time}.
+     */
+    private int lowerBound(Ring ring, long time) {
+        int low = 0;
+        int high = ring.size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (time(ring, middle) < time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private long time(Ring ring, int position) {
+        return EventRecord.time(arena.page(ring.block), offset(ring, position));
+    }
+
+    private int offset(Ring ring, int position) {
+        return arena.offset(ring.block, (ring.head + position) % ring.capacity());
+    }
+
+    private static class Profile extends TimingWheel.Timer {
+        private final byte[] cookie;
+        private final Ring views = new Ring();
+        private final Ring buys = new Ring();
+        private long newest = Long.MIN_VALUE;
+        private boolean expired;
+
+        private Profile(byte[] cookie) {
+            this.cookie = cookie;
+        }
+
+        private String cookie() {
+            return new String(cookie, StandardCharsets.UTF_8);
+        }
+
+        private Ring ring(Action action) {
+            return action == Action.BUY ? buys : views;
+        }
+    }
+
+    private static class Ring {
+        private long block;
+        private int sizeClass = -1;
+        private int head;
+        private int size;
+
+        private int capacity() {
+            return sizeClass < 0 ? 0 : RecordArena.BLOCK_CAPACITIES[sizeClass];
+        }
+
+        private void grow(RecordArena arena) {
+            long grown = arena.allocate(sizeClass + 1);
+            if (sizeClass >= 0) {
+                int capacity = capacity();
+                for (int i = 0; i < size; i++) {
+                    arena.copy(block, (head + i) % capacity, grown, i);
+                }
+                arena.release(block, sizeClass);
+            }
+            block = grown;
+            sizeClass++;
+            head = 0;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package your.name.here.profile;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.aerospike.client.AerospikeClient;
+import com.aerospike.client.Host;
+import com.aerospike.client.IAerospikeClient;
+import com.aerospike.client.Key;
+import com.aerospike.client.Operation;
+import com.aerospike.client.Record;
+import com.aerospike.client.cdt.ListOperation;
+import com.aerospike.client.cdt.ListOrder;
+import com.aerospike.client.cdt.ListPolicy;
+import com.aerospike.client.cdt.ListReturnType;
+import com.aerospike.client.cdt.ListWriteFlags;
+import com.aerospike.client.policy.ClientPolicy;
+import com.aerospike.client.policy.CommitLevel;
+import com.aerospike.client.policy.Replica;
+import com.aerospike.client.policy.ScanPolicy;
+import com.aerospike.client.policy.WritePolicy;
+
+import your.name.here.domain.Action;
+import your.name.here.domain.TimeRange;
+import your.name.here.encoding.EncodedUserTag;
+
+/**
+ * Profile store keeping one Aerospike record per cookie, with the VIEWs and BUYs in two ordered list bins of
+ * {@code [time, EventRecord bytes]} pairs, so the server keeps each list in event-time order.
+ *
+ * <p>Every write is a single {@code operate()}: an ordered append followed by removing all but the newest
+ * {@link #MAX_EVENTS_PER_ACTION} items, both applied by the server under the record lock. There is no
+ * get-modify-put round trip and concurrent tags of one cookie cannot overwrite each other. A read is a single
+ * {@code operate()} too, returning per bin at most {@code limit} items ranked just below the end of the time range;
+ * those before its start are dropped here.
+ *
+ * <p>Records expire by TTL, set to the retention window on every write, so {@link #expireBefore} has nothing to do;
+ * unlike in the other stores the window is counted in wall-clock time from the last write. {@link #cookies} is not
+ * known without asking every node and is reported as -1.
+ *
+ * <p>Reads go to the master or a replica of the record, whichever answers, and like writes give up after 100 ms.
+ * The store does not start without {@code allezon.aerospike.seeds}.
+ */
+@Component
+@ConditionalOnProperty(name = "allezon.profiles.store", havingValue = "aerospike")
+public class ProfileDao implements ProfileStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ProfileDao.class);
+
+    private static final String SET = "profiles";
+    private static final String VIEWS_BIN = "views";
+    private static final String BUYS_BIN = "buys";
+
+    private static final ListPolicy APPEND = new ListPolicy(ListOrder.ORDERED, ListWriteFlags.DEFAULT);
+    private static final ListPolicy APPEND_UNIQUE =
+            new ListPolicy(ListOrder.ORDERED, ListWriteFlags.ADD_UNIQUE | ListWriteFlags.NO_FAIL);
+
+    private final IAerospikeClient client;
+    private final String namespace;
+    private final WritePolicy writePolicy;
+    private final WritePolicy readPolicy;
+
+    @Autowired
+    public ProfileDao(@Value("${allezon.aerospike.seeds}") String[] seeds,
+            @Value("${allezon.aerospike.port:3000}") int port,
+            @Value("${allezon.aerospike.namespace:mimuw}") String namespace,
+            @Value("${allezon.retention.window-minutes:1440}") int windowMinutes) {
+        this(connect(seeds, port), namespace, windowMinutes);
+    }
+
+    ProfileDao(IAerospikeClient client, String namespace, int windowMinutes) {
+        this.client = client;
+        this.namespace = namespace;
+        this.writePolicy = new WritePolicy(client.getWritePolicyDefault());
+        this.writePolicy.expiration = windowMinutes * 60;
+        this.writePolicy.sendKey = true;
+        this.readPolicy = new WritePolicy(client.getWritePolicyDefault());
+        this.readPolicy.replica = Replica.MASTER_PROLES;
+        this.readPolicy.socketTimeout = 100;
+        this.readPolicy.totalTimeout = 100;
+    }
+
+    private static IAerospikeClient connect(String[] seeds, int port) {
+        if (seeds.length == 0) {
+            throw new IllegalArgumentException("allezon.aerospike.seeds is empty");
+        }
+        log.info("Connecting to Aerospike at {} on port {}", String.join(",", seeds), port);
+        return new AerospikeClient(defaultClientPolicy(),
+                Arrays.stream(seeds).map(seed -> new Host(seed, port)).toArray(Host[]::new));
+    }
+
+    private static ClientPolicy defaultClientPolicy() {
+        ClientPolicy policy = new ClientPolicy();
+        policy.writePolicyDefault.socketTimeout = 100;
+        policy.writePolicyDefault.totalTimeout = 100;
+        policy.writePolicyDefault.maxRetries = 1;
+        policy.writePolicyDefault.commitLevel = CommitLevel.COMMIT_MASTER;
+        return policy;
+    }
+
+    @Override
+    public void add(EncodedUserTag tag) {
+        append(tag, APPEND);
+    }
+
+    /**
+     * Skips the tag if the list holds an identical event, a replayed tag is identical to the one stored before.
+     */
+    @Override
+    public void restore(EncodedUserTag tag) {
+        append(tag, APPEND_UNIQUE);
+    }
+
+    @Override
+    public void read(String cookie, TimeRange timeRange, int limit, ProfileSink sink) {
+        com.aerospike.client.Value end = com.aerospike.client.Value.get(List.of(timeRange.getToMillis()));
+        Record record = client.operate(readPolicy, key(cookie),
+                ListOperation.getByValueRelativeRankRange(VIEWS_BIN, end, -limit, limit, ListReturnType.VALUE),
+                ListOperation.getByValueRelativeRankRange(BUYS_BIN, end, -limit, limit, ListReturnType.VALUE));
+        if (record != null) {
+            EncodedUserTag tag = new EncodedUserTag();
+            tag.setCookie(cookie);
+            readNewest(record.getList(VIEWS_BIN), timeRange.getFromMillis(), tag, sink);
+            readNewest(record.getList(BUYS_BIN), timeRange.getFromMillis(), tag, sink);
+        }
+    }
+
+    /**
+     * Scans the whole set, so with this store snapshots mostly duplicate what the cluster keeps anyway.
+     */
+    @Override
+    public void export(int part, int parts, ProfileSink sink) {
+        ScanPolicy scanPolicy = new ScanPolicy(client.getScanPolicyDefault());
+        scanPolicy.concurrentNodes = false;
+        EncodedUserTag tag = new EncodedUserTag();
+        client.scanAll(scanPolicy, namespace, SET, (key, record) -> {
+            String cookie = key.userKey.toString();
+            if (Math.floorMod(cookie.hashCode(), parts) == part) {
+                tag.setCookie(cookie);
+                readOldest(record.getList(VIEWS_BIN), tag, sink);
+                readOldest(record.getList(BUYS_BIN), tag, sink);
+            }
+        }, VIEWS_BIN, BUYS_BIN);
+    }
+
+    @Override
+    public int cookies() {
+        return -1;
+    }
+
+    @Override
+    public void expireBefore(long horizon) {
+    }
+
+    @PreDestroy
+    public void close() {
+        client.close();
+    }
+
+    private void append(EncodedUserTag tag, ListPolicy policy) {
+        ByteBuffer event = ByteBuffer.allocate(EventRecord.SIZE);
+        EventRecord.write(event, 0, tag);
+        String bin = tag.getAction() == Action.BUY ? BUYS_BIN : VIEWS_BIN;
+        com.aerospike.client.Value item = com.aerospike.client.Value.get(List.of(tag.getTime(), event.array()));
+        client.operate(writePolicy, key(tag.getCookie()),
+                ListOperation.append(policy, bin, item),
+                ListOperation.removeByIndexRange(bin, -MAX_EVENTS_PER_ACTION,
+                        ListReturnType.NONE | ListReturnType.INVERTED));
+    }
+
+    private Key key(String cookie) {
+        return new Key(namespace, SET, cookie);
+    }
+
+    private static void readNewest(List<?> events, long from, EncodedUserTag tag, ProfileSink sink) {
+        if (events == null) {
+            return;
+        }
+        for (int i = events.size() - 1; i >= 0; i--) {
+            List<?> event = (List<?>) events.get(i);
+            if ((Long) event.get(0) < from) {
+                return;
+            }
+            EventRecord.read(ByteBuffer.wrap((byte[]) event.get(1)), 0, tag);
+            sink.accept(tag);
+        }
+    }
+
+    private static void readOldest(List<?> events, EncodedUserTag tag, ProfileSink sink) {
+        if (events == null) {
+            return;
+        }
+        for (Object item : events) {
+            EventRecord.read(ByteBuffer.wrap((byte[]) ((List<?>) item).get(1)), 0, tag);
+            sink.accept(tag);
+        }
+    }
+}
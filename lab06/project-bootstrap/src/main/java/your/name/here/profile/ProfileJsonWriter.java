@@ -0,0 +1,161 @@
+package your.name.here.profile;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import your.name.here.domain.Action;
+import your.name.here.domain.Device;
+import your.name.here.encoding.Dictionaries;
+import your.name.here.encoding.Dictionary;
+import your.name.here.encoding.EncodedUserTag;
+import your.name.here.encoding.Timestamps;
+
+/**
+ * Writes the user_profiles response by concatenating pre-encoded JSON fragments: dictionary values are kept quoted
+ * in their dictionaries, enum names and field names are constants, only the timestamp and the numbers are formatted
+ * per event. The output is byte-for-byte what databind produces for the same {@code UserProfileResult}.
+ */
+public class ProfileJsonWriter implements ProfileSink {
+
+    private static final byte[] COOKIE_FIELD = ascii("{\"cookie\":");
+    private static final byte[] VIEWS_FIELD = ascii(",\"views\":[");
+    private static final byte[] BUYS_FIELD = ascii("],\"buys\":[");
+    private static final byte[] END = ascii("]}");
+    private static final byte[] TIME_FIELD = ascii("{\"time\":\"");
+    private static final byte[] EVENT_COOKIE_FIELD = ascii("\",\"cookie\":");
+    private static final byte[] COUNTRY_FIELD = ascii(",\"country\":");
+    private static final byte[] DEVICE_FIELD = ascii(",\"device\":");
+    private static final byte[] ACTION_FIELD = ascii(",\"action\":");
+    private static final byte[] ORIGIN_FIELD = ascii(",\"origin\":");
+    private static final byte[] PRODUCT_ID_FIELD = ascii(",\"product_info\":{\"product_id\":");
+    private static final byte[] BRAND_FIELD = ascii(",\"brand_id\":");
+    private static final byte[] CATEGORY_FIELD = ascii(",\"category_id\":");
+    private static final byte[] PRICE_FIELD = ascii(",\"price\":");
+    private static final byte[] EVENT_END = ascii("}}");
+
+    private static final byte[][] DEVICES = quoted(Device.values());
+    private static final byte[][] ACTIONS = quoted(Action.values());
+
+    private final Dictionaries dictionaries;
+    private final byte[] cookie;
+    private final char[] time = new char[24];
+
+    private byte[] buffer = new byte[4096];
+    private int length;
+    private boolean inBuys;
+    private boolean first = true;
+
+    public ProfileJsonWriter(String cookie, Dictionaries dictionaries) {
+        this.dictionaries = dictionaries;
+        this.cookie = Dictionary.quoteAsJson(cookie);
+        write(COOKIE_FIELD);
+        write(this.cookie);
+        write(VIEWS_FIELD);
+    }
+
+    @Override
+    public void accept(EncodedUserTag tag) {
+        if (tag.getAction() == Action.BUY && !inBuys) {
+            startBuys();
+        }
+        if (!first) {
+            write((byte) ',');
+        }
+        first = false;
+
+        write(TIME_FIELD);
+        int timeLength = Timestamps.write(time, tag.getTime(), true);
+        ensureCapacity(timeLength);
+        for (int i = 0; i < timeLength; i++) {
+            buffer[length++] = (byte) time[i];
+        }
+        write(EVENT_COOKIE_FIELD);
+        write(cookie);
+        write(COUNTRY_FIELD);
+        write(dictionaries.countries().jsonValueOf(tag.getCountry()));
+        write(DEVICE_FIELD);
+        write(DEVICES[tag.getDevice().ordinal()]);
+        write(ACTION_FIELD);
+        write(ACTIONS[tag.getAction().ordinal()]);
+        write(ORIGIN_FIELD);
+        write(dictionaries.origins().jsonValueOf(tag.getOrigin()));
+        write(PRODUCT_ID_FIELD);
+        writeInt(tag.getProductId());
+        write(BRAND_FIELD);
+        write(dictionaries.brands().jsonValueOf(tag.getBrand()));
+        write(CATEGORY_FIELD);
+        write(dictionaries.categories().jsonValueOf(tag.getCategory()));
+        write(PRICE_FIELD);
+        writeInt(tag.getPrice());
+        write(EVENT_END);
+    }
+
+    /**
+     * Completes the document and returns it wrapped without copying.
+     */
+    public ByteBuffer toByteBuffer() {
+        finish();
+        return ByteBuffer.wrap(buffer, 0, length);
+    }
+
+    private void finish() {
+        if (!inBuys) {
+            startBuys();
+        }
+        write(END);
+    }
+
+    private void startBuys() {
+        write(BUYS_FIELD);
+        inBuys = true;
+        first = true;
+    }
+
+    private void write(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+    }
+
+    private void write(byte value) {
+        ensureCapacity(1);
+        buffer[length++] = value;
+    }
+
+    private void writeInt(int value) {
+        ensureCapacity(11);
+        long remaining = value;
+        if (remaining < 0) {
+            buffer[length++] = '-';
+            remaining = -remaining;
+        }
+        int digits = 1;
+        for (long bound = 10; bound <= remaining && digits < 10; bound *= 10) {
+            digits++;
+        }
+        for (int i = length + digits - 1; i >= length; i--) {
+            buffer[i] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        }
+        length += digits;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+        }
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[][] quoted(Enum<?>[] constants) {
+        byte[][] quoted = new byte[constants.length][];
+        for (Enum<?> constant : constants) {
+            quoted[constant.ordinal()] = Dictionary.quoteAsJson(constant.name());
+        }
+        return quoted;
+    }
+}
@@ -0,0 +1,34 @@
+package your.name.here.profile;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import your.name.here.domain.Action;
+import your.name.here.domain.UserProfileResult;
+import your.name.here.domain.UserTagEvent;
+import your.name.here.encoding.Dictionaries;
+import your.name.here.encoding.EncodedUserTag;
+
+public class ProfileResultBuilder implements ProfileSink {
+
+    private final String cookie;
+    private final Dictionaries dictionaries;
+    private final List<UserTagEvent> views = new ArrayList<>();
+    private final List<UserTagEvent> buys = new ArrayList<>();
+
+    public ProfileResultBuilder(String cookie, Dictionaries dictionaries) {
+        this.cookie = cookie;
+        this.dictionaries = dictionaries;
+    }
+
+    @Override
+    public void accept(EncodedUserTag tag) {
+        UserTagEvent event = tag.decode(dictionaries);
+        event.setCookie(cookie);
+        (tag.getAction() == Action.BUY ? buys : views).add(event);
+    }
+
+    public UserProfileResult build() {
+        return new UserProfileResult(cookie, views, buys);
+    }
+}
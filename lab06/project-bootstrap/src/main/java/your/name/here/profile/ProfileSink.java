@@ -0,0 +1,13 @@
+package your.name.here.profile;
+
+import your.name.here.encoding.EncodedUserTag;
+
+/**
+ * Receives the events of a profile query (all matching VIEWs newest first, then all matching BUYs newest first) or
+ * of a profile export. Stores call it while holding the profile lock, so implementations must only copy data out and
+ * must not keep a reference to the passed tag.
+ */
+public interface ProfileSink {
+
+    void accept(EncodedUserTag tag);
+}
@@ -0,0 +1,38 @@
+package your.name.here.profile;
+
+import your.name.here.domain.TimeRange;
+import your.name.here.encoding.EncodedUserTag;
+import your.name.here.retention.Retained;
+
+/**
+ * Per-cookie store of the newest events. {@link #expireBefore} removes the profiles with no event in the retention
+ * window.
+ */
+public interface ProfileStore extends Retained {
+
+    int MAX_EVENTS_PER_ACTION = 200;
+
+    void add(EncodedUserTag tag);
+
+    /**
+     * Adds the tag unless the profile already holds the same event, equal in every field and not only in time, so
+     * distinct tags of one millisecond are all kept. Used when replaying a log tail that may overlap the restored
+     * snapshot.
+     */
+    void restore(EncodedUserTag tag);
+
+    /**
+     * Passes to the sink at most {@code limit} newest VIEWs and then at most {@code limit} newest BUYs of the
+     * cookie from the given time range.
+     */
+    void read(String cookie, TimeRange timeRange, int limit, ProfileSink sink);
+
+    /**
+     * Passes to the sink the events of every profile whose cookie hash falls into the given part, one profile at a
+     * time: its VIEWs and then its BUYs, each oldest first, so that adding them in order rebuilds the
+     * profile.
+     */
+    void export(int part, int parts, ProfileSink sink);
+
+    int cookies();
+}
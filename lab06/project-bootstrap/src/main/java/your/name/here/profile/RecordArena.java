@@ -0,0 +1,99 @@
+package your.name.here.profile;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Allocator of fixed-size record blocks in direct memory. Memory is reserved in {@link #PAGE_SIZE} pages and cut
+ * into blocks of a few size classes; released blocks go to a per-class free list and are reused. A block address
+ * packs the page index in the upper and the byte offset in the lower 32 bits.
+ */
+class RecordArena {
+
+    private static final Logger log = LoggerFactory.getLogger(RecordArena.class);
+
+    static final int[] BLOCK_CAPACITIES = {4, 16, 64, ProfileStore.MAX_EVENTS_PER_ACTION};
+
+    private static final int PAGE_SIZE = 1 << 26;
+
+    private final int recordSize;
+    private final long[][] freeBlocks = new long[BLOCK_CAPACITIES.length][];
+    private final int[] freeCounts = new int[BLOCK_CAPACITIES.length];
+
+    private volatile ByteBuffer[] pages = new ByteBuffer[0];
+    private int pageOffset = PAGE_SIZE;
+    private long allocatedBytes;
+
+    RecordArena(int recordSize) {
+        this.recordSize = recordSize;
+        for (int i = 0; i < BLOCK_CAPACITIES.length; i++) {
+            freeBlocks[i] = new long[1024];
+        }
+    }
+
+    static int sizeClass(int capacity) {
+        for (int i = 0; i < BLOCK_CAPACITIES.length; i++) {
+            if (BLOCK_CAPACITIES[i] >= capacity) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Block capacity too large: " + capacity);
+    }
+
+    synchronized long allocate(int sizeClass) {
+        allocatedBytes += blockBytes(sizeClass);
+        if (freeCounts[sizeClass] > 0) {
+            return freeBlocks[sizeClass][--freeCounts[sizeClass]];
+        }
+        int bytes = blockBytes(sizeClass);
+        if (pageOffset + bytes > PAGE_SIZE) {
+            ByteBuffer[] grown = Arrays.copyOf(pages, pages.length + 1);
+            grown[pages.length] = ByteBuffer.allocateDirect(PAGE_SIZE);
+            pages = grown;
+            pageOffset = 0;
+            log.info("Reserved off-heap page #{}, {} MB reserved, {} MB in use", grown.length,
+                    reservedBytes() >> 20, allocatedBytes >> 20);
+        }
+        long address = ((long) (pages.length - 1) << 32) | pageOffset;
+        pageOffset += bytes;
+        return address;
+    }
+
+    synchronized void release(long address, int sizeClass) {
+        allocatedBytes -= blockBytes(sizeClass);
+        if (freeCounts[sizeClass] == freeBlocks[sizeClass].length) {
+            freeBlocks[sizeClass] = Arrays.copyOf(freeBlocks[sizeClass], freeCounts[sizeClass] * 2);
+        }
+        freeBlocks[sizeClass][freeCounts[sizeClass]++] = address;
+    }
+
+    ByteBuffer page(long address) {
+        return pages[(int) (address >>> 32)];
+    }
+
+    int offset(long address, int index) {
+        return (int) address + index * recordSize;
+    }
+
+    /**
+     * Copies a record, also within a block; absolute bulk puts leave the shared pages' positions alone.
+     */
+    void copy(long from, int fromIndex, long to, int toIndex) {
+        page(to).put(offset(to, toIndex), page(from), offset(from, fromIndex), recordSize);
+    }
+
+    synchronized long allocatedBytes() {
+        return allocatedBytes;
+    }
+
+    synchronized long reservedBytes() {
+        return (long) pages.length * PAGE_SIZE;
+    }
+
+    private int blockBytes(int sizeClass) {
+        return BLOCK_CAPACITIES[sizeClass] * recordSize;
+    }
+}
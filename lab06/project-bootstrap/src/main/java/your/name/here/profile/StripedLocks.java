@@ -0,0 +1,33 @@
+package your.name.here.profile;
+
+class StripedLocks {
+
+    private final Object[] locks;
+
+    StripedLocks(int stripes) {
+        if (Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("Number of stripes must be a power of two: " + stripes);
+        }
+        locks = new Object[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    Object lockFor(String cookie) {
+        return locks[stripeFor(cookie)];
+    }
+
+    Object lockFor(CookieHash hash) {
+        return locks[(int) hash.low() & (locks.length - 1)];
+    }
+
+    Object lock(int stripe) {
+        return locks[stripe];
+    }
+
+    int stripeFor(String cookie) {
+        int hash = cookie.hashCode();
+        return (hash ^ (hash >>> 16)) & (locks.length - 1);
+    }
+}
@@ -0,0 +1,45 @@
+package your.name.here.profile;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import your.name.here.domain.Action;
+import your.name.here.domain.TimeRange;
+import your.name.here.encoding.EncodedUserTag;
+
+/**
+ * Heap profile store keeping the {@link EncodedUserTag}s themselves, in an {@link EventRing} per action. Updates and
+ * reads of a single profile are guarded by one of {@link #STRIPES} locks picked by the cookie hash, see
+ * {@link HeapProfileStore}, so different cookies never contend on a global lock and a reader only blocks writers of
+ * the same stripe for the time of copying out at most 400 events.
+ */
+@Component
+@ConditionalOnProperty(name = "allezon.profiles.store", havingValue = "heap")
+public class StripedProfileStore extends HeapProfileStore<EventRing> {
+
+    public StripedProfileStore(@Value("${allezon.profiles.expected-cookies:1000000}") int expectedCookies) {
+        super(expectedCookies, () -> new EventRing(MAX_EVENTS_PER_ACTION));
+    }
+
+    @Override
+    void add(EventRing events, EncodedUserTag tag, int stripe) {
+        events.add(tag);
+    }
+
+    @Override
+    boolean contains(EventRing events, EncodedUserTag tag, int stripe) {
+        return events.contains(tag);
+    }
+
+    @Override
+    void read(EventRing events, Action action, TimeRange timeRange, int limit, int stripe, EncodedUserTag tag,
+            ProfileSink sink) {
+        events.read(timeRange, limit, sink);
+    }
+
+    @Override
+    void forEach(EventRing events, Action action, int stripe, EncodedUserTag tag, ProfileSink sink) {
+        events.forEach(sink);
+    }
+}
@@ -0,0 +1,164 @@
+package your.name.here.profile;
+
+import java.util.Arrays;
+
+import your.name.here.domain.Action;
+import your.name.here.domain.TimeRange;
+import your.name.here.encoding.EncodedUserTag;
+
+/**
+ * Events of one action of a cookie, newest {@code capacity} by event time, as a byte array of
+ * {@link TimelineChunk}s in time order. Events in order are appended to the last chunk, or start a new one when it is
+ * full; a late event goes into the chunk covering its time, which is split in two when it overflows. The oldest
+ * event leaves the window by being marked dropped in the first chunk header, the chunk itself is removed once all of
+ * its events are dropped.
+ *
+ * <p>Reads walk the chunks from the newest, skip those starting at or after the end of the range without decoding
+ * them and decode the others one at a time until {@code limit} events are returned. Not thread-safe, guarded by the
+ * store stripes together with the chunk passed in.
+ */
+class Timeline {
+
+    private static final byte[] EMPTY = new byte[0];
+    private static final int MIN_GROWTH = 32;
+
+    private final int capacity;
+
+    private byte[] data = EMPTY;
+    private int length;
+    private int size;
+
+    Timeline(int capacity) {
+        this.capacity = capacity;
+    }
+
+    void add(EncodedUserTag tag, TimelineChunk chunk) {
+        if (size == capacity) {
+            if (tag.getTime() < oldest(chunk)) {
+                return;
+            }
+            dropOldest();
+        }
+        int start = chunkFor(tag.getTime(), chunk);
+        chunk.resetEncoded();
+        if (start == length) {
+            chunk.clear();
+            chunk.insert(tag);
+            chunk.encode(0, 1);
+            replace(start, 0, chunk);
+        } else {
+            chunk.decode(data, start);
+            int index = chunk.insert(tag);
+            int count = chunk.count();
+            int chunkLength = TimelineChunk.length(data, start);
+            boolean newest = index == count - 1 && start + chunkLength == length;
+            if (newest && count <= TimelineChunk.MAX_EVENTS) {
+                // events in order only extend the last chunk
+                chunk.encodeNewest();
+                replace(start + chunkLength, 0, chunk);
+                TimelineChunk.writeHeader(data, start, count, chunk.skipped(), chunkLength + chunk.encodedLength());
+                size++;
+                return;
+            } else if (newest) {
+                // the newest event starts a new chunk, the full one stays as it is
+                chunk.encode(count - 1, count);
+                replace(start + chunkLength, 0, chunk);
+                size++;
+                return;
+            } else if (count - chunk.skipped() <= TimelineChunk.MAX_EVENTS) {
+                chunk.encode(chunk.skipped(), count);
+            } else {
+                int middle = chunk.skipped() + (count - chunk.skipped()) / 2;
+                chunk.encode(chunk.skipped(), middle);
+                chunk.encode(middle, count);
+            }
+            replace(start, chunkLength, chunk);
+        }
+        size++;
+    }
+
+    void read(TimeRange timeRange, int limit, Action action, TimelineChunk chunk, EncodedUserTag tag,
+            ProfileSink sink) {
+        int returned = 0;
+        for (int c = chunk.index(data, length) - 1; c >= 0 && returned < limit; c--) {
+            if (chunk.firstTime(data, chunk.start(c)) >= timeRange.getToMillis()) {
+                continue;
+            }
+            chunk.decode(data, chunk.start(c));
+            for (int i = chunk.count() - 1; i >= chunk.skipped() && returned < limit; i--) {
+                long time = chunk.time(i);
+                if (time < timeRange.getFromMillis()) {
+                    return;
+                }
+                if (time < timeRange.getToMillis()) {
+                    chunk.read(i, action, tag);
+                    sink.accept(tag);
+                    returned++;
+                }
+            }
+        }
+    }
+
+    boolean contains(EncodedUserTag tag, TimelineChunk chunk) {
+        for (int start = 0; start < length; start += TimelineChunk.length(data, start)) {
+            chunk.decode(data, start);
+            for (int i = chunk.skipped(); i < chunk.count(); i++) {
+                if (chunk.matches(i, tag)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    void forEach(Action action, TimelineChunk chunk, EncodedUserTag tag, ProfileSink sink) {
+        for (int start = 0; start < length; start += TimelineChunk.length(data, start)) {
+            chunk.decode(data, start);
+            for (int i = chunk.skipped(); i < chunk.count(); i++) {
+                chunk.read(i, action, tag);
+                sink.accept(tag);
+            }
+        }
+    }
+
+    private long oldest(TimelineChunk chunk) {
+        chunk.decode(data, 0, TimelineChunk.skipped(data, 0) + 1);
+        return chunk.time(chunk.skipped());
+    }
+
+    private void dropOldest() {
+        TimelineChunk.skip(data, 0);
+        if (TimelineChunk.skipped(data, 0) == TimelineChunk.events(data, 0)) {
+            int removed = TimelineChunk.length(data, 0);
+            System.arraycopy(data, removed, data, 0, length - removed);
+            length -= removed;
+        }
+        size--;
+    }
+
+    /**
+     * Returns the start of the last chunk beginning at or before {@code time}, the first chunk when all begin later
+     * and the end of the data when there are no chunks.
+     */
+    private int chunkFor(long time, TimelineChunk chunk) {
+        int found = 0;
+        for (int start = 0; start < length; start += TimelineChunk.length(data, start)) {
+            if (start > 0 && chunk.firstTime(data, start) > time) {
+                break;
+            }
+            found = start;
+        }
+        return length == 0 ? length : found;
+    }
+
+    private void replace(int start, int oldLength, TimelineChunk chunk) {
+        int newLength = chunk.encodedLength();
+        int grown = length - oldLength + newLength;
+        if (grown > data.length) {
+            data = Arrays.copyOf(data, Math.max(grown, data.length + Math.max(MIN_GROWTH, data.length >> 2)));
+        }
+        System.arraycopy(data, start + oldLength, data, start + newLength, length - start - oldLength);
+        System.arraycopy(chunk.encoded(), 0, data, start, newLength);
+        length = grown;
+    }
+}
@@ -0,0 +1,334 @@
+package your.name.here.profile;
+
+import java.util.Arrays;
+
+import your.name.here.domain.Action;
+import your.name.here.domain.Device;
+import your.name.here.encoding.EncodedUserTag;
+
+/**
+ * Decoded form of one chunk of a {@link Timeline} and the codec between the two. A chunk is a 4-byte header (number
+ * of events, number of them already dropped from the window, total length in bytes) followed by the events in time
+ * order. Each event starts with a flags byte holding the device and one bit per dimension that differs from the
+ * previous event of the chunk, only those dimensions follow as varints. The time of the first event is stored as
+ * is, of the second as a delta and of the rest as a zigzag-encoded delta of deltas, so events at a steady pace cost a
+ * single byte of time.
+ *
+ * <p>Instances are scratch space reused under the store stripe lock, one per stripe.
+ */
+final class TimelineChunk {
+
+    static final int MAX_EVENTS = 16;
+    static final int HEADER = 4;
+
+    private static final int DEVICE_MASK = 0x03;
+    private static final int COUNTRY = 1 << 2;
+    private static final int ORIGIN = 1 << 3;
+    private static final int PRODUCT = 1 << 4;
+    private static final int BRAND = 1 << 5;
+    private static final int CATEGORY = 1 << 6;
+    private static final int PRICE = 1 << 7;
+
+    private static final int MAX_EVENT_BYTES = 1 + 10 + 6 * 5;
+    private static final Device[] DEVICES = Device.values();
+
+    private final long[] times = new long[MAX_EVENTS + 1];
+    private final byte[] devices = new byte[MAX_EVENTS + 1];
+    private final int[] countries = new int[MAX_EVENTS + 1];
+    private final int[] origins = new int[MAX_EVENTS + 1];
+    private final int[] products = new int[MAX_EVENTS + 1];
+    private final int[] brands = new int[MAX_EVENTS + 1];
+    private final int[] categories = new int[MAX_EVENTS + 1];
+    private final int[] prices = new int[MAX_EVENTS + 1];
+    private final byte[] encoded = new byte[2 * (HEADER + (MAX_EVENTS + 1) * MAX_EVENT_BYTES)];
+
+    private int[] starts = new int[16];
+    private int chunks;
+    private int count;
+    private int skipped;
+    private int encodedLength;
+    private int position;
+
+    static int length(byte[] data, int offset) {
+        return (data[offset + 2] & 0xff) << 8 | data[offset + 3] & 0xff;
+    }
+
+    static int events(byte[] data, int offset) {
+        return data[offset] & 0xff;
+    }
+
+    static int skipped(byte[] data, int offset) {
+        return data[offset + 1] & 0xff;
+    }
+
+    static void skip(byte[] data, int offset) {
+        data[offset + 1]++;
+    }
+
+    /**
+     * Finds the starts of the chunks in the first {@code length} bytes of {@code data} and returns their number.
+     */
+    int index(byte[] data, int length) {
+        chunks = 0;
+        for (int start = 0; start < length; start += length(data, start)) {
+            if (chunks == starts.length) {
+                starts = Arrays.copyOf(starts, chunks * 2);
+            }
+            starts[chunks++] = start;
+        }
+        return chunks;
+    }
+
+    int start(int chunk) {
+        return starts[chunk];
+    }
+
+    /**
+     * Returns the time of the first event of the chunk, including a dropped one, without decoding the rest.
+     */
+    long firstTime(byte[] data, int offset) {
+        position = offset + HEADER + 1;
+        return readVarLong(data);
+    }
+
+    void decode(byte[] data, int offset) {
+        decode(data, offset, events(data, offset));
+    }
+
+    /**
+     * Decodes only the first {@code events} events of the chunk.
+     */
+    void decode(byte[] data, int offset, int events) {
+        count = events(data, offset);
+        skipped = skipped(data, offset);
+        position = offset + HEADER;
+        long time = 0;
+        long delta = 0;
+        int country = 0;
+        int origin = 0;
+        int product = 0;
+        int brand = 0;
+        int category = 0;
+        int price = 0;
+        for (int i = 0; i < events; i++) {
+            int flags = data[position++] & 0xff;
+            if (i == 0) {
+                time = readVarLong(data);
+            } else if (i == 1) {
+                delta = readVarLong(data);
+                time += delta;
+            } else {
+                long deltaOfDelta = readVarLong(data);
+                delta += (deltaOfDelta >>> 1) ^ -(deltaOfDelta & 1);
+                time += delta;
+            }
+            if ((flags & COUNTRY) != 0) {
+                country = readVarInt(data);
+            }
+            if ((flags & ORIGIN) != 0) {
+                origin = readVarInt(data);
+            }
+            if ((flags & PRODUCT) != 0) {
+                product = readVarInt(data);
+            }
+            if ((flags & BRAND) != 0) {
+                brand = readVarInt(data);
+            }
+            if ((flags & CATEGORY) != 0) {
+                category = readVarInt(data);
+            }
+            if ((flags & PRICE) != 0) {
+                price = readVarInt(data);
+            }
+            times[i] = time;
+            devices[i] = (byte) (flags & DEVICE_MASK);
+            countries[i] = country;
+            origins[i] = origin;
+            products[i] = product;
+            brands[i] = brand;
+            categories[i] = category;
+            prices[i] = price;
+        }
+    }
+
+    int count() {
+        return count;
+    }
+
+    int skipped() {
+        return skipped;
+    }
+
+    long time(int index) {
+        return times[index];
+    }
+
+    void read(int index, Action action, EncodedUserTag target) {
+        target.setTime(times[index]);
+        target.setAction(action);
+        target.setDevice(DEVICES[devices[index]]);
+        target.setCountry(countries[index]);
+        target.setOrigin(origins[index]);
+        target.setProductId(products[index]);
+        target.setBrand(brands[index]);
+        target.setCategory(categories[index]);
+        target.setPrice(prices[index]);
+    }
+
+    /**
+     * Tells whether the decoded event at the index equals the tag in all fields but the action and the cookie.
+     */
+    boolean matches(int index, EncodedUserTag tag) {
+        return times[index] == tag.getTime() && devices[index] == tag.getDevice().ordinal()
+                && countries[index] == tag.getCountry() && origins[index] == tag.getOrigin()
+                && products[index] == tag.getProductId() && brands[index] == tag.getBrand()
+                && categories[index] == tag.getCategory() && prices[index] == tag.getPrice();
+    }
+
+    void clear() {
+        count = 0;
+        skipped = 0;
+    }
+
+    /**
+     * Inserts the event after those not newer than it and returns its index.
+     */
+    int insert(EncodedUserTag tag) {
+        int index = count;
+        while (index > skipped && times[index - 1] > tag.getTime()) {
+            index--;
+        }
+        int moved = count - index;
+        System.arraycopy(times, index, times, index + 1, moved);
+        System.arraycopy(devices, index, devices, index + 1, moved);
+        System.arraycopy(countries, index, countries, index + 1, moved);
+        System.arraycopy(origins, index, origins, index + 1, moved);
+        System.arraycopy(products, index, products, index + 1, moved);
+        System.arraycopy(brands, index, brands, index + 1, moved);
+        System.arraycopy(categories, index, categories, index + 1, moved);
+        System.arraycopy(prices, index, prices, index + 1, moved);
+        times[index] = tag.getTime();
+        devices[index] = (byte) tag.getDevice().ordinal();
+        countries[index] = tag.getCountry();
+        origins[index] = tag.getOrigin();
+        products[index] = tag.getProductId();
+        brands[index] = tag.getBrand();
+        categories[index] = tag.getCategory();
+        prices[index] = tag.getPrice();
+        count++;
+        return index;
+    }
+
+    /**
+     * Starts a new encoding, to which {@link #encode} appends chunks.
+     */
+    void resetEncoded() {
+        encodedLength = 0;
+    }
+
+    /**
+     * Appends the events {@code [from, to)} as a chunk of their own to the encoded bytes.
+     */
+    void encode(int from, int to) {
+        int start = encodedLength;
+        position = start + HEADER;
+        for (int i = from; i < to; i++) {
+            encodeEvent(from, i);
+        }
+        writeHeader(encoded, start, to - from, 0, position - start);
+        encodedLength = position;
+    }
+
+    /**
+     * Encodes only the newest of the decoded events, to be appended to the chunk they were decoded from.
+     */
+    void encodeNewest() {
+        position = 0;
+        encodeEvent(0, count - 1);
+        encodedLength = position;
+    }
+
+    static void writeHeader(byte[] data, int offset, int events, int skipped, int length) {
+        data[offset] = (byte) events;
+        data[offset + 1] = (byte) skipped;
+        data[offset + 2] = (byte) (length >>> 8);
+        data[offset + 3] = (byte) length;
+    }
+
+    byte[] encoded() {
+        return encoded;
+    }
+
+    int encodedLength() {
+        return encodedLength;
+    }
+
+    private void encodeEvent(int from, int i) {
+        boolean first = i == from;
+        int flags = devices[i]
+                | (differs(countries, i, first) ? COUNTRY : 0)
+                | (differs(origins, i, first) ? ORIGIN : 0)
+                | (differs(products, i, first) ? PRODUCT : 0)
+                | (differs(brands, i, first) ? BRAND : 0)
+                | (differs(categories, i, first) ? CATEGORY : 0)
+                | (differs(prices, i, first) ? PRICE : 0);
+        encoded[position++] = (byte) flags;
+        if (first) {
+            writeVarLong(times[i]);
+        } else if (i == from + 1) {
+            writeVarLong(times[i] - times[i - 1]);
+        } else {
+            long deltaOfDelta = (times[i] - times[i - 1]) - (times[i - 1] - times[i - 2]);
+            writeVarLong((deltaOfDelta << 1) ^ (deltaOfDelta >> 63));
+        }
+        if ((flags & COUNTRY) != 0) {
+            writeVarInt(countries[i]);
+        }
+        if ((flags & ORIGIN) != 0) {
+            writeVarInt(origins[i]);
+        }
+        if ((flags & PRODUCT) != 0) {
+            writeVarInt(products[i]);
+        }
+        if ((flags & BRAND) != 0) {
+            writeVarInt(brands[i]);
+        }
+        if ((flags & CATEGORY) != 0) {
+            writeVarInt(categories[i]);
+        }
+        if ((flags & PRICE) != 0) {
+            writeVarInt(prices[i]);
+        }
+    }
+
+    private static boolean differs(int[] values, int index, boolean first) {
+        return values[index] != (first ? 0 : values[index - 1]);
+    }
+
+    private long readVarLong(byte[] data) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = data[position++];
+            value |= (long) (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    private int readVarInt(byte[] data) {
+        return (int) readVarLong(data);
+    }
+
+    private void writeVarLong(long value) {
+        while ((value & ~0x7fL) != 0) {
+            encoded[position++] = (byte) (value | 0x80);
+            value >>>= 7;
+        }
+        encoded[position++] = (byte) value;
+    }
+
+    private void writeVarInt(int value) {
+        writeVarLong(Integer.toUnsignedLong(value));
+    }
+}
@@ -0,0 +1,62 @@
+package your.name.here.replication;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import your.name.here.encoding.Dictionaries;
+import your.name.here.encoding.EncodedUserTag;
+
+/**
+ * Receiving end of a {@link ReplicationLog}: remembers the sender's epoch and the last applied offset, so resent
+ * records are applied once, and counts the records the sender dropped before sending them.
+ */
+class InboundStream {
+
+    private static final Logger log = LoggerFactory.getLogger(InboundStream.class);
+
+    private final String name;
+
+    private long epoch;
+    private long applied;
+    private long missed;
+    private volatile long lastContactNanos = System.nanoTime();
+
+    InboundStream(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Applies the records of the batch not applied yet, in order, and returns the offset to acknowledge.
+     */
+    synchronized long apply(ReplicationBatch batch, Dictionaries dictionaries, Consumer<EncodedUserTag> consumer)
+            throws IOException {
+        lastContactNanos = System.nanoTime();
+        if (batch.epoch() != epoch) {
+            if (applied > 0) {
+                log.info("Sender of {} restarted at offset {}", name, batch.firstOffset());
+            }
+            epoch = batch.epoch();
+            applied = batch.firstOffset() - 1;
+        } else if (batch.firstOffset() > applied + 1) {
+            missed += batch.firstOffset() - applied - 1;
+        }
+        batch.forEach(applied + 1, dictionaries, consumer);
+        applied = Math.max(applied, batch.lastOffset());
+        return applied;
+    }
+
+    synchronized long applied() {
+        return applied;
+    }
+
+    synchronized long missed() {
+        return missed;
+    }
+
+    long lastContactNanos() {
+        return lastContactNanos;
+    }
+}
@@ -0,0 +1,102 @@
+package your.name.here.replication;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import your.name.here.aggregate.AggregateCube;
+import your.name.here.aggregate.AggregateQuery;
+import your.name.here.aggregate.BucketValues;
+import your.name.here.domain.TimeRange;
+import your.name.here.encoding.Dictionaries;
+import your.name.here.encoding.EncodedUserTag;
+import your.name.here.profile.ProfileSink;
+import your.name.here.profile.ProfileStore;
+
+/**
+ * The copy of the predecessor's shard: its own profile store and cube, fed by the predecessor's replication
+ * stream. The copy takes over the shard once the stream has been silent, heartbeats included, for the failover
+ * timeout; tags it accepts in the meantime are queued for handing back and the primary gets them when its stream
+ * comes back.
+ */
+class ReplicaShard {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaShard.class);
+
+    private final String primary;
+    private final Dictionaries dictionaries;
+    private final ProfileStore profileStore;
+    private final AggregateCube aggregateCube;
+    private final ReplicationLog handback;
+    private final long failoverTimeoutNanos;
+    private final InboundStream stream;
+
+    private boolean promoted;
+
+    ReplicaShard(String primary, Dictionaries dictionaries, ProfileStore profileStore, AggregateCube aggregateCube,
+            ReplicationLog handback, long failoverTimeoutMillis) {
+        this.primary = primary;
+        this.dictionaries = dictionaries;
+        this.profileStore = profileStore;
+        this.aggregateCube = aggregateCube;
+        this.handback = handback;
+        this.failoverTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(failoverTimeoutMillis);
+        this.stream = new InboundStream("replication from " + primary);
+    }
+
+    long apply(ReplicationBatch batch) throws IOException {
+        synchronized (this) {
+            if (promoted) {
+                promoted = false;
+                log.info("Primary {} is back, handing back {} user tags accepted during the failover", primary,
+                        handback.lagRecords());
+            }
+        }
+        return stream.apply(batch, dictionaries, tag -> {
+            profileStore.add(tag);
+            aggregateCube.add(tag);
+        });
+    }
+
+    /**
+     * Returns whether the replica stands in for the primary, taking over if the primary has been silent for long
+     * enough.
+     */
+    synchronized boolean promoted() {
+        if (!promoted && System.nanoTime() - stream.lastContactNanos() > failoverTimeoutNanos) {
+            promoted = true;
+            log.warn("No replication from {} for {} ms, serving its shard from the replica", primary,
+                    TimeUnit.NANOSECONDS.toMillis(failoverTimeoutNanos));
+        }
+        return promoted;
+    }
+
+    void ingest(EncodedUserTag tag) {
+        profileStore.add(tag);
+        aggregateCube.add(tag);
+        handback.append(tag);
+    }
+
+    void read(String cookie, TimeRange timeRange, int limit, ProfileSink sink) {
+        profileStore.read(cookie, timeRange, limit, sink);
+    }
+
+    BucketValues query(AggregateQuery query) {
+        return aggregateCube.query(query);
+    }
+
+    void expireBefore(long horizon) {
+        profileStore.expireBefore(horizon);
+        aggregateCube.expireBefore(horizon);
+    }
+
+    InboundStream stream() {
+        return stream;
+    }
+
+    ReplicationLog handback() {
+        return handback;
+    }
+}
@@ -0,0 +1,110 @@
+package your.name.here.replication;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+import your.name.here.domain.Action;
+import your.name.here.domain.Device;
+import your.name.here.encoding.Dictionaries;
+import your.name.here.encoding.EncodedUserTag;
+
+/**
+ * A run of consecutive records of one replication stream: the epoch of the sender, the shard the tags belong to,
+ * the offset of the first record and the records. Dictionary values travel as strings, because dictionary ids are
+ * assigned by every node on its own. An empty batch is a heartbeat.
+ */
+final class ReplicationBatch {
+
+    private static final Device[] DEVICES = Device.values();
+    private static final Action[] ACTIONS = Action.values();
+
+    private final long epoch;
+    private final int shard;
+    private final long firstOffset;
+    private final int count;
+    private final DataInputStream records;
+
+    private ReplicationBatch(long epoch, int shard, long firstOffset, int count, DataInputStream records) {
+        this.epoch = epoch;
+        this.shard = shard;
+        this.firstOffset = firstOffset;
+        this.count = count;
+        this.records = records;
+    }
+
+    static byte[] encode(long epoch, int shard, long firstOffset, EncodedUserTag[] tags, int count,
+            Dictionaries dictionaries) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32 + count * 64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(epoch);
+            out.writeInt(shard);
+            out.writeLong(firstOffset);
+            out.writeInt(count);
+            for (int i = 0; i < count; i++) {
+                EncodedUserTag tag = tags[i];
+                out.writeLong(tag.getTime());
+                out.writeUTF(tag.getCookie());
+                out.writeUTF(dictionaries.countries().valueOf(tag.getCountry()));
+                out.writeByte(tag.getDevice().ordinal());
+                out.writeByte(tag.getAction().ordinal());
+                out.writeUTF(dictionaries.origins().valueOf(tag.getOrigin()));
+                out.writeInt(tag.getProductId());
+                out.writeUTF(dictionaries.brands().valueOf(tag.getBrand()));
+                out.writeUTF(dictionaries.categories().valueOf(tag.getCategory()));
+                out.writeInt(tag.getPrice());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static ReplicationBatch read(byte[] body) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+        return new ReplicationBatch(in.readLong(), in.readInt(), in.readLong(), in.readInt(), in);
+    }
+
+    long epoch() {
+        return epoch;
+    }
+
+    int shard() {
+        return shard;
+    }
+
+    long firstOffset() {
+        return firstOffset;
+    }
+
+    long lastOffset() {
+        return firstOffset + count - 1;
+    }
+
+    /**
+     * Decodes the records with the local dictionaries and passes those from {@code fromOffset} on to the consumer,
+     * a new tag for every record.
+     */
+    void forEach(long fromOffset, Dictionaries dictionaries, Consumer<EncodedUserTag> consumer) throws IOException {
+        for (int i = 0; i < count; i++) {
+            EncodedUserTag tag = new EncodedUserTag();
+            tag.setTime(records.readLong());
+            tag.setCookie(records.readUTF());
+            tag.setCountry(dictionaries.countries().idOf(records.readUTF()));
+            tag.setDevice(DEVICES[records.readByte()]);
+            tag.setAction(ACTIONS[records.readByte()]);
+            tag.setOrigin(dictionaries.origins().idOf(records.readUTF()));
+            tag.setProductId(records.readInt());
+            tag.setBrand(dictionaries.brands().idOf(records.readUTF()));
+            tag.setCategory(dictionaries.categories().idOf(records.readUTF()));
+            tag.setPrice(records.readInt());
+            if (firstOffset + i >= fromOffset) {
+                consumer.accept(tag);
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package your.name.here.replication;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import your.name.here.aggregate.AggregateQuery;
+import your.name.here.cluster.ClusterController;
+import your.name.here.domain.Action;
+import your.name.here.domain.Aggregate;
+import your.name.here.domain.TimeRange;
+import your.name.here.encoding.Dictionaries;
+import your.name.here.encoding.EncodedUserTag;
+import your.name.here.encoding.UserTagDecoder;
+import your.name.here.ingest.UserTagIngestor;
+import your.name.here.profile.ProfileJsonWriter;
+
+/**
+ * The replication stream endpoint and the endpoints the cluster uses instead of the node-local ones while a node is
+ * down. Those answer from this node's replica of the predecessor's shard, with 503 as long as the predecessor is
+ * still heard from. Served by both the MVC and the WebFlux stack.
+ */
+@RestController
+@ConditionalOnExpression(Replicator.ENABLED)
+public class ReplicationController {
+
+    @Autowired
+    private Replicator replicator;
+
+    @Autowired
+    private UserTagIngestor userTagIngestor;
+
+    @Autowired
+    private UserTagDecoder userTagDecoder;
+
+    @Autowired
+    private Dictionaries dictionaries;
+
+    /**
+     * Applies a {@link ReplicationBatch} and answers with the acknowledged offset as 8 bytes.
+     */
+    @PostMapping(value = ClusterController.REPLICATION_PATH, produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public CompletableFuture<byte[]> replicate(@RequestBody byte[] batch) throws IOException {
+        return replicator.receive(batch, userTagIngestor::ingestHandedBack)
+                .thenApply(ack -> ByteBuffer.allocate(Long.BYTES).putLong(ack).array());
+    }
+
+    @PostMapping(ClusterController.REPLICA_PATH + "/user_tags")
+    public ResponseEntity<Void> addUserTag(@RequestBody(required = false) byte[] body) throws IOException {
+        if (!replicator.standsIn()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        EncodedUserTag tag = body == null ? null : userTagDecoder.decode(body, 0, body.length);
+        if (tag != null) {
+            replicator.ingestAsReplica(tag);
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping(value = ClusterController.REPLICA_PATH + "/user_profiles/{cookie}",
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getUserProfile(@PathVariable("cookie") String cookie,
+            @RequestParam("time_range") String timeRangeStr,
+            @RequestParam(defaultValue = "200") int limit) {
+        if (!replicator.standsIn()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        ProfileJsonWriter writer = new ProfileJsonWriter(cookie, dictionaries);
+        replicator.readReplica(cookie, TimeRange.parse(timeRangeStr), limit, writer);
+        ByteBuffer json = writer.toByteBuffer();
+        return ResponseEntity.ok(Arrays.copyOf(json.array(), json.remaining()));
+    }
+
+    /**
+     * Returns the buckets of the replica's cube in the format of
+     * {@link your.name.here.aggregate.BucketValues#writeTo}.
+     */
+    @PostMapping(value = ClusterController.REPLICA_PATH + "/aggregates",
+            produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<byte[]> partialAggregates(@RequestParam("time_range") String timeRangeStr,
+            @RequestParam("action") Action action,
+            @RequestParam("aggregates") List<Aggregate> aggregates,
+            @RequestParam(value = "origin", required = false) String origin,
+            @RequestParam(value = "brand_id", required = false) String brandId,
+            @RequestParam(value = "category_id", required = false) String categoryId) throws IOException {
+        if (!replicator.standsIn()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        AggregateQuery query = new AggregateQuery(TimeRange.parse(timeRangeStr), action, aggregates, origin, brandId,
+                categoryId);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        replicator.queryReplica(query).writeTo(new DataOutputStream(bytes));
+        return ResponseEntity.ok(bytes.toByteArray());
+    }
+
+    @GetMapping("/debug/replication")
+    public ReplicationReport report() {
+        return replicator.report();
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(Exception e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
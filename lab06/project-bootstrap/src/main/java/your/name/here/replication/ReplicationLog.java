@@ -0,0 +1,191 @@
+package your.name.here.replication;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import your.name.here.cluster.ClusterRouter;
+import your.name.here.encoding.Dictionaries;
+import your.name.here.encoding.EncodedUserTag;
+
+/**
+ * Outbound stream of the user tags of one shard to one node: an in-memory log numbered by offsets from 1, sent in
+ * order by a background thread one batch at a time and trimmed up to the offset the node acknowledges. A batch is
+ * sent when it is full or when its oldest record has waited for the linger time, so a trickle of tags does not cost
+ * a round trip each. A batch that fails is sent again from the first
+ * unacknowledged offset, and the receiver skips the records it has already applied.
+ *
+ * <p>Appending never waits for the receiver: when it falls behind by the whole capacity the oldest records are
+ * dropped and the receiver sees a gap. The epoch is drawn at startup, so the receiver can tell a restarted sender,
+ * which counts from 1 again, from a resent batch.
+ */
+class ReplicationLog {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicationLog.class);
+
+    private static final long RETRY_MILLIS = 100;
+
+    private final String name;
+    private final ClusterRouter router;
+    private final Dictionaries dictionaries;
+    private final int target;
+    private final int shard;
+    private final long epoch = ThreadLocalRandom.current().nextLong();
+    private final EncodedUserTag[] records;
+    private final long[] appendNanos;
+    private final int mask;
+    private final int maxBatch;
+    private final long lingerNanos;
+    private final long heartbeatMillis;
+    private final Thread sender;
+
+    private long next = 1;
+    private long acked;
+    private long dropped;
+    private boolean waiting;
+    private volatile boolean running = true;
+
+    /**
+     * @param heartbeatMillis how often an empty batch is sent when there is nothing to send, 0 for never
+     */
+    ReplicationLog(String name, ClusterRouter router, Dictionaries dictionaries, int target, int shard,
+            int capacity, int maxBatch, long lingerMillis, long heartbeatMillis) {
+        this.name = name;
+        this.router = router;
+        this.dictionaries = dictionaries;
+        this.target = target;
+        this.shard = shard;
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.records = new EncodedUserTag[size];
+        this.appendNanos = new long[size];
+        this.mask = size - 1;
+        this.maxBatch = maxBatch;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        this.heartbeatMillis = heartbeatMillis;
+        this.sender = new Thread(this::sendLoop, name + "-sender");
+        this.sender.setDaemon(true);
+    }
+
+    void start() {
+        sender.start();
+    }
+
+    synchronized void append(EncodedUserTag tag) {
+        if (next - acked > records.length) {
+            records[(int) (++acked & mask)] = null;
+            dropped++;
+        }
+        records[(int) (next & mask)] = tag;
+        appendNanos[(int) (next & mask)] = System.nanoTime();
+        next++;
+        if (waiting && (next - 1 - acked == 1 || next - 1 - acked == maxBatch)) {
+            notifyAll();
+        }
+    }
+
+    synchronized long lagRecords() {
+        return next - 1 - acked;
+    }
+
+    /**
+     * Age of the oldest record not yet acknowledged.
+     */
+    synchronized long lagMillis() {
+        return next - 1 == acked ? 0
+                : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - appendNanos[(int) ((acked + 1) & mask)]);
+    }
+
+    synchronized long dropped() {
+        return dropped;
+    }
+
+    void close() throws InterruptedException {
+        synchronized (this) {
+            running = false;
+            notifyAll();
+        }
+        sender.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    private void sendLoop() {
+        EncodedUserTag[] batch = new EncodedUserTag[maxBatch];
+        boolean failing = false;
+        while (running) {
+            long first;
+            int count;
+            synchronized (this) {
+                try {
+                    waitForRecords();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                first = acked + 1;
+                count = (int) Math.min(next - first, maxBatch);
+                for (int i = 0; i < count; i++) {
+                    batch[i] = records[(int) ((first + i) & mask)];
+                }
+            }
+            if (!running || (count == 0 && heartbeatMillis == 0)) {
+                continue;
+            }
+            try {
+                Long ack = router.replicate(target, ReplicationBatch.encode(epoch, shard, first, batch, count,
+                        dictionaries)).block(Duration.ofSeconds(5));
+                acknowledge(ack, first - 1 + count);
+                if (failing) {
+                    log.info("Sending {} to {} again", name, router.address(target));
+                    failing = false;
+                }
+            } catch (RuntimeException e) {
+                if (!failing) {
+                    log.warn("Could not send {} to {}, retrying: {}", name, router.address(target), e.toString());
+                    failing = true;
+                }
+                try {
+                    Thread.sleep(RETRY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void waitForRecords() throws InterruptedException {
+        long heartbeatDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(heartbeatMillis);
+        waiting = true;
+        try {
+            while (running) {
+                long deadline;
+                if (next - 1 - acked >= maxBatch) {
+                    return;
+                } else if (next - 1 > acked) {
+                    deadline = appendNanos[(int) ((acked + 1) & mask)] + lingerNanos;
+                } else if (heartbeatMillis == 0) {
+                    wait();
+                    continue;
+                } else {
+                    deadline = heartbeatDeadline;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+        } finally {
+            waiting = false;
+        }
+    }
+
+    private synchronized void acknowledge(Long ack, long sent) {
+        // records dropped while the batch was in flight are already trimmed
+        long upTo = ack == null ? acked : Math.max(acked, Math.min(ack, sent));
+        for (long offset = acked + 1; offset <= upTo; offset++) {
+            records[(int) (offset & mask)] = null;
+        }
+        acked = upTo;
+    }
+}
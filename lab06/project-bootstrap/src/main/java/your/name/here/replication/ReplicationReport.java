@@ -0,0 +1,80 @@
+package your.name.here.replication;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class ReplicationReport {
+
+    private final String replica;
+    @JsonProperty("lag_records")
+    private final long lagRecords;
+    @JsonProperty("lag_millis")
+    private final long lagMillis;
+    @JsonProperty("dropped_records")
+    private final long droppedRecords;
+    private final String primary;
+    @JsonProperty("applied_offset")
+    private final long appliedOffset;
+    @JsonProperty("missed_records")
+    private final long missedRecords;
+    @JsonProperty("millis_since_primary_contact")
+    private final long millisSincePrimaryContact;
+    @JsonProperty("stands_in")
+    private final boolean standsIn;
+    @JsonProperty("hand_back_records")
+    private final long handBackRecords;
+
+    public ReplicationReport(String replica, long lagRecords, long lagMillis, long droppedRecords, String primary,
+            long appliedOffset, long missedRecords, long millisSincePrimaryContact, boolean standsIn,
+            long handBackRecords) {
+        this.replica = replica;
+        this.lagRecords = lagRecords;
+        this.lagMillis = lagMillis;
+        this.droppedRecords = droppedRecords;
+        this.primary = primary;
+        this.appliedOffset = appliedOffset;
+        this.missedRecords = missedRecords;
+        this.millisSincePrimaryContact = millisSincePrimaryContact;
+        this.standsIn = standsIn;
+        this.handBackRecords = handBackRecords;
+    }
+
+    public String getReplica() {
+        return replica;
+    }
+
+    public long getLagRecords() {
+        return lagRecords;
+    }
+
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    public long getDroppedRecords() {
+        return droppedRecords;
+    }
+
+    public String getPrimary() {
+        return primary;
+    }
+
+    public long getAppliedOffset() {
+        return appliedOffset;
+    }
+
+    public long getMissedRecords() {
+        return missedRecords;
+    }
+
+    public long getMillisSincePrimaryContact() {
+        return millisSincePrimaryContact;
+    }
+
+    public boolean isStandsIn() {
+        return standsIn;
+    }
+
+    public long getHandBackRecords() {
+        return handBackRecords;
+    }
+}
@@ -0,0 +1,183 @@
+package your.name.here.replication;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import your.name.here.aggregate.AggregateCube;
+import your.name.here.aggregate.AggregateQuery;
+import your.name.here.aggregate.BucketValues;
+import your.name.here.cluster.ClusterRouter;
+import your.name.here.domain.TimeRange;
+import your.name.here.encoding.Dictionaries;
+import your.name.here.encoding.EncodedUserTag;
+import your.name.here.profile.CompressedProfileStore;
+import your.name.here.profile.OffHeapProfileStore;
+import your.name.here.profile.ProfileSink;
+import your.name.here.profile.ProfileStore;
+import your.name.here.profile.StripedProfileStore;
+import your.name.here.retention.Retained;
+
+/**
+ * Replication factor 2 for a cluster: every node streams the user tags it accepts for its own shard to its
+ * {@link ClusterRouter#successor} and keeps a {@link ReplicaShard} of its predecessor's shard. Streaming is
+ * asynchronous, the request thread only appends the tag to an in-memory {@link ReplicationLog}, so an accepted tag
+ * is lost with its node if the node dies within the replication lag.
+ *
+ * <p>The replica stands in for its primary once the primary's stream has been silent for
+ * {@code allezon.replication.failover-timeout-ms}; the stream sends a heartbeat every
+ * {@code allezon.replication.heartbeat-ms} when idle. Tags accepted by the standing-in replica are handed back to
+ * the primary when it reappears, and applied there without being replicated again. A node that restarts rebuilds
+ * its own shard from its write-ahead log, but its replica of the predecessor only follows new tags.
+ *
+ * <p>The replica keeps its profiles in the same kind of store as the node's own shard, chosen with
+ * {@code allezon.profiles.store}. With {@code aerospike} the records already have replicas in the Aerospike cluster
+ * and the replica of the shard, only read during a failover, is kept off-heap.
+ */
+@Component
+@ConditionalOnExpression(Replicator.ENABLED)
+public class Replicator implements Retained {
+
+    public static final String ENABLED =
+            "!'${allezon.cluster.nodes:}'.isEmpty() and ${allezon.replication.enabled:true}";
+
+    private static final Logger log = LoggerFactory.getLogger(Replicator.class);
+
+    private final ClusterRouter router;
+    private final Dictionaries dictionaries;
+    private final ReplicationLog outbound;
+    private final ReplicaShard replica;
+    private final InboundStream handedBack = new InboundStream("hand-back");
+    private final boolean active;
+
+    @Autowired
+    public Replicator(ClusterRouter router, Dictionaries dictionaries,
+            @Value("${allezon.profiles.store:offheap}") String store,
+            @Value("${allezon.profiles.expected-cookies:1000000}") int expectedCookies,
+            @Value("${allezon.aggregates.allowed-lateness-ms:30000}") long allowedLatenessMillis,
+            @Value("${allezon.replication.buffer-records:1048576}") int bufferRecords,
+            @Value("${allezon.replication.batch-records:4096}") int batchRecords,
+            @Value("${allezon.replication.linger-ms:50}") long lingerMillis,
+            @Value("${allezon.replication.heartbeat-ms:200}") long heartbeatMillis,
+            @Value("${allezon.replication.failover-timeout-ms:1000}") long failoverTimeoutMillis) {
+        this.router = router;
+        this.dictionaries = dictionaries;
+        int self = router.self();
+        int primary = router.predecessor(self);
+        this.outbound = new ReplicationLog("replication", router, dictionaries, router.successor(self), self,
+                bufferRecords, batchRecords, lingerMillis, heartbeatMillis);
+        ReplicationLog handback = new ReplicationLog("hand-back", router, dictionaries, primary, primary,
+                bufferRecords, batchRecords, lingerMillis, 0);
+        this.replica = new ReplicaShard(router.address(primary), dictionaries,
+                replicaStore(store, expectedCookies), new AggregateCube(dictionaries, allowedLatenessMillis),
+                handback, failoverTimeoutMillis);
+        // a single node has nowhere to replicate to
+        this.active = primary != self;
+        if (active) {
+            outbound.start();
+            handback.start();
+            log.info("Replicating to {}, keeping the replica of {}", router.address(router.successor(self)),
+                    router.address(primary));
+        }
+    }
+
+    /**
+     * Queues a tag accepted for this node's shard for its replica.
+     */
+    public void replicate(EncodedUserTag tag) {
+        if (active) {
+            outbound.append(tag);
+        }
+    }
+
+    /**
+     * Applies a batch received from another node and returns the offset to acknowledge: a batch of the
+     * predecessor's shard goes to the replica, a batch of this node's shard carries tags handed back by the successor
+     * and is acknowledged once {@code handBack} has made them durable.
+     */
+    public CompletableFuture<Long> receive(byte[] body, Function<EncodedUserTag, CompletableFuture<Void>> handBack)
+            throws IOException {
+        ReplicationBatch batch = ReplicationBatch.read(body);
+        if (batch.shard() == router.predecessor(router.self())) {
+            return CompletableFuture.completedFuture(replica.apply(batch));
+        }
+        if (batch.shard() != router.self()) {
+            throw new IllegalArgumentException("Shard of " + router.address(batch.shard())
+                    + " is neither kept nor replicated by this node");
+        }
+        List<CompletableFuture<Void>> durable = new ArrayList<>();
+        long ack = handedBack.apply(batch, dictionaries, tag -> durable.add(handBack.apply(tag)));
+        return CompletableFuture.allOf(durable.toArray(CompletableFuture[]::new)).thenApply(done -> ack);
+    }
+
+    /**
+     * Returns whether this node serves the predecessor's shard, see {@link ReplicaShard#promoted}.
+     */
+    public boolean standsIn() {
+        return replica.promoted();
+    }
+
+    public void ingestAsReplica(EncodedUserTag tag) {
+        replica.ingest(tag);
+    }
+
+    public void readReplica(String cookie, TimeRange timeRange, int limit, ProfileSink sink) {
+        replica.read(cookie, timeRange, limit, sink);
+    }
+
+    public BucketValues queryReplica(AggregateQuery query) {
+        return replica.query(query);
+    }
+
+    /**
+     * Expires the replica of the predecessor's shard with this node's horizon.
+     */
+    @Override
+    public void expireBefore(long horizon) {
+        replica.expireBefore(horizon);
+    }
+
+    public ReplicationReport report() {
+        int self = router.self();
+        InboundStream stream = replica.stream();
+        return new ReplicationReport(router.address(router.successor(self)), outbound.lagRecords(),
+                outbound.lagMillis(), outbound.dropped(), router.address(router.predecessor(self)), stream.applied(),
+                stream.missed(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - stream.lastContactNanos()),
+                replica.promoted(), replica.handback().lagRecords());
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        outbound.close();
+        replica.handback().close();
+    }
+
+    /**
+     * Creates the store of the replica's profiles for the value of {@code allezon.profiles.store}.
+     */
+    static ProfileStore replicaStore(String store, int expectedCookies) {
+        switch (store) {
+            case "offheap":
+            case "aerospike":
+                return new OffHeapProfileStore(expectedCookies);
+            case "heap":
+                return new StripedProfileStore(expectedCookies);
+            case "compressed":
+                return new CompressedProfileStore(expectedCookies);
+            default:
+                throw new IllegalArgumentException("Unknown allezon.profiles.store=" + store);
+        }
+    }
+}
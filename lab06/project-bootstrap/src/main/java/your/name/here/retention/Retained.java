@@ -0,0 +1,14 @@
+package your.name.here.retention;
+
+/**
+ * State discarded by {@link RetentionManager} once it falls out of the retention window of event time.
+ */
+public interface Retained {
+
+    /**
+     * Discards what holds no events newer than {@code horizon}. Called from a single thread with a horizon that
+     * never decreases; the work per call is proportional to the time the horizon moved and to what is discarded,
+     * not to the size of the state.
+     */
+    void expireBefore(long horizon);
+}
@@ -0,0 +1,17 @@
+package your.name.here.retention;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class RetentionController {
+
+    @Autowired
+    private RetentionManager retentionManager;
+
+    @GetMapping("/debug/retention")
+    public RetentionReport report() {
+        return retentionManager.report();
+    }
+}
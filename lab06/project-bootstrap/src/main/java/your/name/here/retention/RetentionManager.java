@@ -0,0 +1,96 @@
+package your.name.here.retention;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import your.name.here.aggregate.AggregateCube;
+import your.name.here.encoding.Timestamps;
+import your.name.here.profile.ProfileStore;
+
+/**
+ * Enforces the retention window of {@code allezon.retention.window-minutes} of event time: every
+ * {@code allezon.retention.tick-ms} of wall time it moves the horizon to the event-time watermark of the
+ * {@link AggregateCube} minus the window and lets every {@link Retained} bean discard what is older.
+ */
+@Component
+public class RetentionManager {
+
+    private static final Logger log = LoggerFactory.getLogger(RetentionManager.class);
+
+    private final long windowMillis;
+    private final long tickMillis;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "retention");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    private AggregateCube aggregateCube;
+
+    @Autowired
+    private ProfileStore profileStore;
+
+    @Autowired
+    private List<Retained> retained;
+
+    private volatile long horizon = Long.MIN_VALUE;
+
+    public RetentionManager(@Value("${allezon.retention.window-minutes:1440}") int windowMinutes,
+            @Value("${allezon.retention.tick-ms:1000}") long tickMillis) {
+        this.windowMillis = TimeUnit.MINUTES.toMillis(windowMinutes);
+        this.tickMillis = tickMillis;
+    }
+
+    @PostConstruct
+    public void schedule() {
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                tick();
+            } catch (Exception e) {
+                log.error("Cannot expire data past the retention window", e);
+            }
+        }, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the event time data is kept from, {@link Long#MIN_VALUE} before the first expiry.
+     */
+    public long horizon() {
+        return horizon;
+    }
+
+    public RetentionReport report() {
+        long start = horizon;
+        return new RetentionReport(TimeUnit.MILLISECONDS.toMinutes(windowMillis),
+                start == Long.MIN_VALUE ? null : Timestamps.formatMillis(start), profileStore.cookies());
+    }
+
+    private void tick() {
+        long watermark = aggregateCube.watermark();
+        if (watermark == Long.MIN_VALUE || watermark - windowMillis <= horizon) {
+            return;
+        }
+        horizon = watermark - windowMillis;
+        for (Retained state : retained) {
+            state.expireBefore(horizon);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        scheduler.shutdownNow();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,29 @@
+package your.name.here.retention;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class RetentionReport {
+
+    @JsonProperty("window_minutes")
+    private final long windowMinutes;
+    private final String horizon;
+    private final int cookies;
+
+    public RetentionReport(long windowMinutes, String horizon, int cookies) {
+        this.windowMinutes = windowMinutes;
+        this.horizon = horizon;
+        this.cookies = cookies;
+    }
+
+    public long getWindowMinutes() {
+        return windowMinutes;
+    }
+
+    public String getHorizon() {
+        return horizon;
+    }
+
+    public int getCookies() {
+        return cookies;
+    }
+}
@@ -0,0 +1,120 @@
+package your.name.here.retention;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel over event time: {@link #LEVELS} wheels of {@link #SLOTS} slots, the first one ticking
+ * every {@code tickMillis} and each next one {@link #SLOTS} times slower. A timer goes to the slowest-ticking wheel
+ * it needs and is moved down a level each time that wheel's slot comes round, so scheduling is O(1) and advancing
+ * is O(1) per tick plus the timers moved or expired. Timers are intrusive, the scheduled objects themselves are the
+ * list nodes, so a million of them cost no allocation.
+ *
+ * <p>A timer cannot be cancelled; owners reschedule it from the expiry callback when its deadline has moved, which
+ * is cheaper than moving it on every update.
+ */
+public class TimingWheel<T extends TimingWheel.Timer> {
+
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    private final long tickMillis;
+    private final Timer[][] wheels = new Timer[LEVELS][SLOTS];
+
+    private long now = Long.MIN_VALUE;
+    private int size;
+
+    public TimingWheel(long tickMillis) {
+        this.tickMillis = tickMillis;
+    }
+
+    /**
+     * Schedules the timer, which must not be scheduled already, to expire once the wheel is advanced past
+     * {@code deadline}; a deadline already passed expires at the next tick.
+     */
+    public synchronized void schedule(T timer, long deadline) {
+        long tick = Math.floorDiv(deadline, tickMillis);
+        if (now == Long.MIN_VALUE) {
+            now = tick - 1;
+        }
+        timer.tick = Math.max(tick, now + 1);
+        insert(timer);
+        size++;
+    }
+
+    /**
+     * Advances the wheel to {@code time} and passes the expired timers to {@code expired} once the wheel is no longer
+     * locked, so the callback may schedule them again.
+     */
+    public void advance(long time, Consumer<T> expired) {
+        List<T> due = new ArrayList<>();
+        synchronized (this) {
+            long target = Math.floorDiv(time, tickMillis);
+            if (now == Long.MIN_VALUE) {
+                now = target;
+            }
+            while (now < target && size > 0) {
+                now++;
+                cascade();
+                collect(due);
+            }
+            now = Math.max(now, target);
+        }
+        due.forEach(expired);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private void cascade() {
+        for (int level = 1; level < LEVELS && (now & ((1L << (BITS * level)) - 1)) == 0; level++) {
+            int slot = (int) (now >>> (BITS * level)) & MASK;
+            Timer timer = wheels[level][slot];
+            wheels[level][slot] = null;
+            while (timer != null) {
+                Timer next = timer.next;
+                insert(timer);
+                timer = next;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void collect(List<T> due) {
+        int slot = (int) now & MASK;
+        Timer timer = wheels[0][slot];
+        wheels[0][slot] = null;
+        while (timer != null) {
+            Timer next = timer.next;
+            timer.next = null;
+            due.add((T) timer);
+            size--;
+            timer = next;
+        }
+    }
+
+    private void insert(Timer timer) {
+        long delta = timer.tick - now;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (BITS * (level + 1))) {
+            level++;
+        }
+        // beyond the span of the slowest wheel a timer comes round early and is inserted again
+        int slot = (int) (timer.tick >>> (BITS * level)) & MASK;
+        timer.next = wheels[level][slot];
+        wheels[level][slot] = timer;
+    }
+
+    /**
+     * Node of a slot list, extended by the scheduled objects.
+     */
+    public abstract static class Timer {
+
+        long tick;
+        Timer next;
+    }
+}
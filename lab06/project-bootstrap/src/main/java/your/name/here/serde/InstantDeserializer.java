@@ -0,0 +1,26 @@
+package your.name.here.serde;
+
+import java.io.IOException;
+import java.time.Instant;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+
+import your.name.here.encoding.Timestamps;
+
+public class InstantDeserializer extends JsonDeserializer<Instant> {
+    @Override
+    public Instant deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (p.currentToken() != JsonToken.VALUE_STRING) {
+            return (Instant) ctxt.handleUnexpectedToken(Instant.class, p);
+        }
+        try {
+            return Instant.ofEpochMilli(Timestamps.parseMillis(p.getTextCharacters(), p.getTextOffset(), p.getTextLength()));
+        } catch (IllegalArgumentException e) {
+            return (Instant) ctxt.handleWeirdStringValue(Instant.class, p.getText(),
+                    "Expected format is 2022-03-22T12:15:00.000Z");
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package your.name.here.serde;
+
+import java.io.IOException;
+import java.time.Instant;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import your.name.here.encoding.Timestamps;
+
+public class InstantSerializer extends JsonSerializer<Instant> {
+    @Override
+    public void serialize(Instant value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        char[] chars = new char[24];
+        gen.writeString(chars, 0, Timestamps.write(chars, value.toEpochMilli(), true));
+    }
+}
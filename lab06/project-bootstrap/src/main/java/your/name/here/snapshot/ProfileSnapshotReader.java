@@ -0,0 +1,57 @@
+package your.name.here.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+import your.name.here.domain.Action;
+import your.name.here.domain.Device;
+import your.name.here.encoding.EncodedUserTag;
+
+/**
+ * Reads back the stream written by {@link ProfileSnapshotWriter}, in the original order.
+ */
+class ProfileSnapshotReader {
+
+    private static final Device[] DEVICES = Device.values();
+    private static final Action[] ACTIONS = Action.values();
+
+    private ProfileSnapshotReader() {
+    }
+
+    static long read(ByteBuffer in, Consumer<EncodedUserTag> consumer) throws IOException {
+        byte[] bytes = new byte[256];
+        String cookie = null;
+        long events = 0;
+        while (true) {
+            byte entry = in.get();
+            if (entry == ProfileSnapshotWriter.END) {
+                return events;
+            } else if (entry == ProfileSnapshotWriter.PROFILE) {
+                int length = Short.toUnsignedInt(in.getShort());
+                if (length > bytes.length) {
+                    bytes = new byte[length];
+                }
+                in.get(bytes, 0, length);
+                cookie = new String(bytes, 0, length, StandardCharsets.UTF_8);
+            } else if (entry == ProfileSnapshotWriter.EVENT && cookie != null) {
+                EncodedUserTag tag = new EncodedUserTag();
+                tag.setCookie(cookie);
+                tag.setTime(in.getLong());
+                tag.setProductId(in.getInt());
+                tag.setPrice(in.getInt());
+                tag.setCountry(Short.toUnsignedInt(in.getShort()));
+                tag.setOrigin(Short.toUnsignedInt(in.getShort()));
+                tag.setBrand(Short.toUnsignedInt(in.getShort()));
+                tag.setCategory(Short.toUnsignedInt(in.getShort()));
+                tag.setDevice(DEVICES[in.get()]);
+                tag.setAction(ACTIONS[in.get()]);
+                consumer.accept(tag);
+                events++;
+            } else {
+                throw new IOException("Corrupted profile snapshot entry: " + entry);
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package your.name.here.snapshot;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+import your.name.here.encoding.EncodedUserTag;
+import your.name.here.profile.ProfileSink;
+
+/**
+ * Writes exported profiles as a stream of {@link #PROFILE} entries with the length-prefixed UTF-8 cookie, each
+ * followed by one 26-byte {@link #EVENT} entry per event, and closed by {@link #END}.
+ */
+class ProfileSnapshotWriter implements ProfileSink {
+
+    static final byte END = 0;
+    static final byte PROFILE = 1;
+    static final byte EVENT = 2;
+
+    private final DataOutput out;
+
+    private String cookie;
+    private long events;
+
+    ProfileSnapshotWriter(DataOutput out) {
+        this.out = out;
+    }
+
+    @Override
+    public void accept(EncodedUserTag tag) {
+        try {
+            if (!tag.getCookie().equals(cookie)) {
+                cookie = tag.getCookie();
+                byte[] bytes = cookie.getBytes(StandardCharsets.UTF_8);
+                out.writeByte(PROFILE);
+                out.writeShort(bytes.length);
+                out.write(bytes);
+            }
+            out.writeByte(EVENT);
+            out.writeLong(tag.getTime());
+            out.writeInt(tag.getProductId());
+            out.writeInt(tag.getPrice());
+            out.writeShort(tag.getCountry());
+            out.writeShort(tag.getOrigin());
+            out.writeShort(tag.getBrand());
+            out.writeShort(tag.getCategory());
+            out.writeByte(tag.getDevice().ordinal());
+            out.writeByte(tag.getAction().ordinal());
+            events++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    long finish() throws IOException {
+        out.writeByte(END);
+        return events;
+    }
+}
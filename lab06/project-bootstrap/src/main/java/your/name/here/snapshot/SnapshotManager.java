@@ -0,0 +1,257 @@
+package your.name.here.snapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import your.name.here.aggregate.AggregateCube;
+import your.name.here.profile.ProfileStore;
+import your.name.here.wal.WriteAheadLog;
+
+/**
+ * Periodic snapshots of the profile store and the aggregate cube, so that a restart loads them and replays only the
+ * write-ahead log written after.
+ *
+ * <p>A snapshot is a directory named after the sequence number of the last log record it fully contains, holding
+ * {@code cube.bin} and {@code profiles-NN.bin} parts partitioned by cookie hash. The cube is copied at a log
+ * checkpoint, so it reflects exactly the records up to that number; appends only wait for the copy of its open
+ * minutes. Profiles are exported afterwards one at a time under their stripe lock, without stopping ingestion: they
+ * contain every record up to that number and possibly some later ones, which {@link ProfileStore#restore} skips
+ * during the replay. Parts are written and read by parallel threads, and a snapshot only becomes visible once all
+ * its files are synced and its directory is renamed.
+ */
+@Component
+@ConditionalOnProperty(name = {"allezon.wal.enabled", "allezon.snapshot.enabled"}, havingValue = "true",
+        matchIfMissing = true)
+public class SnapshotManager {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotManager.class);
+
+    private static final String CUBE_FILE = "cube.bin";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final int parts;
+    private final int retained;
+    private final long intervalMillis;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    private ProfileStore profileStore;
+
+    @Autowired
+    private AggregateCube aggregateCube;
+
+    @Autowired
+    private WriteAheadLog writeAheadLog;
+
+    private long lastLsn;
+
+    public SnapshotManager(@Value("${allezon.state.dir:state}") String stateDir,
+            @Value("${allezon.snapshot.parts:16}") int parts,
+            @Value("${allezon.snapshot.retained:2}") int retained,
+            @Value("${allezon.snapshot.interval-minutes:10}") int intervalMinutes) throws IOException {
+        this.directory = Files.createDirectories(Paths.get(stateDir, "snapshots"));
+        this.parts = parts;
+        this.retained = retained;
+        this.intervalMillis = TimeUnit.MINUTES.toMillis(intervalMinutes);
+    }
+
+    /**
+     * Loads the latest snapshot into the profile store and the aggregate cube and returns the sequence number of
+     * the last log record it contains, or 0 if there is none.
+     */
+    public long restore() throws IOException, InterruptedException {
+        List<Path> snapshots = snapshots();
+        if (snapshots.isEmpty()) {
+            return 0;
+        }
+        Path snapshot = snapshots.get(snapshots.size() - 1);
+        long start = System.nanoTime();
+        aggregateCube.readFrom(map(snapshot.resolve(CUBE_FILE)));
+        long cubeMillis = (System.nanoTime() - start) / 1_000_000;
+        List<Path> partFiles;
+        try (Stream<Path> files = Files.list(snapshot)) {
+            partFiles = files.filter(path -> !path.getFileName().toString().equals(CUBE_FILE))
+                    .collect(Collectors.toList());
+        }
+        long events = 0;
+        for (long partEvents : inParallel(partFiles.size(),
+                part -> ProfileSnapshotReader.read(map(partFiles.get(part)), profileStore::add))) {
+            events += partEvents;
+        }
+        lastLsn = lsnOf(snapshot);
+        log.info("Restored snapshot {} in {} ms: cube in {} ms, {} events in {} parts", snapshot.getFileName(),
+                (System.nanoTime() - start) / 1_000_000, cubeMillis, events, partFiles.size());
+        return lastLsn;
+    }
+
+    public void schedule() {
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                take();
+            } catch (Exception e) {
+                log.error("Cannot take snapshot", e);
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void take() throws IOException, InterruptedException {
+        Checkpoint checkpoint = writeAheadLog.checkpoint(lsn -> new Checkpoint(lsn, aggregateCube.copy()));
+        if (checkpoint.lsn == lastLsn) {
+            return;
+        }
+        long start = System.nanoTime();
+        String name = String.format("%020d", checkpoint.lsn);
+        Path temporary = Files.createDirectories(directory.resolve(name + TEMPORARY_SUFFIX));
+        write(temporary.resolve(CUBE_FILE), out -> {
+            checkpoint.cube.writeTo(out);
+            return 0L;
+        });
+        long events = 0;
+        for (long partEvents : inParallel(parts, part -> write(temporary.resolve(String.format("profiles-%02d.bin",
+                part)), out -> {
+            ProfileSnapshotWriter writer = new ProfileSnapshotWriter(out);
+            profileStore.export(part, parts, writer);
+            return writer.finish();
+        }))) {
+            events += partEvents;
+        }
+        Files.move(temporary, directory.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+        lastLsn = checkpoint.lsn;
+        log.info("Took snapshot {} with {} events in {} ms", name, events, (System.nanoTime() - start) / 1_000_000);
+
+        List<Path> snapshots = snapshots();
+        for (Path expired : snapshots.subList(0, Math.max(0, snapshots.size() - retained))) {
+            delete(expired);
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException, InterruptedException {
+        scheduler.shutdownNow();
+        scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        take();
+    }
+
+    private List<Path> snapshots() throws IOException {
+        List<Path> snapshots = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : files.collect(Collectors.toList())) {
+                if (path.getFileName().toString().endsWith(TEMPORARY_SUFFIX)) {
+                    delete(path);
+                } else {
+                    snapshots.add(path);
+                }
+            }
+        }
+        snapshots.sort(Comparator.comparingLong(SnapshotManager::lsnOf));
+        return snapshots;
+    }
+
+    private static long lsnOf(Path snapshot) {
+        return Long.parseLong(snapshot.getFileName().toString());
+    }
+
+    private long[] inParallel(int tasks, PartTask task) throws IOException, InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.max(1, Math.min(tasks, Runtime.getRuntime().availableProcessors())));
+        try {
+            List<Future<Long>> futures = new ArrayList<>();
+            for (int i = 0; i < tasks; i++) {
+                int part = i;
+                futures.add(executor.submit(() -> task.run(part)));
+            }
+            long[] results = new long[tasks];
+            for (int i = 0; i < tasks; i++) {
+                results[i] = futures.get(i).get();
+            }
+            return results;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            } else if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static long write(Path path, Output output) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                        Channels.newOutputStream(channel), 1 << 16))) {
+            long result = output.writeTo(out);
+            out.flush();
+            channel.force(true);
+            return result;
+        }
+    }
+
+    private static ByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static void delete(Path path) throws IOException {
+        try (Stream<Path> files = Files.walk(path)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private interface PartTask {
+        long run(int part) throws IOException;
+    }
+
+    private interface Output {
+        long writeTo(DataOutputStream out) throws IOException;
+    }
+
+    private static class Checkpoint {
+        private final long lsn;
+        private final AggregateCube cube;
+
+        private Checkpoint(long lsn, AggregateCube cube) {
+            this.lsn = lsn;
+            this.cube = cube;
+        }
+    }
+}
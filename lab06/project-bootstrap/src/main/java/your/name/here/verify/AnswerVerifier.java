@@ -0,0 +1,253 @@
+package your.name.here.verify;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import your.name.here.domain.AggregatesQueryResult;
+import your.name.here.domain.Product;
+import your.name.here.domain.UserProfileResult;
+import your.name.here.domain.UserTagEvent;
+
+/**
+ * Compares a sample of the answers sent by the query endpoints with the expected answers that the requests carry.
+ * The request thread only decides whether to sample and hands over the answer it has already built; parsing and
+ * comparing happen on a single background thread with a bounded queue, and answers that do not fit are dropped.
+ *
+ * <p>Mismatches are counted by kind: missing and unexpected events and wrong order in profiles, missing and
+ * unexpected buckets, wrong columns and wrong values per column in aggregates. The last few are kept as readable
+ * diffs.
+ */
+@Component
+public class AnswerVerifier {
+
+    private static final Logger log = LoggerFactory.getLogger(AnswerVerifier.class);
+
+    private static final int QUEUE_CAPACITY = 1024;
+
+    private final double sampleRate;
+    private final int lastDiffsLimit;
+    private final ThreadPoolExecutor executor;
+    private final LongAdder checked = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final Map<String, LongAdder> mismatches = new ConcurrentHashMap<>();
+    private final Deque<Diff> lastDiffs = new ArrayDeque<>();
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public AnswerVerifier(@Value("${allezon.verifier.sample-rate:0}") double sampleRate,
+            @Value("${allezon.verifier.last-diffs:100}") int lastDiffsLimit) {
+        this.sampleRate = sampleRate;
+        this.lastDiffsLimit = lastDiffsLimit;
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+                    Thread thread = new Thread(runnable, "answer-verifier");
+                    thread.setDaemon(true);
+                    return thread;
+                }, (runnable, pool) -> dropped.increment());
+    }
+
+    /**
+     * Samples the pre-encoded profile answer; the bytes are copied only when the request is sampled.
+     */
+    public void verifyProfile(UserProfileResult expected, ByteBuffer actualJson) {
+        if (sampled(expected)) {
+            ByteBuffer json = actualJson.duplicate();
+            byte[] copy = new byte[json.remaining()];
+            json.get(copy);
+            executor.execute(() -> compareProfiles(expected, copy));
+        }
+    }
+
+    public void verifyProfile(UserProfileResult expected, UserProfileResult actual) {
+        if (sampled(expected)) {
+            executor.execute(() -> compareProfiles(expected, actual));
+        }
+    }
+
+    public void verifyAggregates(AggregatesQueryResult expected, AggregatesQueryResult actual) {
+        if (sampled(expected)) {
+            executor.execute(() -> compareAggregates(expected, actual));
+        }
+    }
+
+    public VerifierReport report() {
+        Map<String, Long> counts = new TreeMap<>();
+        mismatches.forEach((kind, count) -> counts.put(kind, count.sum()));
+        List<Diff> diffs;
+        synchronized (lastDiffs) {
+            diffs = new ArrayList<>(lastDiffs);
+        }
+        return new VerifierReport(sampleRate, checked.sum(), dropped.sum(), counts, diffs);
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private boolean sampled(Object expected) {
+        return expected != null && sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    private void compareProfiles(UserProfileResult expected, byte[] actualJson) {
+        UserProfileResult actual;
+        try {
+            actual = objectMapper.readValue(actualJson, UserProfileResult.class);
+        } catch (IOException e) {
+            log.warn("Cannot parse sampled profile answer", e);
+            return;
+        }
+        compareProfiles(expected, actual);
+    }
+
+    private void compareProfiles(UserProfileResult expected, UserProfileResult actual) {
+        String query = "user_profiles/" + expected.getCookie();
+        if (!Objects.equals(expected.getCookie(), actual.getCookie())) {
+            mismatch(query, "profile_wrong_cookie", expected.getCookie() + " != " + actual.getCookie());
+        }
+        compareEvents(query + " views", expected.getViews(), actual.getViews());
+        compareEvents(query + " buys", expected.getBuys(), actual.getBuys());
+        checked.increment();
+    }
+
+    private void compareEvents(String query, List<UserTagEvent> expected, List<UserTagEvent> actual) {
+        List<String> expectedKeys = keys(expected);
+        List<String> actualKeys = keys(actual);
+        Map<String, Integer> unmatched = new HashMap<>();
+        expectedKeys.forEach(key -> unmatched.merge(key, 1, Integer::sum));
+        boolean sameEvents = true;
+        for (String key : actualKeys) {
+            Integer count = unmatched.get(key);
+            if (count == null) {
+                mismatch(query, "profile_unexpected_event", key);
+                sameEvents = false;
+            } else if (count == 1) {
+                unmatched.remove(key);
+            } else {
+                unmatched.put(key, count - 1);
+            }
+        }
+        for (Map.Entry<String, Integer> entry : unmatched.entrySet()) {
+            for (int i = 0; i < entry.getValue(); i++) {
+                mismatch(query, "profile_missing_event", entry.getKey());
+            }
+            sameEvents = false;
+        }
+        if (sameEvents && !expectedKeys.equals(actualKeys)) {
+            mismatch(query, "profile_wrong_order", "expected " + times(expected) + ", got " + times(actual));
+        }
+    }
+
+    private void compareAggregates(AggregatesQueryResult expected, AggregatesQueryResult actual) {
+        String query = "aggregates " + expected.getColumns();
+        if (!Objects.equals(expected.getColumns(), actual.getColumns())) {
+            mismatch(query, "aggregates_wrong_columns", "got " + actual.getColumns());
+            checked.increment();
+            return;
+        }
+        Map<String, List<String>> actualRows = new HashMap<>();
+        for (List<String> row : actual.getRows()) {
+            actualRows.put(row.get(0), row);
+        }
+        for (List<String> expectedRow : expected.getRows()) {
+            List<String> actualRow = actualRows.remove(expectedRow.get(0));
+            if (actualRow == null) {
+                mismatch(query, "aggregates_missing_bucket", expectedRow.get(0));
+                continue;
+            }
+            for (int i = 1; i < expectedRow.size(); i++) {
+                if (!Objects.equals(expectedRow.get(i), actualRow.get(i))) {
+                    mismatch(query, "aggregates_wrong_" + expected.getColumns().get(i),
+                            expectedRow.get(0) + ": expected " + expectedRow.get(i) + ", got " + actualRow.get(i));
+                }
+            }
+        }
+        for (String bucket : actualRows.keySet()) {
+            mismatch(query, "aggregates_unexpected_bucket", bucket);
+        }
+        checked.increment();
+    }
+
+    private void mismatch(String query, String kind, String detail) {
+        mismatches.computeIfAbsent(kind, k -> new LongAdder()).increment();
+        synchronized (lastDiffs) {
+            if (lastDiffs.size() == lastDiffsLimit) {
+                lastDiffs.removeFirst();
+            }
+            lastDiffs.addLast(new Diff(Instant.now(), query, kind, detail));
+        }
+    }
+
+    private static List<String> keys(List<UserTagEvent> events) {
+        List<String> keys = new ArrayList<>(events.size());
+        for (UserTagEvent event : events) {
+            Product product = event.getProductInfo();
+            keys.add(event.getTime() + " " + event.getCountry() + " " + event.getDevice() + " " + event.getAction()
+                    + " " + event.getOrigin() + " " + product.getProductId() + " " + product.getBrandId() + " "
+                    + product.getCategoryId() + " " + product.getPrice());
+        }
+        return keys;
+    }
+
+    private static List<Instant> times(List<UserTagEvent> events) {
+        List<Instant> times = new ArrayList<>(events.size());
+        events.forEach(event -> times.add(event.getTime()));
+        return times;
+    }
+
+    public static class Diff {
+        private final Instant at;
+        private final String query;
+        private final String kind;
+        private final String detail;
+
+        private Diff(Instant at, String query, String kind, String detail) {
+            this.at = at;
+            this.query = query;
+            this.kind = kind;
+            this.detail = detail;
+        }
+
+        public Instant getAt() {
+            return at;
+        }
+
+        public String getQuery() {
+            return query;
+        }
+
+        public String getKind() {
+            return kind;
+        }
+
+        public String getDetail() {
+            return detail;
+        }
+    }
+}
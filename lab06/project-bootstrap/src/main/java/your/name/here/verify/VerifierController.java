@@ -0,0 +1,17 @@
+package your.name.here.verify;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class VerifierController {
+
+    @Autowired
+    private AnswerVerifier answerVerifier;
+
+    @GetMapping("/debug/verifier")
+    public VerifierReport report() {
+        return answerVerifier.report();
+    }
+}
@@ -0,0 +1,46 @@
+package your.name.here.verify;
+
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class VerifierReport {
+
+    @JsonProperty("sample_rate")
+    private final double sampleRate;
+    private final long checked;
+    private final long dropped;
+    private final Map<String, Long> mismatches;
+    @JsonProperty("last_diffs")
+    private final List<AnswerVerifier.Diff> lastDiffs;
+
+    public VerifierReport(double sampleRate, long checked, long dropped, Map<String, Long> mismatches,
+            List<AnswerVerifier.Diff> lastDiffs) {
+        this.sampleRate = sampleRate;
+        this.checked = checked;
+        this.dropped = dropped;
+        this.mismatches = mismatches;
+        this.lastDiffs = lastDiffs;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    public long getChecked() {
+        return checked;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    public Map<String, Long> getMismatches() {
+        return mismatches;
+    }
+
+    public List<AnswerVerifier.Diff> getLastDiffs() {
+        return lastDiffs;
+    }
+}
@@ -0,0 +1,190 @@
+package your.name.here.wal;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+import your.name.here.domain.Action;
+import your.name.here.domain.Device;
+import your.name.here.encoding.EncodedUserTag;
+
+/**
+ * Memory-mapped, fixed-size log file named after the sequence number of its first record. A record is
+ * {@code [payload length][CRC32C of payload][payload]}; the zero-filled remainder of the file ends the log, as does
+ * the first record with a wrong checksum, which is where a torn write after a crash would be.
+ */
+class WalSegment {
+
+    static final String SUFFIX = ".wal";
+
+    private static final int HEADER = 2 * Integer.BYTES;
+    private static final int FIXED_PAYLOAD = Long.BYTES + 2 * Integer.BYTES + 4 * Short.BYTES + 2 + Short.BYTES;
+    private static final int MAX_COOKIE_BYTES = 0xFFFF;
+
+    static final int MAX_PAYLOAD = FIXED_PAYLOAD + MAX_COOKIE_BYTES;
+
+    private static final Device[] DEVICES = Device.values();
+    private static final Action[] ACTIONS = Action.values();
+
+    private final Path path;
+    private final long firstLsn;
+    private final MappedByteBuffer buffer;
+    private final CRC32C crc = new CRC32C();
+
+    private int position;
+    private int records;
+    private volatile long maxEventTime = Long.MIN_VALUE;
+
+    private WalSegment(Path path, long firstLsn, MappedByteBuffer buffer) {
+        this.path = path;
+        this.firstLsn = firstLsn;
+        this.buffer = buffer;
+    }
+
+    static WalSegment create(Path directory, long firstLsn, int size) throws IOException {
+        Path path = directory.resolve(String.format("%020d%s", firstLsn, SUFFIX));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return new WalSegment(path, firstLsn, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+    }
+
+    /**
+     * Maps an existing segment and positions it after its last valid record.
+     */
+    static WalSegment open(Path path) throws IOException {
+        String name = path.getFileName().toString();
+        long firstLsn = Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            WalSegment segment = new WalSegment(path, firstLsn, channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    channel.size()));
+            segment.scan(segment.firstLsn, tag -> { });
+            return segment;
+        }
+    }
+
+    static boolean isSegment(Path path) {
+        return Files.isRegularFile(path) && path.getFileName().toString().endsWith(SUFFIX);
+    }
+
+    /**
+     * Appends the tag and returns its sequence number, or -1 when the segment has no room left for it.
+     */
+    long append(EncodedUserTag tag, byte[] scratch) {
+        byte[] cookie = tag.getCookie().getBytes(StandardCharsets.UTF_8);
+        if (cookie.length > MAX_COOKIE_BYTES) {
+            throw new IllegalArgumentException("Cookie too long: " + cookie.length + " bytes");
+        }
+        int length = FIXED_PAYLOAD + cookie.length;
+        if (position + HEADER + length + HEADER > buffer.capacity()) {
+            return -1;
+        }
+        int payload = position + HEADER;
+        buffer.putLong(payload, tag.getTime());
+        buffer.putInt(payload + 8, tag.getProductId());
+        buffer.putInt(payload + 12, tag.getPrice());
+        buffer.putShort(payload + 16, (short) tag.getCountry());
+        buffer.putShort(payload + 18, (short) tag.getOrigin());
+        buffer.putShort(payload + 20, (short) tag.getBrand());
+        buffer.putShort(payload + 22, (short) tag.getCategory());
+        buffer.put(payload + 24, (byte) tag.getDevice().ordinal());
+        buffer.put(payload + 25, (byte) tag.getAction().ordinal());
+        buffer.putShort(payload + 26, (short) cookie.length);
+        for (int i = 0; i < cookie.length; i++) {
+            buffer.put(payload + FIXED_PAYLOAD + i, cookie[i]);
+        }
+        buffer.putInt(position + Integer.BYTES, checksum(payload, length, scratch));
+        buffer.putInt(position, length);
+        position += HEADER + length;
+        maxEventTime = Math.max(maxEventTime, tag.getTime());
+        return firstLsn + records++;
+    }
+
+    /**
+     * Passes every valid record with a sequence number of at least {@code fromLsn} to the consumer and leaves the
+     * segment positioned after the last valid record.
+     */
+    void scan(long fromLsn, Consumer<EncodedUserTag> consumer) {
+        byte[] scratch = new byte[256];
+        int offset = 0;
+        int count = 0;
+        long maxTime = Long.MIN_VALUE;
+        while (offset + HEADER <= buffer.capacity()) {
+            int length = buffer.getInt(offset);
+            if (length < FIXED_PAYLOAD || length > buffer.capacity() - offset - HEADER) {
+                break;
+            }
+            if (length > scratch.length) {
+                scratch = new byte[length];
+            }
+            int payload = offset + HEADER;
+            if (checksum(payload, length, scratch) != buffer.getInt(offset + Integer.BYTES)) {
+                break;
+            }
+            EncodedUserTag tag = decode(payload, length);
+            maxTime = Math.max(maxTime, tag.getTime());
+            if (firstLsn + count >= fromLsn) {
+                consumer.accept(tag);
+            }
+            offset += HEADER + length;
+            count++;
+        }
+        position = offset;
+        records = count;
+        maxEventTime = maxTime;
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    void delete() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    long firstLsn() {
+        return firstLsn;
+    }
+
+    long nextLsn() {
+        return firstLsn + records;
+    }
+
+    long maxEventTime() {
+        return maxEventTime;
+    }
+
+    private EncodedUserTag decode(int payload, int length) {
+        EncodedUserTag tag = new EncodedUserTag();
+        tag.setTime(buffer.getLong(payload));
+        tag.setProductId(buffer.getInt(payload + 8));
+        tag.setPrice(buffer.getInt(payload + 12));
+        tag.setCountry(Short.toUnsignedInt(buffer.getShort(payload + 16)));
+        tag.setOrigin(Short.toUnsignedInt(buffer.getShort(payload + 18)));
+        tag.setBrand(Short.toUnsignedInt(buffer.getShort(payload + 20)));
+        tag.setCategory(Short.toUnsignedInt(buffer.getShort(payload + 22)));
+        tag.setDevice(DEVICES[buffer.get(payload + 24)]);
+        tag.setAction(ACTIONS[buffer.get(payload + 25)]);
+        byte[] cookie = new byte[Short.toUnsignedInt(buffer.getShort(payload + 26))];
+        for (int i = 0; i < cookie.length; i++) {
+            cookie[i] = buffer.get(payload + FIXED_PAYLOAD + i);
+        }
+        tag.setCookie(new String(cookie, StandardCharsets.UTF_8));
+        return tag;
+    }
+
+    private int checksum(int offset, int length, byte[] scratch) {
+        for (int i = 0; i < length; i++) {
+            scratch[i] = buffer.get(offset + i);
+        }
+        crc.reset();
+        crc.update(scratch, 0, length);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,270 @@
+package your.name.here.wal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import your.name.here.encoding.EncodedUserTag;
+import your.name.here.retention.Retained;
+
+/**
+ * Append-only log of accepted user tags on memory-mapped segment files with group commit. Appends only copy the
+ * record into the mapped segment; a single flusher thread forces the segment and completes the futures of every
+ * record written before the force started, so all requests that arrive during one fsync share the next one.
+ *
+ * <p>Segments are rotated when full and deleted by {@link #expireBefore} once their newest event is older than the
+ * retention horizon. Segments are ordered by age, so that only looks at the oldest one.
+ *
+ * <p>The log lock only covers copying a record into the segment. What an append applies to other state runs after
+ * it, concurrently with other appends, under the shared side of a checkpoint fence; {@link #checkpoint} takes the
+ * exclusive side, so it sees every appended record applied and none half-way.
+ *
+ * <p>A force that still fails after {@link #FORCE_ATTEMPTS} attempts fails the log: the waiting futures complete
+ * exceptionally, the durable sequence number stays where it was and later appends throw, so the node stops
+ * acknowledging user tags it cannot make durable.
+ */
+@Component
+@ConditionalOnProperty(name = "allezon.wal.enabled", havingValue = "true", matchIfMissing = true)
+public class WriteAheadLog implements Retained {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteAheadLog.class);
+
+    private static final int FORCE_ATTEMPTS = 3;
+    private static final long FORCE_RETRY_MILLIS = 10;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final List<WalSegment> segments = new ArrayList<>();
+    private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+    private final ReentrantReadWriteLock fence = new ReentrantReadWriteLock();
+    private final byte[] scratch = new byte[WalSegment.MAX_PAYLOAD];
+    private final Thread flusher;
+
+    private WalSegment current;
+    private long appendedLsn;
+    private volatile long durableLsn;
+    private volatile boolean running = true;
+    private volatile RuntimeException failure;
+
+    public WriteAheadLog(@Value("${allezon.state.dir:state}") String stateDir,
+            @Value("${allezon.wal.segment-size-mb:64}") int segmentSizeMb) throws IOException {
+        this.directory = Files.createDirectories(Paths.get(stateDir, "wal"));
+        this.segmentSize = segmentSizeMb << 20;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : files.filter(WalSegment::isSegment).sorted().collect(Collectors.toList())) {
+                WalSegment segment = WalSegment.open(path);
+                if (segment.nextLsn() == segment.firstLsn()) {
+                    segment.delete();
+                    continue;
+                }
+                segments.add(segment);
+            }
+        }
+        long nextLsn = segments.isEmpty() ? 1 : segments.get(segments.size() - 1).nextLsn();
+        this.appendedLsn = nextLsn - 1;
+        this.durableLsn = appendedLsn;
+        this.current = WalSegment.create(directory, nextLsn, segmentSize);
+        segments.add(current);
+        log.info("Opened write-ahead log in {} with {} segments, next sequence number {}", directory,
+                segments.size(), nextLsn);
+
+        this.flusher = new Thread(this::flushLoop, "wal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Appends the tag, passes it to {@code onAppend} and returns a future completed once the record is durable.
+     * {@code onAppend} runs outside the log lock but before a {@link #checkpoint} can start, so state updated in it
+     * always reflects a prefix of the log when captured there.
+     */
+    public CompletableFuture<Void> append(EncodedUserTag tag, Consumer<EncodedUserTag> onAppend) {
+        CompletableFuture<Void> durable = new CompletableFuture<>();
+        fence.readLock().lock();
+        try {
+            synchronized (this) {
+                if (!running) {
+                    throw new IllegalStateException("Write-ahead log is closed");
+                }
+                if (failure != null) {
+                    throw new IllegalStateException("Write-ahead log failed", failure);
+                }
+                long lsn = current.append(tag, scratch);
+                if (lsn < 0) {
+                    rotate();
+                    lsn = current.append(tag, scratch);
+                }
+                appendedLsn = lsn;
+                waiters.add(new Waiter(lsn, durable));
+                notifyAll();
+            }
+            onAppend.accept(tag);
+        } finally {
+            fence.readLock().unlock();
+        }
+        return durable;
+    }
+
+    /**
+     * Passes every retained record with a sequence number of at least {@code fromLsn} to the consumer, in order.
+     */
+    public synchronized void replay(long fromLsn, Consumer<EncodedUserTag> consumer) {
+        for (WalSegment segment : segments) {
+            if (segment != current && segment.nextLsn() > fromLsn) {
+                segment.scan(fromLsn, consumer);
+            }
+        }
+    }
+
+    /**
+     * Runs {@code capture} with the sequence number of the last appended record once every appended record has been
+     * applied, holding back new appends until it returns, so it should only copy what is still changing.
+     */
+    public <T> T checkpoint(LongFunction<T> capture) {
+        fence.writeLock().lock();
+        try {
+            long lsn;
+            synchronized (this) {
+                lsn = appendedLsn;
+            }
+            return capture.apply(lsn);
+        } finally {
+            fence.writeLock().unlock();
+        }
+    }
+
+    public long durableLsn() {
+        return durableLsn;
+    }
+
+    @Override
+    public synchronized void expireBefore(long horizon) {
+        while (segments.size() > 1 && segments.get(0).maxEventTime() < horizon) {
+            WalSegment expired = segments.remove(0);
+            try {
+                expired.delete();
+            } catch (IOException e) {
+                log.warn("Cannot delete expired write-ahead log segment", e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        synchronized (this) {
+            running = false;
+            notifyAll();
+        }
+        flusher.join();
+    }
+
+    private void rotate() {
+        current.force();
+        try {
+            current = WalSegment.create(directory, appendedLsn + 1, segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create write-ahead log segment", e);
+        }
+        segments.add(current);
+    }
+
+    private void flushLoop() {
+        List<Waiter> completed = new ArrayList<>();
+        while (true) {
+            WalSegment segment;
+            long target;
+            synchronized (this) {
+                while (running && appendedLsn == durableLsn) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if (!running && appendedLsn == durableLsn) {
+                    return;
+                }
+                segment = current;
+                target = appendedLsn;
+            }
+
+            RuntimeException error = force(segment);
+            if (error != null) {
+                synchronized (this) {
+                    failure = error;
+                    completed.addAll(waiters);
+                    waiters.clear();
+                }
+                log.error("Cannot force write-ahead log segment, no longer accepting user tags", error);
+                for (Waiter waiter : completed) {
+                    waiter.durable.completeExceptionally(error);
+                }
+                return;
+            }
+
+            synchronized (this) {
+                durableLsn = target;
+                while (!waiters.isEmpty() && waiters.peek().lsn <= target) {
+                    completed.add(waiters.poll());
+                }
+            }
+            for (Waiter waiter : completed) {
+                waiter.durable.complete(null);
+            }
+            completed.clear();
+        }
+    }
+
+    /**
+     * Forces the segment, retrying a failed force, and returns the last failure or {@code null} once it succeeds.
+     */
+    private static RuntimeException force(WalSegment segment) {
+        RuntimeException error = null;
+        for (int attempt = 0; attempt < FORCE_ATTEMPTS; attempt++) {
+            try {
+                segment.force();
+                return null;
+            } catch (RuntimeException e) {
+                log.warn("Cannot force write-ahead log segment, attempt {} of {}", attempt + 1, FORCE_ATTEMPTS, e);
+                error = e;
+            }
+            try {
+                Thread.sleep(FORCE_RETRY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return error;
+    }
+
+    private static class Waiter {
+        private final long lsn;
+        private final CompletableFuture<Void> durable;
+
+        private Waiter(long lsn, CompletableFuture<Void> durable) {
+            this.lsn = lsn;
+            this.durable = durable;
+        }
+    }
+}
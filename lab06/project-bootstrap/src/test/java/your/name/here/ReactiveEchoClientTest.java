@@ -0,0 +1,163 @@
+package your.name.here;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import reactor.core.scheduler.Scheduler;
+
+import your.name.here.aggregate.AggregateCache;
+import your.name.here.aggregate.AggregateCube;
+import your.name.here.aggregate.AggregateQuery;
+import your.name.here.aggregate.BucketValues;
+import your.name.here.config.JacksonConfig;
+import your.name.here.config.ReactiveServerConfig;
+import your.name.here.domain.Action;
+import your.name.here.domain.Aggregate;
+import your.name.here.domain.AggregatesQueryResult;
+import your.name.here.domain.TimeRange;
+import your.name.here.encoding.Dictionaries;
+import your.name.here.encoding.EncodedUserTag;
+import your.name.here.encoding.UserTagDecoder;
+import your.name.here.ingest.UserTagIngestor;
+import your.name.here.metrics.Metrics;
+import your.name.here.profile.ProfileSink;
+import your.name.here.profile.ProfileStore;
+import your.name.here.verify.AnswerVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReactiveEchoClientTest {
+
+    private static final String TAG = "{\"time\":\"2022-03-01T12:34:56.789Z\",\"cookie\":\"c\",\"country\":\"PL\","
+            + "\"device\":\"PC\",\"action\":\"BUY\",\"origin\":\"o\",\"product_info\":{\"product_id\":1,"
+            + "\"brand_id\":\"b\",\"category_id\":\"c\",\"price\":5}}";
+
+    private static final String RANGE = "2022-03-01T12:00:00.000_2022-03-01T12:05:00.000";
+
+    private final Scheduler ingestScheduler = new ReactiveServerConfig().ingestScheduler(1, 1);
+    private final Scheduler readScheduler = new ReactiveServerConfig().readScheduler(1, 10);
+    private final UserTagIngestor ingestor = mock(UserTagIngestor.class);
+    private final ProfileStore profileStore = mock(ProfileStore.class);
+    private final AggregateCube aggregateCube = mock(AggregateCube.class);
+    private final ReactiveEchoClient client = new ReactiveEchoClient();
+
+    ReactiveEchoClientTest() {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JacksonConfig().timestampModule())
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        ReflectionTestUtils.setField(client, "userTagDecoder",
+                new UserTagDecoder(objectMapper, Dictionaries.inMemory()));
+        ReflectionTestUtils.setField(client, "userTagIngestor", ingestor);
+        ReflectionTestUtils.setField(client, "ingestScheduler", ingestScheduler);
+        ReflectionTestUtils.setField(client, "readScheduler", readScheduler);
+        ReflectionTestUtils.setField(client, "dictionaries", Dictionaries.inMemory());
+        ReflectionTestUtils.setField(client, "profileStore", profileStore);
+        ReflectionTestUtils.setField(client, "aggregateCube", aggregateCube);
+        ReflectionTestUtils.setField(client, "aggregateCache", new AggregateCache(1000));
+        ReflectionTestUtils.setField(client, "answerVerifier", mock(AnswerVerifier.class));
+        ReflectionTestUtils.setField(client, "metrics", mock(Metrics.class));
+        ReflectionTestUtils.setField(client, "preserializedProfiles", true);
+    }
+
+    @AfterEach
+    void disposeSchedulers() {
+        ingestScheduler.dispose();
+        readScheduler.dispose();
+    }
+
+    @Test
+    void ingestsOffTheCallingThreadAndAnswersOnceDurable() {
+        AtomicReference<String> ingestThread = new AtomicReference<>();
+        CompletableFuture<Void> durable = new CompletableFuture<>();
+        when(ingestor.ingest(any(EncodedUserTag.class))).thenAnswer(invocation -> {
+            ingestThread.set(Thread.currentThread().getName());
+            return durable;
+        });
+
+        CompletableFuture<ResponseEntity<Void>> response = client.addUserTag(request()).toFuture();
+
+        assertThat(response).isNotDone();
+        durable.complete(null);
+        assertThat(response.join().getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        assertThat(ingestThread.get()).startsWith("ingest").isNotEqualTo(Thread.currentThread().getName());
+    }
+
+    @Test
+    void rejectsTagsBeyondTheIngestQueue() throws InterruptedException {
+        CountDownLatch ingesting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(ingestor.ingest(any(EncodedUserTag.class))).thenAnswer(invocation -> {
+            ingesting.countDown();
+            release.await();
+            return CompletableFuture.completedFuture(null);
+        });
+
+        CompletableFuture<ResponseEntity<Void>> running = client.addUserTag(request()).toFuture();
+        assertThat(ingesting.await(10, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<ResponseEntity<Void>> queued = client.addUserTag(request()).toFuture();
+        CompletableFuture<ResponseEntity<Void>> rejected = client.addUserTag(request()).toFuture();
+        release.countDown();
+
+        assertThat(running.join().getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        assertThat(queued.join().getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+        assertThatThrownBy(rejected::join).hasCauseInstanceOf(RejectedExecutionException.class);
+        assertThat(client.overloaded(new RejectedExecutionException()).getStatusCode())
+                .isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @Test
+    void readsProfilesOffTheCallingThread() {
+        AtomicReference<String> readThread = new AtomicReference<>();
+        doAnswer(invocation -> {
+            readThread.set(Thread.currentThread().getName());
+            return null;
+        }).when(profileStore).read(anyString(), any(TimeRange.class), anyInt(), any(ProfileSink.class));
+        MockServerHttpResponse response = new MockServerHttpResponse();
+
+        client.getUserProfile("c", RANGE, 10, null, null, MockServerHttpRequest.post("/user_profiles/c").build(),
+                response).block();
+
+        assertThat(response.getBodyAsString().block()).isEqualTo("{\"cookie\":\"c\",\"views\":[],\"buys\":[]}");
+        assertThat(readThread.get()).startsWith("read").isNotEqualTo(Thread.currentThread().getName());
+    }
+
+    @Test
+    void queriesAggregatesOffTheCallingThread() {
+        AtomicReference<String> queryThread = new AtomicReference<>();
+        when(aggregateCube.query(any(AggregateQuery.class))).thenAnswer(invocation -> {
+            queryThread.set(Thread.currentThread().getName());
+            return new BucketValues(invocation.<AggregateQuery>getArgument(0).buckets());
+        });
+
+        AggregatesQueryResult result = client.getAggregates(RANGE, Action.BUY, List.of(Aggregate.COUNT), null, null,
+                null, null).block();
+
+        assertThat(result.getRows()).hasSize(5);
+        assertThat(queryThread.get()).startsWith("read").isNotEqualTo(Thread.currentThread().getName());
+    }
+
+    private static MockServerHttpRequest request() {
+        return MockServerHttpRequest.post("/user_tags").body(TAG);
+    }
+}
@@ -0,0 +1,87 @@
+package your.name.here.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletRequest;
+
+import org.eclipse.jetty.server.Request;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import your.name.here.metrics.Metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AdmissionFilterTest {
+
+    private final AdmissionFilter filter = new AdmissionFilter(4, 100);
+    private final AtomicInteger handled = new AtomicInteger();
+    private final FilterChain chain = (request, response) -> handled.incrementAndGet();
+
+    @Test
+    void runsARequestThatArrivedWithinTheBudget() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(jettyRequestArrived(10), response, chain);
+
+        assertThat(handled).hasValue(1);
+        assertThat(response.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void rejectsARequestThatSpentItsBudgetBeforeReachingTheFilter() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(jettyRequestArrived(150), response, chain);
+
+        assertThat(handled).hasValue(0);
+        assertThat(response.getStatus()).isEqualTo(503);
+        assertThat(filter.rejectedOnArrival(Metrics.Endpoint.USER_TAGS)).isEqualTo(1);
+        assertThat(filter.running()).isZero();
+    }
+
+    @Test
+    void keepsRunningRequestsWithFreeSlotsAfterASlowHandler() throws Exception {
+        FilterChain slow = (request, response) -> {
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        filter.doFilter(jettyRequestArrived(0), new MockHttpServletResponse(), slow);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(jettyRequestArrived(10), response, chain);
+
+        assertThat(handled).hasValue(1);
+        assertThat(response.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void takesTheArrivalAtTheFilterWithoutAJettyTimestamp() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("POST", "/user_tags"), response, chain);
+        filter.doFilter(jettyRequest(), response, chain);
+
+        assertThat(handled).hasValue(2);
+        assertThat(response.getStatus()).isEqualTo(200);
+    }
+
+    private static HttpServletRequest jettyRequestArrived(long millisAgo) {
+        Request request = jettyRequest();
+        when(request.getTimeStamp()).thenReturn(System.currentTimeMillis() - millisAgo);
+        return request;
+    }
+
+    private static Request jettyRequest() {
+        Request request = mock(Request.class);
+        when(request.getRequestURI()).thenReturn("/user_tags");
+        return request;
+    }
+}
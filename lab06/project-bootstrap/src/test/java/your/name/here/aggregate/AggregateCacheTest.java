@@ -0,0 +1,61 @@
+package your.name.here.aggregate;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import your.name.here.domain.Action;
+import your.name.here.domain.Aggregate;
+import your.name.here.domain.TimeRange;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AggregateCacheTest {
+
+    private static final long FIRST_MINUTE = 27_500_000L;
+    private static final long FROM = FIRST_MINUTE * AggregateQuery.BUCKET_MILLIS;
+
+    private final AggregateCache cache = new AggregateCache(1000);
+    private final AggregateQuery query = new AggregateQuery(
+            new TimeRange(FROM, FROM + 4 * AggregateQuery.BUCKET_MILLIS), Action.VIEW, List.of(Aggregate.COUNT),
+            null, null, null);
+
+    @Test
+    void cachesOnlyMinutesSealedByEveryAnsweringNode() {
+        BucketValues local = values(FIRST_MINUTE + 2);
+        BucketValues remote = values(FIRST_MINUTE);
+        BucketValues gathered = new BucketValues(4);
+        gathered.add(remote);
+        local.add(gathered);
+
+        AggregateCache.Lookup lookup = cache.lookup(query);
+        assertThat(lookup.missing().buckets()).isEqualTo(4);
+        lookup.complete(local);
+
+        AggregateCache.Lookup next = cache.lookup(query);
+        assertThat(next.missing().firstMinute()).isEqualTo(FIRST_MINUTE + 1);
+        assertThat(next.missing().buckets()).isEqualTo(3);
+        assertThat(next.values().count(0)).isEqualTo(2);
+    }
+
+    @Test
+    void expiresMinutesBeforeTheHorizon() {
+        cache.lookup(query).complete(values(FIRST_MINUTE + 3));
+        assertThat(cache.lookup(query).missing()).isNull();
+
+        cache.expireBefore(FROM + 2 * AggregateQuery.BUCKET_MILLIS);
+
+        AggregateCache.Lookup lookup = cache.lookup(query);
+        assertThat(lookup.missing().firstMinute()).isEqualTo(FIRST_MINUTE);
+        assertThat(lookup.missing().buckets()).isEqualTo(2);
+        assertThat(cache.report().getEntries()).isEqualTo(2);
+    }
+
+    private static BucketValues values(long sealedMinute) {
+        BucketValues values = new BucketValues(4, sealedMinute);
+        for (int i = 0; i < values.buckets(); i++) {
+            values.set(i, 1, 10);
+        }
+        return values;
+    }
+}
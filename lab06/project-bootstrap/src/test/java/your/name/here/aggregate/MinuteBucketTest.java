@@ -0,0 +1,50 @@
+package your.name.here.aggregate;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MinuteBucketTest {
+
+    private static final long MINUTE = 27_500_000L;
+
+    private final MinuteBucket bucket = new MinuteBucket();
+
+    @Test
+    void givesBackATableGrownForABusierMinute() {
+        int initialCapacity = bucket.capacity();
+        bucket.reset(MINUTE);
+        fill(100_000);
+        int grown = bucket.capacity();
+
+        bucket.reset(MINUTE + 1);
+        fill(100_000);
+        bucket.reset(MINUTE + 2);
+        fill(10);
+
+        assertThat(bucket.capacity()).as("kept for a minute as busy").isEqualTo(grown);
+        bucket.reset(MINUTE + 3);
+        assertThat(bucket.capacity()).isEqualTo(initialCapacity);
+        assertThat(bucket.size()).isZero();
+        assertThat(bucket.count(0)).isZero();
+    }
+
+    @Test
+    void startsEachMinuteEmpty() {
+        bucket.reset(MINUTE);
+        fill(500);
+
+        bucket.reset(MINUTE + 1);
+
+        assertThat(bucket.minute()).isEqualTo(MINUTE + 1);
+        assertThat(bucket.size()).isZero();
+        assertThat(bucket.count(7)).isZero();
+        assertThat(bucket.sum(7)).isZero();
+    }
+
+    private void fill(int cells) {
+        for (int key = 0; key < cells; key++) {
+            bucket.add(key, key);
+        }
+    }
+}
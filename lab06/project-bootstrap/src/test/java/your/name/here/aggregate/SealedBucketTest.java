@@ -0,0 +1,106 @@
+package your.name.here.aggregate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import your.name.here.domain.Action;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SealedBucketTest {
+
+    private static final long MINUTE = 27_500_000L;
+
+    @Test
+    void readsEveryCellAsTheOpenBucketDid() {
+        Random random = new Random(1);
+        MinuteBucket bucket = new MinuteBucket();
+        bucket.reset(MINUTE);
+        for (int i = 0; i < 20_000; i++) {
+            add(bucket, Action.values()[random.nextInt(2)], random.nextInt(300), random.nextInt(50),
+                    random.nextInt(20), random.nextInt(2001) - 1000);
+        }
+        MinuteBucket open = bucket.copy();
+
+        SealedBucket sealed = bucket.seal();
+
+        assertThat(sealed.size()).isLessThan(open.size());
+        Random queries = new Random(2);
+        for (int i = 0; i < 20_000; i++) {
+            long key = CubeKey.of(Action.values()[queries.nextInt(2)], queries.nextInt(CubeKey.FILTER_COMBINATIONS),
+                    queries.nextInt(310), queries.nextInt(55), queries.nextInt(22));
+            assertReadsAs(sealed, open, key);
+        }
+    }
+
+    @Test
+    void readsKeysBeforeAfterAndBetweenTheCells() {
+        MinuteBucket bucket = new MinuteBucket();
+        bucket.reset(MINUTE);
+        add(bucket, Action.BUY, 5, 5, 5, 10);
+        add(bucket, Action.BUY, 5, 6, 7, 20);
+        add(bucket, Action.BUY, 7, 6, 5, -30);
+        MinuteBucket open = bucket.copy();
+
+        SealedBucket sealed = bucket.seal();
+
+        for (Action action : Action.values()) {
+            for (int filters = 0; filters < CubeKey.FILTER_COMBINATIONS; filters++) {
+                for (int value = 0; value < 10; value++) {
+                    assertReadsAs(sealed, open, CubeKey.of(action, filters, value, value, value));
+                    assertReadsAs(sealed, open, CubeKey.of(action, filters, 5, value, 5));
+                    assertReadsAs(sealed, open, CubeKey.of(action, filters, 5, 6, value));
+                }
+            }
+        }
+        assertReadsAs(new MinuteBucket().seal(), new MinuteBucket(), CubeKey.of(Action.VIEW, 0, 0, 0, 0));
+    }
+
+    @Test
+    void writesTheCellsItDoesNotKeep() throws IOException {
+        Random random = new Random(3);
+        MinuteBucket bucket = new MinuteBucket();
+        bucket.reset(MINUTE);
+        for (int i = 0; i < 5_000; i++) {
+            add(bucket, Action.VIEW, random.nextInt(100), random.nextInt(100), random.nextInt(100),
+                    random.nextInt());
+        }
+        MinuteBucket open = bucket.copy();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        bucket.seal().writeTo(new DataOutputStream(bytes));
+
+        ByteBuffer in = ByteBuffer.wrap(bytes.toByteArray());
+        MinuteBucket restored = new MinuteBucket();
+        restored.readFrom(in.getLong(), in);
+        assertThat(restored.minute()).isEqualTo(MINUTE);
+        assertThat(restored.size()).isEqualTo(open.size());
+        assertThat(in.hasRemaining()).isFalse();
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        open.writeTo(new DataOutputStream(expected));
+        ByteBuffer cells = ByteBuffer.wrap(expected.toByteArray()).position(Long.BYTES + Integer.BYTES);
+        while (cells.hasRemaining()) {
+            long key = cells.getLong();
+            assertThat(restored.count(key)).isEqualTo(cells.getLong());
+            assertThat(restored.sum(key)).isEqualTo(cells.getLong());
+        }
+    }
+
+    private static void add(MinuteBucket bucket, Action action, int origin, int brand, int category, long price) {
+        for (int filters = 0; filters < CubeKey.FILTER_COMBINATIONS; filters++) {
+            bucket.add(CubeKey.of(action, filters, origin, brand, category), price);
+        }
+    }
+
+    private static void assertReadsAs(SealedBucket sealed, MinuteBucket open, long key) {
+        BucketValues values = new BucketValues(1);
+        sealed.read(key, values, 0);
+        assertThat(values.count(0)).as("count of %x", key).isEqualTo(open.count(key));
+        assertThat(values.sum(0)).as("sum of %x", key).isEqualTo(open.sum(key));
+    }
+}
@@ -0,0 +1,83 @@
+package your.name.here.cluster;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClusterRouterTest {
+
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private final List<HttpServer> servers = new CopyOnWriteArrayList<>();
+
+    private volatile int successorStatus = 204;
+    private ClusterRouter router;
+
+    @AfterEach
+    void close() {
+        if (router != null) {
+            router.close();
+        }
+        servers.forEach(server -> server.stop(0));
+    }
+
+    @Test
+    void sendsTheRequestsOfADownNodeBackToItOnceItsSuccessorNoLongerStandsIn() throws Exception {
+        int self = freePort();
+        int other = freePort();
+        router = new ClusterRouter("http://localhost:" + self + ",http://localhost:" + other,
+                "http://localhost:" + self, 128, 4, 1000, true, TimeUnit.MINUTES.toMillis(10));
+        String cookie = remoteCookie(router);
+        start(self, "self");
+
+        // the other node refuses connections, its successor stands in for it
+        router.forwardUserTag(cookie, new byte[0]).get(5, TimeUnit.SECONDS);
+        assertThat(requests).containsExactly("self " + ClusterController.REPLICA_PATH + "/user_tags");
+
+        // the other node is back and its successor hears from it again
+        start(other, "other");
+        successorStatus = 503;
+        requests.clear();
+        router.forwardUserTag(cookie, new byte[0]).get(5, TimeUnit.SECONDS);
+        router.forwardUserTag(cookie, new byte[0]).get(5, TimeUnit.SECONDS);
+
+        assertThat(requests).containsExactly("self " + ClusterController.REPLICA_PATH + "/user_tags",
+                "other /user_tags", "other /user_tags");
+    }
+
+    private void start(int port, String name) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            requests.add(name + " " + path);
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(path.startsWith(ClusterController.REPLICA_PATH) ? successorStatus : 204, -1);
+            exchange.close();
+        });
+        server.start();
+        servers.add(server);
+    }
+
+    private static String remoteCookie(ClusterRouter router) {
+        int i = 0;
+        while (router.isLocal("cookie-" + i)) {
+            i++;
+        }
+        return "cookie-" + i;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
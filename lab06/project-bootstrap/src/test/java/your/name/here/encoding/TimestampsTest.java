@@ -0,0 +1,67 @@
+package your.name.here.encoding;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class TimestampsTest {
+
+    private static final DateTimeFormatter MILLIS_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+
+    @ParameterizedTest
+    @ValueSource(strings = {"2022-03-01T00:00:00", "2022-03-01T00:00:00Z", "2022-03-01T12:34:56.789",
+            "2022-03-01T12:34:56.789Z", "2024-02-29T23:59:59.999Z", "2000-02-29T00:00:00", "1970-01-01T00:00:00Z",
+            "1969-12-31T23:59:59.999Z", "2022-12-31T23:59:59Z"})
+    void parsesLikeJavaTime(String text) {
+        String local = text.endsWith("Z") ? text.substring(0, text.length() - 1) : text;
+        long expected = LocalDateTime.parse(local).toInstant(ZoneOffset.UTC).toEpochMilli();
+
+        assertThat(Timestamps.parseMillis(text)).isEqualTo(expected);
+        assertThat(Timestamps.parseMillis(text.toCharArray(), 0, text.length())).isEqualTo(expected);
+        assertThat(Timestamps.parseMillis("[" + text + "]", 1, text.length() + 1)).isEqualTo(expected);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "Z", "2022-03-01", "2022-03-01T00:00", "2022-03-01 00:00:00", "2022/03/01T00:00:00",
+            "2022-03-01T00:00:00.78", "2022-03-01T00:00:00,789", "2022-03-01T00:00:00ZZ", "2022-3-01T00:00:00.",
+            "2022-00-01T00:00:00", "2022-13-01T00:00:00", "2022-03-00T00:00:00", "2022-03-32T00:00:00",
+            "2022-04-31T00:00:00", "2022-06-31T00:00:00", "2022-09-31T00:00:00", "2022-11-31T00:00:00",
+            "2022-02-29T00:00:00", "1900-02-29T00:00:00", "2024-02-30T00:00:00", "2022-03-01T24:00:00",
+            "2022-03-01T00:60:00", "2022-03-01T00:00:60", "2022-03-01T0a:00:00", "-022-03-01T00:00:00",
+            "2022-03-01T00:00:00.-01"})
+    void rejectsMalformedAndImpossibleTimestamps(String text) {
+        assertThatIllegalArgumentException().isThrownBy(() -> Timestamps.parseMillis(text))
+                .withMessageContaining("Invalid timestamp");
+        assertThatIllegalArgumentException().isThrownBy(() -> Timestamps.parseMillis(text.toCharArray(), 0,
+                text.length())).withMessageContaining("Invalid timestamp");
+    }
+
+    @Test
+    void formatsAndParsesBackRandomInstants() {
+        Random random = new Random(1);
+        for (int i = 0; i < 100_000; i++) {
+            long millis = random.nextLong() % (200L * 365 * 86_400_000L);
+            Instant instant = Instant.ofEpochMilli(millis);
+
+            String withMillis = Timestamps.formatMillis(millis);
+            String seconds = Timestamps.formatSeconds(millis);
+
+            assertThat(withMillis).isEqualTo(MILLIS_FORMAT.format(instant));
+            assertThat(seconds).isEqualTo(withMillis.substring(0, 19));
+            assertThat(Timestamps.parseMillis(withMillis)).isEqualTo(millis);
+            assertThat(Timestamps.parseMillis(seconds)).isEqualTo(instant.truncatedTo(ChronoUnit.SECONDS)
+                    .toEpochMilli());
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package your.name.here.encoding;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import your.name.here.config.JacksonConfig;
+import your.name.here.domain.Action;
+import your.name.here.domain.Device;
+import your.name.here.domain.Product;
+import your.name.here.domain.UserTagEvent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UserTagDecoderTest {
+
+    private static final String DOCUMENT = "{\"time\":\"2022-03-01T12:34:56.789Z\",\"cookie\":\"c\\\"ook\\u00e9\","
+            + "\"country\":\"PL\",\"device\":\"PC\",\"action\":\"BUY\",\"origin\":\"CAMPAIGN_\\\\1\","
+            + "\"product_info\":{\"product_id\":123,\"brand_id\":\"Nike\",\"category_id\":\"Shoes\",\"price\":-5}}";
+
+    // configured as by Spring Boot, which ignores unknown properties
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JacksonConfig().timestampModule())
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    private final Dictionaries dictionaries = Dictionaries.inMemory();
+    private final UserTagDecoder decoder = new UserTagDecoder(objectMapper, dictionaries);
+
+    @Test
+    void decodesWhatJacksonWrites() throws IOException {
+        Random random = new Random(1);
+        for (int i = 0; i < 10_000; i++) {
+            byte[] json = objectMapper.writeValueAsBytes(randomEvent(random));
+
+            assertSameAsJackson(json);
+        }
+    }
+
+    @Test
+    void decodesFieldsInAnyOrderAndSkipsUnknownOnes() throws IOException {
+        String json = "{\"extra\":{\"nested\":[1,{\"a\":null}]},\"product_info\":{\"price\":\"42\",\"unused\":[],"
+                + "\"category_id\":\"Shoes\",\"brand_id\":\"Nike\",\"product_id\":7},\"origin\":\"DIRECT\","
+                + "\"action\":\"VIEW\",\"device\":\"TV\",\"country\":\"DE\",\"cookie\":\"abc\","
+                + "\"time\":\"2022-03-01T12:34:56Z\",\"more\":true}";
+
+        assertSameAsJackson(json.getBytes(StandardCharsets.UTF_8));
+        assertSameAsJackson(DOCUMENT.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void decodesFromStreamsAndSlices() throws IOException {
+        byte[] json = DOCUMENT.getBytes(StandardCharsets.UTF_8);
+        byte[] padded = new byte[json.length + 10];
+        System.arraycopy(json, 0, padded, 5, json.length);
+
+        EncodedUserTag fromStream = decoder.decode(new ByteArrayInputStream(json));
+        EncodedUserTag fromSlice = decoder.decode(padded, 5, json.length);
+
+        assertThat(fromStream).usingRecursiveComparison().isEqualTo(fromSlice);
+        assertThat(fromStream.getCookie()).isEqualTo("c\"ooké");
+        assertThat(dictionaries.origins().valueOf(fromStream.getOrigin())).isEqualTo("CAMPAIGN_\\1");
+        assertThat(decoder.decode(new ByteArrayInputStream(new byte[0]))).isNull();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"{\"cookie\":1}", "{\"device\":\"PHONE\"}", "{\"action\":\"view\"}",
+            "{\"origin\":[]}", "{\"product_info\":{\"price\":\"12x\"}}", "{\"product_info\":{\"price\":\"\"}}",
+            "{\"product_info\":{\"price\":2147483648}}", "{\"product_info\":{\"price\":\"2147483648\"}}",
+            "{\"product_info\":[]}", "{\"time\":\"2022-02-30T12:34:56Z\"}", "{\"time\":\"yesterday\"}"})
+    void rejectsInvalidFields(String change) throws IOException {
+        byte[] json = merge(change).getBytes(StandardCharsets.UTF_8);
+
+        // both are answered with 400 Bad Request
+        assertThatThrownBy(() -> decoder.decode(json, 0, json.length))
+                .isInstanceOfAny(IOException.class, IllegalArgumentException.class);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"[]", "\"tag\"", "{\"time\":", "{\"time\":\"2022-03-01T12:34:56Z\"} {"})
+    void rejectsMalformedDocuments(String json) {
+        assertThatExceptionOfType(IOException.class).isThrownBy(() -> decoder.decode(json.getBytes(
+                StandardCharsets.UTF_8), 0, json.length()));
+    }
+
+    @Test
+    void rejectsDocumentsWithMissingFields() {
+        byte[] json = DOCUMENT.replace("\"country\":\"PL\",", "").getBytes(StandardCharsets.UTF_8);
+
+        assertThatExceptionOfType(IOException.class).isThrownBy(() -> decoder.decode(json, 0, json.length))
+                .withMessageContaining("Missing user_tag fields");
+    }
+
+    private void assertSameAsJackson(byte[] json) throws IOException {
+        EncodedUserTag decoded = decoder.decode(json, 0, json.length);
+        EncodedUserTag expected = EncodedUserTag.encode(objectMapper.readValue(json, UserTagEvent.class),
+                dictionaries);
+
+        assertThat(decoded).usingRecursiveComparison().isEqualTo(expected);
+    }
+
+    /**
+     * Replaces the top-level or product_info fields of {@link #DOCUMENT} with those of {@code change}.
+     */
+    private String merge(String change) throws IOException {
+        ObjectNode document = (ObjectNode) objectMapper.readTree(DOCUMENT);
+        JsonNode fields = objectMapper.readTree(change);
+        fields.fields().forEachRemaining(field -> {
+            if (field.getKey().equals("product_info") && field.getValue().isObject()) {
+                ((ObjectNode) document.get("product_info")).setAll((ObjectNode) field.getValue());
+            } else {
+                document.set(field.getKey(), field.getValue());
+            }
+        });
+        return objectMapper.writeValueAsString(document);
+    }
+
+    private static UserTagEvent randomEvent(Random random) {
+        Product product = new Product();
+        product.setProductId(random.nextInt(Integer.MAX_VALUE));
+        product.setBrandId("BRAND_" + random.nextInt(500));
+        product.setCategoryId("CATEGORY_" + random.nextInt(2000));
+        product.setPrice(random.nextInt());
+        return new UserTagEvent(Instant.ofEpochMilli(1_640_995_200_000L + random.nextInt(Integer.MAX_VALUE)),
+                "cookie-" + Long.toHexString(random.nextLong()), "COUNTRY_" + random.nextInt(134),
+                Device.values()[random.nextInt(Device.values().length)],
+                Action.values()[random.nextInt(Action.values().length)], "ORIGIN_" + random.nextInt(50), product);
+    }
+}
@@ -0,0 +1,101 @@
+package your.name.here.profile;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CookieIndexTest {
+
+    @Test
+    void putGetAndRemove() {
+        CookieIndex<String> index = new CookieIndex<>(0);
+
+        assertThat(index.putIfAbsent(key("a"), "first")).isNull();
+        assertThat(index.putIfAbsent(key("a"), "second")).isEqualTo("first");
+        assertThat(index.remove(key("a"), "second")).isFalse();
+        assertThat(index.remove(key("a"), "first")).isTrue();
+        assertThat(index.get(key("a"))).isNull();
+        assertThat(index.putIfAbsent(key("a"), "third")).isNull();
+
+        assertThat(index.get(key("a"))).isEqualTo("third");
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void churnWithSteadyKeyCountDoesNotGrowTheTable() {
+        int live = 1000;
+        CookieIndex<Integer> index = new CookieIndex<>(live);
+
+        for (int i = 0; i < 1_000_000; i++) {
+            index.putIfAbsent(key("cookie-" + i), i);
+            if (i >= live) {
+                // removal compares values by identity
+                Integer removed = index.get(key("cookie-" + (i - live)));
+                assertThat(removed).isEqualTo(i - live);
+                assertThat(index.remove(key("cookie-" + (i - live)), removed)).isTrue();
+            }
+        }
+
+        assertThat(index.size()).isEqualTo(live);
+        // sized for twice the live keys at most, rather than for every key ever added
+        assertThat(index.capacity()).isLessThanOrEqualTo(8 * live);
+        for (int i = 1_000_000 - live; i < 1_000_000; i++) {
+            assertThat(index.get(key("cookie-" + i))).isEqualTo(i);
+        }
+    }
+
+    @Test
+    void concurrentPutsAcrossResizesKeepEveryKey() throws Exception {
+        int threads = 8;
+        int perThread = 100_000;
+        CookieIndex<Integer> index = new CookieIndex<>(0);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> missing = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int first = t * perThread;
+                missing.add(executor.submit(() -> {
+                    start.await();
+                    int lost = 0;
+                    for (int i = first; i < first + perThread; i++) {
+                        index.putIfAbsent(key("cookie-" + i), i);
+                        // read back a key put earlier, which may sit in a table being moved
+                        int earlier = first + (i - first) / 2;
+                        if (!Integer.valueOf(earlier).equals(index.get(key("cookie-" + earlier)))) {
+                            lost++;
+                        }
+                    }
+                    return lost;
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> lost : missing) {
+                assertThat(lost.get()).isZero();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(index.size()).isEqualTo(threads * perThread);
+        Set<Integer> values = new HashSet<>();
+        index.forEach(values::add);
+        assertThat(values).hasSize(threads * perThread);
+        for (int i = 0; i < threads * perThread; i++) {
+            assertThat(index.get(key("cookie-" + i))).isEqualTo(i);
+        }
+    }
+
+    private static CookieHash key(String cookie) {
+        return CookieHash.of(cookie);
+    }
+}
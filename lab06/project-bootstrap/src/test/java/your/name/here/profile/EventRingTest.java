@@ -0,0 +1,109 @@
+package your.name.here.profile;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import your.name.here.domain.TimeRange;
+import your.name.here.encoding.EncodedUserTag;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventRingTest {
+
+    private static final long TIME = ProfileStoreRestoreTest.tag(0, 0).getTime();
+    private static final int CAPACITY = ProfileStore.MAX_EVENTS_PER_ACTION;
+
+    private final EventRing ring = new EventRing(CAPACITY);
+
+    @Test
+    void keepsTheNewestEventsInTimeOrderWhateverTheArrivalOrder() {
+        Random random = new Random(1);
+        List<Long> times = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            times.add((long) i * 3);
+        }
+        // mostly in order, with late events arriving up to 50 places behind
+        for (int i = 0; i < times.size(); i++) {
+            Collections.swap(times, i, Math.min(times.size() - 1, i + random.nextInt(50)));
+        }
+        List<Long> kept = new ArrayList<>();
+        for (long time : times) {
+            ring.add(ProfileStoreRestoreTest.tag(TIME + time, (int) time));
+            addToModel(kept, time);
+
+            assertThat(read(new TimeRange(TIME, TIME + 3000), CAPACITY)).isEqualTo(newestFirst(kept));
+        }
+        assertThat(kept).hasSize(CAPACITY);
+    }
+
+    @Test
+    void dropsAnEventOlderThanAllKeptOnesWhenFull() {
+        for (int i = 0; i < CAPACITY + 50; i++) {
+            ring.add(ProfileStoreRestoreTest.tag(TIME + 10 + i, i));
+        }
+        ring.add(ProfileStoreRestoreTest.tag(TIME, -1));
+
+        List<Long> all = read(new TimeRange(TIME, TIME + 1000), 1000);
+        assertThat(all).hasSize(CAPACITY);
+        assertThat(all.get(CAPACITY - 1)).isEqualTo(60L);
+        assertThat(all.get(0)).isEqualTo(10L + CAPACITY + 49);
+    }
+
+    @Test
+    void readsTheHalfOpenRangeNewestFirstUpToTheLimit() {
+        for (int i = 0; i < 10; i++) {
+            ring.add(ProfileStoreRestoreTest.tag(TIME + i * 10, i));
+        }
+
+        assertThat(read(new TimeRange(TIME + 20, TIME + 50), 100)).containsExactly(40L, 30L, 20L);
+        assertThat(read(new TimeRange(TIME + 19, TIME + 51), 100)).containsExactly(50L, 40L, 30L, 20L);
+        assertThat(read(new TimeRange(TIME + 20, TIME + 50), 2)).containsExactly(40L, 30L);
+        assertThat(read(new TimeRange(TIME + 91, TIME + 200), 100)).isEmpty();
+        assertThat(read(new TimeRange(TIME - 100, TIME), 100)).isEmpty();
+    }
+
+    @Test
+    void keepsAndTellsApartEventsOfTheSameTime() {
+        ring.add(ProfileStoreRestoreTest.tag(TIME, 1));
+        ring.add(ProfileStoreRestoreTest.tag(TIME, 2));
+        ring.add(ProfileStoreRestoreTest.tag(TIME - 1, 3));
+
+        assertThat(ring.contains(ProfileStoreRestoreTest.tag(TIME, 2))).isTrue();
+        assertThat(ring.contains(ProfileStoreRestoreTest.tag(TIME, 3))).isFalse();
+        assertThat(ring.contains(ProfileStoreRestoreTest.tag(TIME - 1, 3))).isTrue();
+        List<Integer> products = new ArrayList<>();
+        ring.forEach(tag -> products.add(tag.getProductId()));
+        assertThat(products).containsExactly(3, 1, 2);
+    }
+
+    /**
+     * What the ring is expected to hold: the newest {@link #CAPACITY} times, an event older than all of them
+     * dropped on arrival.
+     */
+    static void addToModel(List<Long> kept, long time) {
+        if (kept.size() == CAPACITY) {
+            if (time < kept.get(0)) {
+                return;
+            }
+            kept.remove(0);
+        }
+        int position = Collections.binarySearch(kept, time);
+        kept.add(position < 0 ? -position - 1 : position, time);
+    }
+
+    static List<Long> newestFirst(List<Long> kept) {
+        List<Long> reversed = new ArrayList<>(kept);
+        Collections.reverse(reversed);
+        return reversed;
+    }
+
+    private List<Long> read(TimeRange timeRange, int limit) {
+        List<Long> times = new ArrayList<>();
+        ring.read(timeRange, limit, tag -> times.add(tag.getTime() - TIME));
+        return times;
+    }
+}
@@ -0,0 +1,209 @@
+package your.name.here.profile;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.aerospike.client.AerospikeException;
+import com.aerospike.client.IAerospikeClient;
+import com.aerospike.client.Key;
+import com.aerospike.client.Operation;
+import com.aerospike.client.Record;
+import com.aerospike.client.ResultCode;
+import com.aerospike.client.ScanCallback;
+import com.aerospike.client.cdt.ListReturnType;
+import com.aerospike.client.cdt.ListWriteFlags;
+import com.aerospike.client.policy.ClientPolicy;
+import com.aerospike.client.util.Unpacker;
+
+/**
+ * In-process stand-in for an Aerospike cluster, covering what {@link ProfileDao} calls: {@code operate()} with
+ * ordered-list append, remove by index range and get by value relative rank range, and {@code scanAll()}. The list
+ * operations are decoded from the packed form the client sends to the server and applied to in-memory records under
+ * a per-record lock, with the server's semantics for the cases the DAO uses. Any other client call throws
+ * {@link UnsupportedOperationException}, and records never expire.
+ */
+final class InProcessAerospike implements InvocationHandler {
+
+    // list operation codes of the wire protocol
+    private static final int APPEND = 1;
+    private static final int GET_BY_VALUE_REL_RANK_RANGE = 27;
+    private static final int REMOVE_BY_INDEX_RANGE = 37;
+
+    private final ClientPolicy policy;
+    private final Map<Key, Map<String, List<Object>>> records = new ConcurrentHashMap<>();
+
+    private InProcessAerospike(ClientPolicy policy) {
+        this.policy = policy;
+    }
+
+    static IAerospikeClient create(ClientPolicy policy) {
+        return (IAerospikeClient) Proxy.newProxyInstance(IAerospikeClient.class.getClassLoader(),
+                new Class<?>[] {IAerospikeClient.class}, new InProcessAerospike(policy));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Exception {
+        if (method.getDeclaringClass() == Object.class) {
+            return method.invoke(this, args);
+        }
+        switch (method.getName()) {
+            case "getWritePolicyDefault":
+                return policy.writePolicyDefault;
+            case "getScanPolicyDefault":
+                return policy.scanPolicyDefault;
+            case "isConnected":
+                return true;
+            case "close":
+                return null;
+            case "operate":
+                if (args.length == 3) {
+                    return operate((Key) args[1], (Operation[]) args[2]);
+                }
+                break;
+            case "scanAll":
+                if (args.length == 5) {
+                    scanAll((String) args[1], (String) args[2], (ScanCallback) args[3]);
+                    return null;
+                }
+                break;
+            default:
+                break;
+        }
+        throw new UnsupportedOperationException("Not available in-process: " + method);
+    }
+
+    private Record operate(Key key, Operation[] operations) {
+        boolean write = Arrays.stream(operations).anyMatch(operation -> operation.type == Operation.Type.CDT_MODIFY);
+        Map<String, List<Object>> bins = write ? records.computeIfAbsent(key, k -> new HashMap<>()) : records.get(key);
+        if (bins == null) {
+            return null;
+        }
+        Map<String, Object> results = new HashMap<>();
+        synchronized (bins) {
+            for (Operation operation : operations) {
+                byte[] packed = (byte[]) operation.value.getObject();
+                List<?> command = (List<?>) Unpacker.unpackObjectList(packed, 0, packed.length);
+                List<Object> list = operation.type == Operation.Type.CDT_MODIFY
+                        ? bins.computeIfAbsent(operation.binName, bin -> new ArrayList<>())
+                        : bins.getOrDefault(operation.binName, List.of());
+                results.put(operation.binName, apply(list, command));
+            }
+        }
+        return new Record(results, 0, 0);
+    }
+
+    private void scanAll(String namespace, String set, ScanCallback callback) {
+        for (Map.Entry<Key, Map<String, List<Object>>> entry : records.entrySet()) {
+            Key key = entry.getKey();
+            if (key.namespace.equals(namespace) && set.equals(key.setName)) {
+                Map<String, Object> bins = new HashMap<>();
+                synchronized (entry.getValue()) {
+                    entry.getValue().forEach((bin, list) -> bins.put(bin, new ArrayList<>(list)));
+                }
+                callback.scanCallback(key, new Record(bins, 0, 0));
+            }
+        }
+    }
+
+    private static Object apply(List<Object> list, List<?> command) {
+        int code = intArg(command, 0);
+        switch (code) {
+            case APPEND: {
+                // [APPEND, value, list order, write flags], only ever applied to ordered lists here
+                Object value = command.get(1);
+                int flags = intArg(command, 3);
+                if ((flags & ListWriteFlags.ADD_UNIQUE) != 0 && rank(list, value, true) > rank(list, value, false)) {
+                    if ((flags & ListWriteFlags.NO_FAIL) != 0) {
+                        return (long) list.size();
+                    }
+                    throw new AerospikeException(ResultCode.ELEMENT_EXISTS);
+                }
+                list.add(rank(list, value, true), value);
+                return (long) list.size();
+            }
+            case REMOVE_BY_INDEX_RANGE: {
+                // [REMOVE_BY_INDEX_RANGE, return type, index(, count)]
+                requireReturnType(intArg(command, 1) & ~ListReturnType.INVERTED, ListReturnType.NONE);
+                int index = intArg(command, 2);
+                int start = index < 0 ? Math.max(0, list.size() + index) : Math.min(index, list.size());
+                int end = command.size() > 3 ? Math.min(list.size(), start + intArg(command, 3)) : list.size();
+                if ((intArg(command, 1) & ListReturnType.INVERTED) != 0) {
+                    list.subList(end, list.size()).clear();
+                    list.subList(0, start).clear();
+                } else {
+                    list.subList(start, end).clear();
+                }
+                return null;
+            }
+            case GET_BY_VALUE_REL_RANK_RANGE: {
+                // [GET_BY_VALUE_REL_RANK_RANGE, return type, value, rank(, count)], out of range ranks are cut off
+                requireReturnType(intArg(command, 1), ListReturnType.VALUE);
+                long start = (long) rank(list, command.get(2), false) + intArg(command, 3);
+                long end = command.size() > 4 ? start + intArg(command, 4) : list.size();
+                start = Math.max(0, Math.min(start, list.size()));
+                end = Math.max(start, Math.min(end, list.size()));
+                return new ArrayList<>(list.subList((int) start, (int) end));
+            }
+            default:
+                throw new UnsupportedOperationException("List operation " + code + " not available in-process");
+        }
+    }
+
+    private static int intArg(List<?> command, int index) {
+        return ((Long) command.get(index)).intValue();
+    }
+
+    private static void requireReturnType(int returnType, int supported) {
+        if (returnType != supported) {
+            throw new UnsupportedOperationException("List return type " + returnType + " not available in-process");
+        }
+    }
+
+    /**
+     * Returns the number of items of the ordered list before {@code value}, or not after it when {@code orEqual}.
+     */
+    private static int rank(List<Object> list, Object value, boolean orEqual) {
+        int low = 0;
+        int high = list.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int order = compare(list.get(middle), value);
+            if (order < 0 || orEqual && order == 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Orders values of the types the DAO stores as the server does: integers by value, blobs by their unsigned
+     * bytes and lists item by item, a list before the lists it is a prefix of.
+     */
+    private static int compare(Object a, Object b) {
+        if (a instanceof Long first && b instanceof Long second) {
+            return Long.compare(first, second);
+        }
+        if (a instanceof byte[] first && b instanceof byte[] second) {
+            return Arrays.compareUnsigned(first, second);
+        }
+        if (a instanceof List<?> first && b instanceof List<?> second) {
+            for (int i = 0; i < first.size() && i < second.size(); i++) {
+                int order = compare(first.get(i), second.get(i));
+                if (order != 0) {
+                    return order;
+                }
+            }
+            return Integer.compare(first.size(), second.size());
+        }
+        throw new UnsupportedOperationException("Cannot order " + a + " and " + b + " in-process");
+    }
+}
@@ -0,0 +1,112 @@
+package your.name.here.profile;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import com.aerospike.client.policy.ClientPolicy;
+
+import your.name.here.domain.Action;
+import your.name.here.domain.TimeRange;
+import your.name.here.encoding.EncodedUserTag;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProfileDaoTest {
+
+    private static final long TIME = 1_650_000_000_000L;
+
+    private final ProfileDao dao = new ProfileDao(InProcessAerospike.create(new ClientPolicy()), "test", 1440);
+
+    @Test
+    void keepsTheNewestEventsPerAction() {
+        for (int i = 0; i < 250; i++) {
+            dao.add(tag(Action.VIEW, TIME + i, i));
+        }
+        dao.add(tag(Action.BUY, TIME, 1000));
+
+        List<EncodedUserTag> events = read(new TimeRange(TIME, TIME + 1000), 1000);
+
+        assertThat(events).hasSize(ProfileStore.MAX_EVENTS_PER_ACTION + 1);
+        assertThat(events.get(0).getTime()).isEqualTo(TIME + 249);
+        assertThat(events.get(199).getTime()).isEqualTo(TIME + 50);
+        assertThat(events.get(200).getAction()).isEqualTo(Action.BUY);
+    }
+
+    @Test
+    void readsTheNewestEventsOfTheHalfOpenRange() {
+        // added out of order, kept in event time order
+        for (int i : new int[] {5, 1, 9, 3, 7, 0, 8, 2, 6, 4}) {
+            dao.add(tag(Action.VIEW, TIME + i, i));
+        }
+
+        assertThat(times(read(new TimeRange(TIME + 2, TIME + 7), 100))).containsExactly(6L, 5L, 4L, 3L, 2L);
+        assertThat(times(read(new TimeRange(TIME + 2, TIME + 7), 3))).containsExactly(6L, 5L, 4L);
+        assertThat(times(read(new TimeRange(TIME + 10, TIME + 20), 100))).isEmpty();
+        assertThat(read(new TimeRange(TIME, TIME + 10), 100).get(0).getCookie()).isEqualTo("cookie");
+    }
+
+    @Test
+    void restoreSkipsIdenticalEventsOnly() {
+        dao.add(tag(Action.VIEW, TIME, 1));
+
+        dao.restore(tag(Action.VIEW, TIME, 1));
+        dao.restore(tag(Action.VIEW, TIME, 2));
+
+        List<EncodedUserTag> events = read(new TimeRange(TIME, TIME + 1), 100);
+        assertThat(events).extracting(EncodedUserTag::getProductId).containsExactlyInAnyOrder(1, 2);
+    }
+
+    @Test
+    void exportsEveryEventOfThePart() {
+        dao.add(tag(Action.VIEW, TIME, 1));
+        dao.add(tag(Action.BUY, TIME + 1, 2));
+
+        List<Integer> products = new ArrayList<>();
+        dao.export(0, 1, tag -> products.add(tag.getProductId()));
+
+        assertThat(products).containsExactlyInAnyOrder(1, 2);
+    }
+
+    @Test
+    void doesNotStartWithoutSeeds() {
+        ApplicationContextRunner runner = new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(PropertyPlaceholderAutoConfiguration.class))
+                .withUserConfiguration(ProfileDao.class);
+        runner.withPropertyValues("allezon.profiles.store=aerospike")
+                .run(context -> assertThat(context).getFailure()
+                        .hasRootCauseMessage("Could not resolve placeholder 'allezon.aerospike.seeds' in value "
+                                + "\"${allezon.aerospike.seeds}\""));
+        runner.withPropertyValues("allezon.profiles.store=aerospike", "allezon.aerospike.seeds=")
+                .run(context -> assertThat(context).getFailure()
+                        .hasRootCauseMessage("allezon.aerospike.seeds is empty"));
+    }
+
+    private List<EncodedUserTag> read(TimeRange timeRange, int limit) {
+        List<EncodedUserTag> events = new ArrayList<>();
+        dao.read("cookie", timeRange, limit, tag -> {
+            EncodedUserTag copy = tag(tag.getAction(), tag.getTime(), tag.getProductId());
+            copy.setCookie(tag.getCookie());
+            events.add(copy);
+        });
+        return events;
+    }
+
+    private static List<Long> times(List<EncodedUserTag> events) {
+        List<Long> times = new ArrayList<>();
+        for (EncodedUserTag event : events) {
+            times.add(event.getTime() - TIME);
+        }
+        return times;
+    }
+
+    private static EncodedUserTag tag(Action action, long time, int productId) {
+        EncodedUserTag tag = ProfileStoreRestoreTest.tag(time, productId);
+        tag.setAction(action);
+        return tag;
+    }
+}
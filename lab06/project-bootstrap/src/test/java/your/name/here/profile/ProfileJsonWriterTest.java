@@ -0,0 +1,101 @@
+package your.name.here.profile;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import your.name.here.config.JacksonConfig;
+import your.name.here.domain.Action;
+import your.name.here.domain.Device;
+import your.name.here.encoding.Dictionaries;
+import your.name.here.encoding.EncodedUserTag;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProfileJsonWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JacksonConfig().timestampModule());
+    private final Dictionaries dictionaries = Dictionaries.inMemory();
+
+    @Test
+    void writesWhatJacksonWritesForRandomProfiles() throws IOException {
+        Random random = new Random(1);
+        for (int profile = 0; profile < 500; profile++) {
+            List<EncodedUserTag> events = new ArrayList<>();
+            int views = random.nextInt(201);
+            int buys = random.nextInt(201);
+            for (int i = 0; i < views + buys; i++) {
+                events.add(randomTag(random, i < views ? Action.VIEW : Action.BUY));
+            }
+
+            assertSameAsJackson("cookie-" + profile, events);
+        }
+    }
+
+    @Test
+    void writesEmptyProfilesAndProfilesWithOneAction() throws IOException {
+        Random random = new Random(2);
+
+        assertSameAsJackson("empty", List.of());
+        assertSameAsJackson("views", List.of(randomTag(random, Action.VIEW), randomTag(random, Action.VIEW)));
+        assertSameAsJackson("buys", List.of(randomTag(random, Action.BUY)));
+    }
+
+    @Test
+    void escapesStringsAndWritesExtremeValuesLikeJackson() throws IOException {
+        EncodedUserTag tag = new EncodedUserTag();
+        tag.setTime(-1);
+        tag.setAction(Action.VIEW);
+        tag.setDevice(Device.MOBILE);
+        tag.setCountry(dictionaries.countries().idOf("P\"L"));
+        tag.setOrigin(dictionaries.origins().idOf("back\\slash\ttab\u0001"));
+        tag.setBrand(dictionaries.brands().idOf("zażółć"));
+        tag.setCategory(dictionaries.categories().idOf("</script>"));
+        tag.setProductId(Integer.MAX_VALUE);
+        tag.setPrice(Integer.MIN_VALUE);
+        EncodedUserTag zero = new EncodedUserTag();
+        zero.setTime(0);
+        zero.setAction(Action.BUY);
+        zero.setDevice(Device.TV);
+        zero.setCountry(tag.getCountry());
+        zero.setOrigin(tag.getOrigin());
+        zero.setBrand(tag.getBrand());
+        zero.setCategory(tag.getCategory());
+
+        assertSameAsJackson("c\"ook\\ieé ", List.of(tag, zero));
+    }
+
+    private void assertSameAsJackson(String cookie, List<EncodedUserTag> events) throws IOException {
+        ProfileJsonWriter writer = new ProfileJsonWriter(cookie, dictionaries);
+        ProfileResultBuilder builder = new ProfileResultBuilder(cookie, dictionaries);
+        for (EncodedUserTag event : events) {
+            writer.accept(event);
+            builder.accept(event);
+        }
+        ByteBuffer written = writer.toByteBuffer();
+        byte[] bytes = new byte[written.remaining()];
+        written.get(bytes);
+
+        assertThat(bytes).isEqualTo(objectMapper.writeValueAsBytes(builder.build()));
+    }
+
+    private EncodedUserTag randomTag(Random random, Action action) {
+        EncodedUserTag tag = new EncodedUserTag();
+        tag.setTime(1_640_995_200_000L + random.nextInt(Integer.MAX_VALUE));
+        tag.setAction(action);
+        tag.setDevice(Device.values()[random.nextInt(Device.values().length)]);
+        tag.setCountry(dictionaries.countries().idOf("COUNTRY_" + random.nextInt(134)));
+        tag.setOrigin(dictionaries.origins().idOf("ORIGIN_" + random.nextInt(50)));
+        tag.setBrand(dictionaries.brands().idOf("BRAND_" + random.nextInt(500)));
+        tag.setCategory(dictionaries.categories().idOf("CATEGORY_" + random.nextInt(2000)));
+        tag.setProductId(random.nextInt(Integer.MAX_VALUE));
+        tag.setPrice(random.nextInt(3) == 0 ? random.nextInt() : random.nextInt(1000));
+        return tag;
+    }
+}
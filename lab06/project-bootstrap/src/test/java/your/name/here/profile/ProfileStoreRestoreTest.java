@@ -0,0 +1,61 @@
+package your.name.here.profile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import your.name.here.domain.Action;
+import your.name.here.domain.Device;
+import your.name.here.domain.TimeRange;
+import your.name.here.encoding.EncodedUserTag;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProfileStoreRestoreTest {
+
+    private static final String COOKIE = "cookie";
+    private static final long TIME = 1_650_000_000_000L;
+
+    static Stream<ProfileStore> stores() {
+        return Stream.of(new StripedProfileStore(16), new OffHeapProfileStore(16), new CompressedProfileStore(16));
+    }
+
+    @ParameterizedTest
+    @MethodSource("stores")
+    void restoreSkipsReplayedEventsOnly(ProfileStore store) {
+        store.add(tag(TIME, 1));
+        store.add(tag(TIME, 2));
+
+        store.restore(tag(TIME, 1));
+        store.restore(tag(TIME, 2));
+        store.restore(tag(TIME, 3));
+        store.restore(tag(TIME + 1, 1));
+
+        assertThat(products(store)).containsExactlyInAnyOrder(1, 1, 2, 3);
+    }
+
+    static EncodedUserTag tag(long time, int productId) {
+        EncodedUserTag tag = new EncodedUserTag();
+        tag.setTime(time);
+        tag.setCookie(COOKIE);
+        tag.setAction(Action.VIEW);
+        tag.setDevice(Device.PC);
+        tag.setCountry(1);
+        tag.setOrigin(2);
+        tag.setProductId(productId);
+        tag.setBrand(3);
+        tag.setCategory(4);
+        tag.setPrice(100 + productId);
+        return tag;
+    }
+
+    private static List<Integer> products(ProfileStore store) {
+        List<Integer> products = new ArrayList<>();
+        store.read(COOKIE, new TimeRange(TIME - 1, TIME + 2), ProfileStore.MAX_EVENTS_PER_ACTION,
+                tag -> products.add(tag.getProductId()));
+        return products;
+    }
+}
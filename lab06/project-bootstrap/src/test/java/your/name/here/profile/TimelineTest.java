@@ -0,0 +1,133 @@
+package your.name.here.profile;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import your.name.here.domain.Action;
+import your.name.here.domain.Device;
+import your.name.here.domain.TimeRange;
+import your.name.here.encoding.EncodedUserTag;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimelineTest {
+
+    private static final long TIME = ProfileStoreRestoreTest.tag(0, 0).getTime();
+    private static final int CAPACITY = ProfileStore.MAX_EVENTS_PER_ACTION;
+
+    private final Timeline timeline = new Timeline(CAPACITY);
+    private final TimelineChunk chunk = new TimelineChunk();
+
+    @Test
+    void keepsTheNewestEventsInTimeOrderWhateverTheArrivalOrder() {
+        Random random = new Random(1);
+        List<Long> times = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            times.add((long) i * 3);
+        }
+        // mostly in order, with late events arriving up to 50 places behind
+        for (int i = 0; i < times.size(); i++) {
+            Collections.swap(times, i, Math.min(times.size() - 1, i + random.nextInt(50)));
+        }
+        List<Long> kept = new ArrayList<>();
+        for (long time : times) {
+            timeline.add(ProfileStoreRestoreTest.tag(TIME + time, (int) time), chunk);
+            EventRingTest.addToModel(kept, time);
+
+            assertThat(read(new TimeRange(TIME, TIME + 3000), CAPACITY)).isEqualTo(EventRingTest.newestFirst(kept));
+        }
+        assertThat(kept).hasSize(CAPACITY);
+    }
+
+    @Test
+    void decodesEveryFieldOfEveryEvent() {
+        Random random = new Random(2);
+        List<EncodedUserTag> added = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            EncodedUserTag tag = ProfileStoreRestoreTest.tag(TIME + random.nextInt(1_000_000), i);
+            tag.setAction(Action.BUY);
+            tag.setDevice(Device.values()[random.nextInt(Device.values().length)]);
+            tag.setCountry(random.nextInt(3));
+            tag.setOrigin(random.nextInt(1 << 16));
+            tag.setBrand(random.nextInt(5));
+            tag.setCategory(random.nextInt(1 << 16));
+            tag.setPrice(random.nextInt());
+            tag.setProductId(random.nextInt(Integer.MAX_VALUE));
+            timeline.add(tag, chunk);
+            added.add(tag);
+        }
+
+        for (EncodedUserTag tag : added) {
+            assertThat(timeline.contains(tag, chunk)).isTrue();
+        }
+        List<EncodedUserTag> read = new ArrayList<>();
+        timeline.forEach(Action.BUY, chunk, new EncodedUserTag(), tag -> read.add(copy(tag)));
+        assertThat(read).usingRecursiveFieldByFieldElementComparatorIgnoringFields("cookie")
+                .containsExactlyInAnyOrderElementsOf(added);
+    }
+
+    @Test
+    void dropsAnEventOlderThanAllKeptOnesWhenFull() {
+        for (int i = 0; i < CAPACITY + 50; i++) {
+            timeline.add(ProfileStoreRestoreTest.tag(TIME + 10 + i, i), chunk);
+        }
+        timeline.add(ProfileStoreRestoreTest.tag(TIME, -1), chunk);
+
+        List<Long> all = read(new TimeRange(TIME, TIME + 1000), 1000);
+        assertThat(all).hasSize(CAPACITY);
+        assertThat(all.get(CAPACITY - 1)).isEqualTo(60L);
+        assertThat(all.get(0)).isEqualTo(10L + CAPACITY + 49);
+    }
+
+    @Test
+    void readsTheHalfOpenRangeNewestFirstUpToTheLimit() {
+        for (int i = 0; i < 100; i++) {
+            timeline.add(ProfileStoreRestoreTest.tag(TIME + i * 10, i), chunk);
+        }
+
+        assertThat(read(new TimeRange(TIME + 200, TIME + 500), 100)).hasSize(30).startsWith(490L, 480L)
+                .endsWith(210L, 200L);
+        assertThat(read(new TimeRange(TIME + 199, TIME + 501), 100)).hasSize(31).startsWith(500L)
+                .endsWith(200L);
+        assertThat(read(new TimeRange(TIME + 200, TIME + 500), 2)).containsExactly(490L, 480L);
+        assertThat(read(new TimeRange(TIME + 991, TIME + 2000), 100)).isEmpty();
+        assertThat(read(new TimeRange(TIME - 100, TIME), 100)).isEmpty();
+    }
+
+    @Test
+    void keepsAndTellsApartEventsOfTheSameTime() {
+        timeline.add(ProfileStoreRestoreTest.tag(TIME, 1), chunk);
+        timeline.add(ProfileStoreRestoreTest.tag(TIME, 2), chunk);
+        timeline.add(ProfileStoreRestoreTest.tag(TIME - 1, 3), chunk);
+
+        assertThat(timeline.contains(ProfileStoreRestoreTest.tag(TIME, 2), chunk)).isTrue();
+        assertThat(timeline.contains(ProfileStoreRestoreTest.tag(TIME, 3), chunk)).isFalse();
+        assertThat(timeline.contains(ProfileStoreRestoreTest.tag(TIME - 1, 3), chunk)).isTrue();
+        List<Integer> products = new ArrayList<>();
+        timeline.forEach(Action.VIEW, chunk, new EncodedUserTag(), tag -> products.add(tag.getProductId()));
+        assertThat(products).containsExactly(3, 1, 2);
+    }
+
+    private List<Long> read(TimeRange timeRange, int limit) {
+        List<Long> times = new ArrayList<>();
+        timeline.read(timeRange, limit, Action.VIEW, chunk, new EncodedUserTag(),
+                tag -> times.add(tag.getTime() - TIME));
+        return times;
+    }
+
+    private static EncodedUserTag copy(EncodedUserTag tag) {
+        EncodedUserTag copy = ProfileStoreRestoreTest.tag(tag.getTime(), tag.getProductId());
+        copy.setAction(tag.getAction());
+        copy.setDevice(tag.getDevice());
+        copy.setCountry(tag.getCountry());
+        copy.setOrigin(tag.getOrigin());
+        copy.setBrand(tag.getBrand());
+        copy.setCategory(tag.getCategory());
+        copy.setPrice(tag.getPrice());
+        return copy;
+    }
+}
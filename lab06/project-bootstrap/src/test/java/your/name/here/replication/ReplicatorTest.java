@@ -0,0 +1,22 @@
+package your.name.here.replication;
+
+import org.junit.jupiter.api.Test;
+
+import your.name.here.profile.CompressedProfileStore;
+import your.name.here.profile.OffHeapProfileStore;
+import your.name.here.profile.StripedProfileStore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReplicatorTest {
+
+    @Test
+    void keepsTheReplicaInTheStoreOfTheNodesOwnShard() {
+        assertThat(Replicator.replicaStore("offheap", 1000)).isInstanceOf(OffHeapProfileStore.class);
+        assertThat(Replicator.replicaStore("heap", 1000)).isInstanceOf(StripedProfileStore.class);
+        assertThat(Replicator.replicaStore("compressed", 1000)).isInstanceOf(CompressedProfileStore.class);
+        assertThat(Replicator.replicaStore("aerospike", 1000)).isInstanceOf(OffHeapProfileStore.class);
+        assertThatThrownBy(() -> Replicator.replicaStore("redis", 1000)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,181 @@
+package your.name.here.wal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import your.name.here.domain.Action;
+import your.name.here.domain.Device;
+import your.name.here.encoding.EncodedUserTag;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WriteAheadLogTest {
+
+    private static final long TIME = 1_650_000_000_000L;
+
+    @TempDir
+    Path stateDir;
+
+    @Test
+    void replaysEveryDurableRecordAfterReopening() throws Exception {
+        append(0, 100);
+
+        WriteAheadLog reopened = new WriteAheadLog(stateDir.toString(), 1);
+        try {
+            assertThat(reopened.durableLsn()).isEqualTo(100);
+            assertThat(products(reopened, 1)).isEqualTo(range(0, 100));
+            assertThat(products(reopened, 41)).isEqualTo(range(40, 100));
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void dropsARecordWithAWrongChecksumAndEverythingAfterIt() throws Exception {
+        append(0, 10);
+        Path segment = segments().get(0);
+        int[] offsets = recordOffsets(segment);
+        corrupt(segment, offsets[7] + 2 * Integer.BYTES + 3);
+
+        assertRecoversTo(7);
+    }
+
+    @Test
+    void dropsARecordWhoseLengthRunsPastTheSegment() throws Exception {
+        append(0, 10);
+        Path segment = segments().get(0);
+        int[] offsets = recordOffsets(segment);
+        writeInt(segment, offsets[9], Integer.MAX_VALUE);
+
+        assertRecoversTo(9);
+    }
+
+    @Test
+    void dropsARecordWithItsHeaderButNotItsPayloadWritten() throws Exception {
+        append(0, 10);
+        Path segment = segments().get(0);
+        int[] offsets = recordOffsets(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(offsets[10] - offsets[9] - 2 * Integer.BYTES),
+                    offsets[9] + 2 * Integer.BYTES);
+        }
+
+        assertRecoversTo(9);
+    }
+
+    /**
+     * Reopens the log after the tail was torn at record {@code kept}, checks that only the records before it are
+     * replayed, and that records appended afterwards continue the sequence and survive another restart.
+     */
+    private void assertRecoversTo(int kept) throws Exception {
+        WriteAheadLog reopened = new WriteAheadLog(stateDir.toString(), 1);
+        try {
+            assertThat(reopened.durableLsn()).isEqualTo(kept);
+            assertThat(products(reopened, 1)).isEqualTo(range(0, kept));
+            reopened.append(tag(1000), tag -> { }).get();
+            assertThat(reopened.durableLsn()).isEqualTo(kept + 1);
+        } finally {
+            reopened.close();
+        }
+
+        WriteAheadLog again = new WriteAheadLog(stateDir.toString(), 1);
+        try {
+            List<Integer> expected = range(0, kept);
+            expected.add(1000);
+            assertThat(products(again, 1)).isEqualTo(expected);
+        } finally {
+            again.close();
+        }
+    }
+
+    private void append(int first, int end) throws Exception {
+        WriteAheadLog log = new WriteAheadLog(stateDir.toString(), 1);
+        try {
+            List<CompletableFuture<Void>> durable = new ArrayList<>();
+            for (int i = first; i < end; i++) {
+                durable.add(log.append(tag(i), tag -> { }));
+            }
+            CompletableFuture.allOf(durable.toArray(new CompletableFuture<?>[0])).get();
+        } finally {
+            log.close();
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(stateDir.resolve("wal"))) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Returns the offsets of the records of the segment, followed by the offset after the last one.
+     */
+    private static int[] recordOffsets(Path segment) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(segment));
+        List<Integer> offsets = new ArrayList<>();
+        int offset = 0;
+        while (buffer.getInt(offset) != 0) {
+            offsets.add(offset);
+            offset += 2 * Integer.BYTES + buffer.getInt(offset);
+        }
+        offsets.add(offset);
+        return offsets.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static void corrupt(Path segment, int position) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer value = ByteBuffer.allocate(1);
+            channel.read(value, position);
+            value.put(0, (byte) (value.get(0) ^ 0x5A));
+            value.rewind();
+            channel.write(value, position);
+        }
+    }
+
+    private static void writeInt(Path segment, int position, int value) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, value), position);
+        }
+    }
+
+    private static List<Integer> products(WriteAheadLog log, long fromLsn) {
+        List<Integer> products = new ArrayList<>();
+        log.replay(fromLsn, tag -> products.add(tag.getProductId()));
+        return products;
+    }
+
+    private static List<Integer> range(int first, int end) {
+        List<Integer> range = new ArrayList<>();
+        for (int i = first; i < end; i++) {
+            range.add(i);
+        }
+        return range;
+    }
+
+    private static EncodedUserTag tag(int productId) {
+        EncodedUserTag tag = new EncodedUserTag();
+        tag.setTime(TIME + productId);
+        tag.setCookie("cookie-" + productId);
+        tag.setAction(Action.VIEW);
+        tag.setDevice(Device.PC);
+        tag.setCountry(1);
+        tag.setOrigin(2);
+        tag.setProductId(productId);
+        tag.setBrand(3);
+        tag.setCategory(4);
+        tag.setPrice(100);
+        return tag;
+    }
+}